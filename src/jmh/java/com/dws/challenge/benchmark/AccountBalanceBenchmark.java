@@ -0,0 +1,51 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.FixedPointAccount;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link BigDecimal} balances of {@link Account} against the minor-unit {@code long} of
+ * {@link FixedPointAccount}. Add {@code -prof gc} to compare allocation per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountBalanceBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("12.34");
+
+    private static final long AMOUNT_MINOR_UNITS = 1234L;
+
+    private final Account account = new Account("Id-1", BenchmarkFixtures.OPENING_BALANCE);
+
+    private final FixedPointAccount fixedPointAccount = new FixedPointAccount("Id-1", BenchmarkFixtures.OPENING_BALANCE, 2);
+
+    @Benchmark
+    public boolean bigDecimalWithdrawDeposit() {
+        boolean withdrawn = account.withdraw(AMOUNT);
+        account.deposit(AMOUNT);
+        return withdrawn;
+    }
+
+    @Benchmark
+    public boolean fixedPointWithdrawDeposit() {
+        boolean withdrawn = fixedPointAccount.withdraw(AMOUNT_MINOR_UNITS);
+        fixedPointAccount.deposit(AMOUNT_MINOR_UNITS);
+        return withdrawn;
+    }
+}
@@ -0,0 +1,81 @@
+package com.dws.challenge.benchmark;
+
+import java.util.Random;
+
+/**
+ * Shapes of account selection used to drive the transfer benchmarks.
+ */
+public enum AccountDistribution {
+
+    /** Every account is equally likely on either side of a transfer. */
+    UNIFORM,
+    /** Zipf (s = 0.99) popularity, a handful of accounts see most of the traffic. */
+    ZIPFIAN,
+    /** Account 0 is on one side of every transfer, like a merchant or fee account. */
+    HOT;
+
+    private static final double ZIPF_EXPONENT = 0.99;
+
+    /**
+     * Pre-computes {@code count} (from, to) index pairs, flattened into one array, so sampling stays
+     * outside the measured code.
+     */
+    public int[] samplePairs(int accounts, int count, long seed) {
+        Random random = new Random(seed);
+        double[] zipfCdf = this == ZIPFIAN ? zipfCdf(accounts) : null;
+        int[] pairs = new int[count * 2];
+        for (int i = 0; i < count; i++) {
+            int from;
+            int to;
+            do {
+                switch (this) {
+                    case HOT -> {
+                        int other = 1 + random.nextInt(accounts - 1);
+                        boolean hotPays = random.nextBoolean();
+                        from = hotPays ? 0 : other;
+                        to = hotPays ? other : 0;
+                    }
+                    case ZIPFIAN -> {
+                        from = sampleZipf(zipfCdf, random);
+                        to = sampleZipf(zipfCdf, random);
+                    }
+                    default -> {
+                        from = random.nextInt(accounts);
+                        to = random.nextInt(accounts);
+                    }
+                }
+            } while (from == to);
+            pairs[2 * i] = from;
+            pairs[2 * i + 1] = to;
+        }
+        return pairs;
+    }
+
+    private static double[] zipfCdf(int accounts) {
+        double[] cdf = new double[accounts];
+        double sum = 0;
+        for (int i = 0; i < accounts; i++) {
+            sum += 1.0 / Math.pow(i + 1, ZIPF_EXPONENT);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < accounts; i++) {
+            cdf[i] /= sum;
+        }
+        return cdf;
+    }
+
+    private static int sampleZipf(double[] cdf, Random random) {
+        double u = random.nextDouble();
+        int low = 0;
+        int high = cdf.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cdf[mid] < u) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,78 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.fx.FxRateProvider;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.NotificationService;
+import com.dws.challenge.service.engine.CasTransferEngine;
+import com.dws.challenge.service.engine.ShardedTransferEngine;
+import com.dws.challenge.service.engine.StripedLockTransferEngine;
+import com.dws.challenge.service.engine.TransferEngine;
+
+import java.math.BigDecimal;
+
+/**
+ * Builds the application objects without a Spring context so benchmarks measure the code under test only.
+ */
+final class BenchmarkFixtures {
+
+    static final NotificationService NO_NOTIFICATIONS = (account, transferDescription) -> {
+    };
+
+    static final BigDecimal OPENING_BALANCE = new BigDecimal("1000000000000");
+
+    private BenchmarkFixtures() {
+    }
+
+    static TransferEngine engine(String name) {
+        return switch (name) {
+            case "striped" -> new StripedLockTransferEngine(1024);
+            case "cas" -> new CasTransferEngine();
+            case "sharded" -> new ShardedTransferEngine(Runtime.getRuntime().availableProcessors(), 1024);
+            default -> throw new IllegalArgumentException("Unknown transfer engine " + name);
+        };
+    }
+
+    static String[] accountIds(int count) {
+        String[] ids = new String[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = "Id-" + i;
+        }
+        return ids;
+    }
+
+    static AccountsService accountsService(String engine, String[] accountIds) {
+        return accountsService(engine(engine), accountIds);
+    }
+
+    static AccountsService accountsService(TransferEngine engine, String[] accountIds) {
+        AccountsRepository repository = new AccountsRepositoryInMemory();
+        for (String accountId : accountIds) {
+            repository.createAccount(new Account(accountId, OPENING_BALANCE));
+        }
+        return AccountsService.builder()
+                .accountsRepository(repository)
+                .transferEngine(engine)
+                .notificationService(NO_NOTIFICATIONS)
+                .build();
+    }
+
+    /**
+     * @param currencies currency of each account, cycled over the account ids
+     */
+    static AccountsService accountsService(TransferEngine engine, String[] accountIds, String[] currencies,
+                                           FxRateProvider fxRateProvider) {
+        AccountsRepository repository = new AccountsRepositoryInMemory();
+        for (int i = 0; i < accountIds.length; i++) {
+            repository.createAccount(new Account(accountIds[i], OPENING_BALANCE, currencies[i % currencies.length]));
+        }
+        return AccountsService.builder()
+                .accountsRepository(repository)
+                .transferEngine(engine)
+                .notificationService(NO_NOTIFICATIONS)
+                .fxRateProvider(fxRateProvider)
+                .build();
+    }
+}
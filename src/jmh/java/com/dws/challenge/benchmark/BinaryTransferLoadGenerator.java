@@ -0,0 +1,127 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.wire.BinaryTransferProtocol;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Closed-loop load on the binary transfer protocol of a running instance started with
+ * {@code transfer.binary.enabled=true}, reporting the same figures as {@link TransferLoadGenerator} so the two
+ * ingresses can be compared. Each connection keeps {@code pipelineDepth} transfers in flight: every response read
+ * is answered with a new request, written together with the others answered by the same read.
+ * <p>
+ * Accounts are created over HTTP at {@code baseUrl}, which also serves the CPU metric.
+ * <p>
+ * Arguments: {@code baseUrl binaryPort connections pipelineDepth requestsPerConnection accounts}.
+ */
+public final class BinaryTransferLoadGenerator {
+
+    private BinaryTransferLoadGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:18080";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 18081;
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        int pipelineDepth = args.length > 3 ? Integer.parseInt(args[3]) : 128;
+        int requestsPerConnection = args.length > 4 ? Integer.parseInt(args[4]) : 100_000;
+        int accounts = args.length > 5 ? Integer.parseInt(args[5]) : 1000;
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        String prefix = "Binary-" + System.currentTimeMillis() + "-";
+        byte[][] accountIds = new byte[accounts][];
+        for (int i = 0; i < accounts; i++) {
+            TransferLoadGenerator.send(client, baseUrl + "/v1/accounts", "{\"accountId\":\"" + prefix + i + "\",\"balance\":1000000}");
+            accountIds[i] = (prefix + i).getBytes(StandardCharsets.UTF_8);
+        }
+        InetSocketAddress address = new InetSocketAddress(URI.create(baseUrl).getHost(), port);
+
+        AtomicInteger failures = new AtomicInteger();
+        long[][] latencies = new long[connections][requestsPerConnection];
+        double cpuStarted = TransferLoadGenerator.serverCpuNanos(client, baseUrl);
+        long started = System.nanoTime();
+        try (ExecutorService clients = Executors.newFixedThreadPool(connections)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < connections; c++) {
+                long[] connectionLatencies = latencies[c];
+                long seed = c;
+                futures.add(clients.submit(() -> {
+                    run(address, accountIds, pipelineDepth, connectionLatencies, failures, new SplittableRandom(seed));
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        long elapsed = System.nanoTime() - started;
+        double cpu = TransferLoadGenerator.serverCpuNanos(client, baseUrl) - cpuStarted;
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("requests=%d connections=%d pipeline=%d failures=%d throughput=%.0f req/s p50=%.2f ms p99=%.2f ms p99.9=%.2f ms cpu=%.1f us/transfer%n",
+                all.length, connections, pipelineDepth, failures.get(), all.length / (elapsed / 1e9),
+                TransferLoadGenerator.percentile(all, 0.50), TransferLoadGenerator.percentile(all, 0.99),
+                TransferLoadGenerator.percentile(all, 0.999), cpu / 1e3 / all.length);
+    }
+
+    private static void run(InetSocketAddress address, byte[][] accountIds, int pipelineDepth, long[] latencies,
+                            AtomicInteger failures, SplittableRandom random) throws IOException {
+        int requests = latencies.length;
+        long[] sentAt = new long[requests];
+        ByteBuffer out = ByteBuffer.allocateDirect(pipelineDepth * (BinaryTransferProtocol.LENGTH_SIZE + BinaryTransferProtocol.MAX_FRAME_SIZE));
+        ByteBuffer in = ByteBuffer.allocateDirect(64 * 1024);
+        try (SocketChannel channel = SocketChannel.open(address)) {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            int sent = 0;
+            int received = 0;
+            while (received < requests) {
+                // Top the window up to pipelineDepth requests in flight, in one write.
+                while (sent < requests && sent - received < pipelineDepth) {
+                    int from = random.nextInt(accountIds.length);
+                    int to = (from + 1 + random.nextInt(accountIds.length - 1)) % accountIds.length;
+                    BinaryTransferProtocol.writeTransfer(out, sent, accountIds[from], accountIds[to], 1, 0, null);
+                    sentAt[sent++] = System.nanoTime();
+                }
+                out.flip();
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+                out.clear();
+
+                if (channel.read(in) < 0) {
+                    throw new EOFException("Server closed the connection after " + received + " responses");
+                }
+                in.flip();
+                while (in.remaining() >= BinaryTransferProtocol.LENGTH_SIZE + BinaryTransferProtocol.RESPONSE_SIZE) {
+                    in.getInt();
+                    int requestId = (int) in.getLong();
+                    if (in.get() != BinaryTransferProtocol.SUCCESS) {
+                        failures.incrementAndGet();
+                    }
+                    latencies[requestId] = System.nanoTime() - sentAt[requestId];
+                    received++;
+                }
+                in.compact();
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.domain.FundTransferRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson deserialization of the transfer request body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FundTransferRequestBenchmark {
+
+    private final byte[] body = "{\"accountFrom\":\"Id-111\",\"accountTo\":\"Id-222\",\"amount\":300.25}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectReader reader = new ObjectMapper().readerFor(FundTransferRequest.class);
+
+    @Benchmark
+    public FundTransferRequest deserialize() throws IOException {
+        return reader.readValue(body);
+    }
+}
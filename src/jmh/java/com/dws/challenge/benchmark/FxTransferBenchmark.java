@@ -0,0 +1,98 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.fx.FxRateProvider;
+import com.dws.challenge.fx.FxRateTable;
+import com.dws.challenge.service.AccountsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link AccountsService#transferMoney} between accounts of one currency against accounts
+ * spread over several currencies, where every transfer converts through the FX rate table. {@link #rateLookup}
+ * isolates the table lookup; run with {@code -PjmhProfilers=gc} to confirm it allocates nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FxTransferBenchmark {
+
+    private static final BigDecimal AMOUNT = BigDecimal.ONE;
+
+    private static final String[] CURRENCIES = {"EUR", "USD", "GBP", "JPY"};
+
+    @Param({"SAME", "CROSS"})
+    public String currencies;
+
+    @Param({"striped"})
+    public String engine;
+
+    @Param({"10000"})
+    public int accounts;
+
+    AccountsService accountsService;
+
+    FxRateProvider fxRateProvider;
+
+    String[] accountIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        accountIds = BenchmarkFixtures.accountIds(accounts);
+        fxRateProvider = new FxRateProvider("EUR", List.of("USD=1.08", "GBP=0.85", "JPY=162"), "", 0);
+        String[] accountCurrencies = currencies.equals("SAME") ? new String[] {"EUR"} : CURRENCIES;
+        accountsService = BenchmarkFixtures.accountsService(BenchmarkFixtures.engine(engine), accountIds,
+                accountCurrencies, fxRateProvider);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fxRateProvider.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        int[] pairs;
+
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(FxTransferBenchmark benchmark, ThreadParams threadParams) {
+            pairs = AccountDistribution.UNIFORM.samplePairs(benchmark.accounts, 1 << 16, threadParams.getThreadIndex());
+        }
+    }
+
+    @Benchmark
+    public boolean transferMoney(Cursor cursor) {
+        int i = cursor.next;
+        cursor.next = (i + 2) % cursor.pairs.length;
+        return accountsService.transferMoney(accountIds[cursor.pairs[i]], accountIds[cursor.pairs[i + 1]], AMOUNT);
+    }
+
+    @Benchmark
+    public BigDecimal rateLookup(Cursor cursor) {
+        int i = cursor.next;
+        cursor.next = (i + 2) % cursor.pairs.length;
+        FxRateTable table = fxRateProvider.current();
+        return table.rate(CURRENCIES[cursor.pairs[i] & 3], CURRENCIES[cursor.pairs[i + 1] & 3]);
+    }
+}
@@ -0,0 +1,81 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.journal.FsyncPolicy;
+import com.dws.challenge.journal.RecoveryReport;
+import com.dws.challenge.journal.SnapshotManager;
+import com.dws.challenge.journal.SnapshotStore;
+import com.dws.challenge.journal.TransactionJournal;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Startup recovery time from a snapshot of {@code accounts} balances. Each invocation loads the snapshot
+ * into an empty repository, the way the application does on startup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class RecoveryBenchmark {
+
+    @Param({"1000000", "10000000"})
+    public int accounts;
+
+    Path directory;
+
+    TransactionJournal journal;
+
+    SnapshotManager snapshotManager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("recovery-benchmark");
+        journal = new TransactionJournal(directory, 64 << 20, FsyncPolicy.NONE, 0);
+        SnapshotStore store = new SnapshotStore(directory.resolve("snapshots"));
+        Map<String, BigDecimal> balances = new HashMap<>(accounts * 2);
+        for (int i = 0; i < accounts; i++) {
+            balances.put("Id-" + i, BigDecimal.valueOf(i, 2));
+        }
+        store.write(1L, null, balances, Map.of());
+        snapshotManager = new SnapshotManager(journal, store);
+    }
+
+    @Benchmark
+    public RecoveryReport recover() throws IOException {
+        return snapshotManager.recover(new AccountsRepositoryInMemory(), AccountFactory.NONE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        snapshotManager.close();
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.TieredAccountsRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lookup and insert cost of {@link AccountsRepositoryInMemory} and {@link TieredAccountsRepository}. The
+ * tiered repository keeps a tenth of the accounts hot, so most random lookups promote a cold account and
+ * the sweeper demotes others meanwhile; the heap used after setup is printed for each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    @Param({"1000", "1000000"})
+    public int accounts;
+
+    @Param({"memory", "tiered"})
+    public String tiers;
+
+    AccountsRepository repository;
+
+    String[] accountIds;
+
+    private final AtomicLong nextId = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        accountIds = BenchmarkFixtures.accountIds(accounts);
+        repository = tiers.equals("tiered")
+                ? new TieredAccountsRepository(Math.max(accounts / 10, 1), accounts, 100)
+                : new AccountsRepositoryInMemory();
+        List<Account> batch = new ArrayList<>(accounts);
+        for (String accountId : accountIds) {
+            batch.add(new Account(accountId, BigDecimal.TEN));
+        }
+        repository.createAccounts(batch);
+        batch = null;
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        System.out.printf("%n%s repository with %d accounts: %d MB heap used%n", tiers, accounts,
+                (runtime.totalMemory() - runtime.freeMemory()) >> 20);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (repository instanceof TieredAccountsRepository tiered) {
+            tiered.close();
+        }
+    }
+
+    @Benchmark
+    public Account getAccount() {
+        return repository.getAccount(accountIds[ThreadLocalRandom.current().nextInt(accounts)]);
+    }
+
+    /**
+     * Same lookup with an id that has no cached hash code, as it arrives from a request path or body.
+     */
+    @Benchmark
+    public Account getAccountFreshId() {
+        return repository.getAccount(new String(accountIds[ThreadLocalRandom.current().nextInt(accounts)]));
+    }
+
+    @Benchmark
+    public void createAccount() {
+        repository.createAccount(new Account("New-" + nextId.incrementAndGet(), BigDecimal.TEN));
+    }
+}
@@ -0,0 +1,84 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.engine.ShardedTransferEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the sharded engine from 1 to 64 shards. With a uniform distribution most transfers
+ * cross shards once there is more than one, so this also shows the cost of the two-phase path.
+ * Run with {@code -PjmhThreads=N} so the callers can keep every shard busy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShardScalingBenchmark {
+
+    private static final BigDecimal AMOUNT = BigDecimal.ONE;
+
+    @Param({"1", "2", "4", "8", "16", "32", "64"})
+    public int shards;
+
+    @Param({"UNIFORM", "ZIPFIAN"})
+    public AccountDistribution distribution;
+
+    @Param({"10000"})
+    public int accounts;
+
+    ShardedTransferEngine engine;
+
+    AccountsService accountsService;
+
+    String[] accountIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        accountIds = BenchmarkFixtures.accountIds(accounts);
+        engine = new ShardedTransferEngine(shards, 1024);
+        accountsService = BenchmarkFixtures.accountsService(engine, accountIds);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        int[] pairs;
+
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(ShardScalingBenchmark benchmark, ThreadParams threadParams) {
+            pairs = benchmark.distribution.samplePairs(benchmark.accounts, 1 << 16, threadParams.getThreadIndex());
+        }
+    }
+
+    @Benchmark
+    public boolean transferMoney(Cursor cursor) {
+        int i = cursor.next;
+        cursor.next = (i + 2) % cursor.pairs.length;
+        return accountsService.transferMoney(accountIds[cursor.pairs[i]], accountIds[cursor.pairs[i + 1]], AMOUNT);
+    }
+}
@@ -0,0 +1,73 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.service.AccountsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link AccountsService#transferMoney} per engine and account distribution.
+ * Run with {@code -PjmhThreads=N} for 1..N threads to see how each engine scales with cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransferBenchmark {
+
+    private static final BigDecimal AMOUNT = BigDecimal.ONE;
+
+    @Param({"striped", "cas", "sharded"})
+    public String engine;
+
+    @Param({"UNIFORM", "ZIPFIAN", "HOT"})
+    public AccountDistribution distribution;
+
+    @Param({"10000"})
+    public int accounts;
+
+    AccountsService accountsService;
+
+    String[] accountIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        accountIds = BenchmarkFixtures.accountIds(accounts);
+        accountsService = BenchmarkFixtures.accountsService(engine, accountIds);
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        int[] pairs;
+
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(TransferBenchmark benchmark, ThreadParams threadParams) {
+            pairs = benchmark.distribution.samplePairs(benchmark.accounts, 1 << 16, threadParams.getThreadIndex());
+        }
+    }
+
+    @Benchmark
+    public boolean transferMoney(Cursor cursor) {
+        int i = cursor.next;
+        cursor.next = (i + 2) % cursor.pairs.length;
+        return accountsService.transferMoney(accountIds[cursor.pairs[i]], accountIds[cursor.pairs[i + 1]], AMOUNT);
+    }
+}
@@ -0,0 +1,124 @@
+package com.dws.challenge.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop HTTP load against a running instance, used to compare the platform-thread and
+ * virtual-thread request modes: start the application once with {@code spring.threads.virtual.enabled}
+ * off and once with it on, and run {@code ./gradlew loadTest} against each. The server CPU time spent per
+ * transfer is read from the {@code process.cpu.time} actuator metric, for comparison with
+ * {@link BinaryTransferLoadGenerator}.
+ * <p>
+ * Arguments: {@code baseUrl concurrency requestsPerClient accounts}.
+ */
+public final class TransferLoadGenerator {
+
+    private static final Pattern METRIC_VALUE = Pattern.compile("\"value\"\\s*:\\s*([0-9.Ee+-]+)");
+
+    private TransferLoadGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:18080";
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int requestsPerClient = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+        int accounts = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        String prefix = "Load-" + System.currentTimeMillis() + "-";
+        for (int i = 0; i < accounts; i++) {
+            send(client, baseUrl + "/v1/accounts", "{\"accountId\":\"" + prefix + i + "\",\"balance\":1000000}");
+        }
+
+        AtomicInteger failures = new AtomicInteger();
+        long[][] latencies = new long[concurrency][requestsPerClient];
+        double cpuStarted = serverCpuNanos(client, baseUrl);
+        long started = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < concurrency; c++) {
+                long[] clientLatencies = latencies[c];
+                futures.add(clients.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int r = 0; r < requestsPerClient; r++) {
+                        int from = random.nextInt(accounts);
+                        int to = (from + 1 + random.nextInt(accounts - 1)) % accounts;
+                        String body = "{\"accountFrom\":\"" + prefix + from + "\",\"accountTo\":\"" + prefix + to + "\",\"amount\":1}";
+                        long requestStarted = System.nanoTime();
+                        if (send(client, baseUrl + "/v1/transfer", body) != 200) {
+                            failures.incrementAndGet();
+                        }
+                        clientLatencies[r] = System.nanoTime() - requestStarted;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        long elapsed = System.nanoTime() - started;
+        double cpu = serverCpuNanos(client, baseUrl) - cpuStarted;
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("requests=%d concurrency=%d failures=%d throughput=%.0f req/s p50=%.2f ms p99=%.2f ms p99.9=%.2f ms cpu=%.1f us/transfer%n",
+                all.length, concurrency, failures.get(), all.length / (elapsed / 1e9),
+                percentile(all, 0.50), percentile(all, 0.99), percentile(all, 0.999), cpu / 1e3 / all.length);
+    }
+
+    /**
+     * @return CPU time in nanoseconds used by the server process so far, NaN if the metric is not exposed
+     */
+    static double serverCpuNanos(HttpClient client, String baseUrl) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/metrics/process.cpu.time")).build();
+        try {
+            Matcher matcher = METRIC_VALUE.matcher(client.send(request, HttpResponse.BodyHandlers.ofString()).body());
+            return matcher.find() ? Double.parseDouble(matcher.group(1)) : Double.NaN;
+        } catch (IOException e) {
+            return Double.NaN;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Double.NaN;
+        }
+    }
+
+    static int send(HttpClient client, String url, String body) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,87 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.domain.FundTransferRequest;
+import com.dws.challenge.exception.BusinessException;
+import com.dws.challenge.exception.InsufficientBalanceException;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.IdempotencyCache;
+import com.dws.challenge.web.FundTransferController;
+import com.dws.challenge.web.TransferRequestValidator;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controller-level cost of one transfer, default versus lean mode, for an applied transfer and for one
+ * rejected for insufficient balance. Run with {@code -PjmhProfilers=gc} for bytes allocated per operation,
+ * or {@code -PjmhProfilers=jfr} to get a JFR recording with allocation samples per benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransferRequestPathBenchmark {
+
+    @Param({"false", "true"})
+    public boolean lean;
+
+    ValidatorFactory validatorFactory;
+
+    FundTransferController controller;
+
+    FundTransferRequest applied;
+
+    FundTransferRequest rejected;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] accountIds = BenchmarkFixtures.accountIds(3);
+        AccountsService accountsService = BenchmarkFixtures.accountsService("striped", accountIds);
+        accountsService.getAccount(accountIds[2]).setBalance(BigDecimal.ZERO);
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        // What BusinessExceptionConfiguration does in the application.
+        BusinessException.setStackTraces(!lean);
+        controller = new FundTransferController(accountsService, new IdempotencyCache(600, 1000),
+                new TransferRequestValidator(validatorFactory.getValidator(), lean), 10000, lean, 1024);
+        applied = new FundTransferRequest(accountIds[0], accountIds[1], BigDecimal.ONE);
+        rejected = new FundTransferRequest(accountIds[2], accountIds[1], BigDecimal.ONE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BusinessException.setStackTraces(true);
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<String> appliedTransfer() {
+        return controller.transferMoney(applied, null);
+    }
+
+    @Benchmark
+    public Object rejectedTransfer() {
+        try {
+            return controller.transferMoney(rejected, null);
+        } catch (InsufficientBalanceException e) {
+            return e;
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package com.dws.challenge;
 
+import com.dws.challenge.service.AsyncNotificationService;
 import com.dws.challenge.service.EmailNotificationService;
 import com.dws.challenge.service.NotificationService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 
+import java.util.concurrent.ThreadFactory;
+
 @SpringBootApplication
 public class ChallengeApplication {
 
@@ -14,7 +18,19 @@ public class ChallengeApplication {
 	}
 
 	@Bean
-	public NotificationService notificationService() {
-		return new EmailNotificationService();
+	public NotificationService notificationService(
+			@Value("${notification.async.enabled:false}") boolean async,
+			@Value("${notification.async.capacity:10000}") int capacity,
+			@Value("${notification.async.overflow-policy:SPILL}") AsyncNotificationService.OverflowPolicy overflowPolicy,
+			@Value("${notification.async.batch-size:256}") int batchSize,
+			@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+		NotificationService emailNotificationService = new EmailNotificationService();
+		if (!async) {
+			return emailNotificationService;
+		}
+		ThreadFactory threadFactory = virtualThreads
+				? Thread.ofVirtual().name("notification-dispatcher").factory()
+				: Thread.ofPlatform().name("notification-dispatcher").daemon().factory();
+		return new AsyncNotificationService(emailNotificationService, capacity, overflowPolicy, batchSize, threadFactory);
 	}
 }
@@ -1,46 +1,94 @@
 package com.dws.challenge.domain;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 @Data
 public class Account {
 
+  private static final AtomicReferenceFieldUpdater<Account, BigDecimal> BALANCE =
+    AtomicReferenceFieldUpdater.newUpdater(Account.class, BigDecimal.class, "balance");
+
   @NotNull
   @NotEmpty
   private final String accountId;
 
   @NotNull
   @Min(value = 0, message = "Initial balance must be positive.")
-  private BigDecimal balance;
+  private volatile BigDecimal balance;
+
+  /**
+   * ISO 4217 code of the balance, or null for the base currency of the FX rate table.
+   */
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  @Pattern(regexp = "[A-Z]{3}", message = "Currency must be a three letter ISO code.")
+  private final String currency;
+
+  /**
+   * Dense index the repository gave the account when storing it, or -1 if it has none.
+   */
+  @JsonIgnore
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  private int handle = -1;
 
   public Account(String accountId) {
-    this.accountId = accountId;
-    this.balance = BigDecimal.ZERO;
+    this(accountId, BigDecimal.ZERO);
+  }
+
+  public Account(String accountId, BigDecimal balance) {
+    this(accountId, balance, null);
   }
 
   @JsonCreator
   public Account(@JsonProperty("accountId") String accountId,
-    @JsonProperty("balance") BigDecimal balance) {
+    @JsonProperty("balance") BigDecimal balance,
+    @JsonProperty("currency") String currency) {
     this.accountId = accountId;
     this.balance = balance;
+    this.currency = currency;
+  }
+
+  /**
+   * Whether deposits and withdrawals of exactly this amount fit the balance, always for a {@code BigDecimal} one.
+   */
+  public boolean canHold(BigDecimal amount) {
+    return true;
   }
 
-  public synchronized void deposit(BigDecimal amount) {
-    balance = balance.add(amount);
+  /**
+   * Lock-free credit; concurrent updates retry on CAS failure instead of taking the account monitor.
+   */
+  public void deposit(BigDecimal amount) {
+    BigDecimal current;
+    do {
+      current = balance;
+    } while (!BALANCE.compareAndSet(this, current, current.add(amount)));
   }
 
-  public synchronized boolean withdraw(BigDecimal amount) {
-    if (balance.compareTo(amount) > 0) {
-      balance = balance.subtract(amount);
-      return true;
-    }
-    return false;
+  /**
+   * Lock-free debit, only applied while the balance stays above the requested amount.
+   */
+  public boolean withdraw(BigDecimal amount) {
+    BigDecimal current;
+    do {
+      current = balance;
+      if (current.compareTo(amount) <= 0) {
+        return false;
+      }
+    } while (!BALANCE.compareAndSet(this, current, current.subtract(amount)));
+    return true;
   }
 }
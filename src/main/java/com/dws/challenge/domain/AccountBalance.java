@@ -0,0 +1,20 @@
+package com.dws.challenge.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * Immutable view of an account's balance, returned by the read endpoints instead of the live account.
+ */
+@Data
+public class AccountBalance {
+
+    private final String accountId;
+
+    private final BigDecimal balance;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final String currency;
+}
@@ -0,0 +1,16 @@
+package com.dws.challenge.domain;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BalanceSnapshot {
+
+    /**
+     * Balances of the requested accounts, read at a single point in time when the engine supports it.
+     */
+    private final List<AccountBalance> accounts;
+
+    private final List<String> missing;
+}
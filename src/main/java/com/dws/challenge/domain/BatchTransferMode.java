@@ -0,0 +1,10 @@
+package com.dws.challenge.domain;
+
+public enum BatchTransferMode {
+
+    /** Every transfer of the batch is applied, or none of them is. */
+    ATOMIC,
+
+    /** Each transfer is applied on its own and reported individually. */
+    BEST_EFFORT
+}
@@ -0,0 +1,17 @@
+package com.dws.challenge.domain;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchTransferResponse {
+
+    private final BatchTransferMode mode;
+
+    private final int succeeded;
+
+    private final int failed;
+
+    private final List<TransferItemResult> results;
+}
@@ -0,0 +1,22 @@
+package com.dws.challenge.domain;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkImportResponse {
+
+    private final long created;
+
+    private final long duplicates;
+
+    private final long invalid;
+
+    /**
+     * First rejected lines only, see {@code errorsTruncated}.
+     */
+    private final List<ImportLineError> errors;
+
+    private final boolean errorsTruncated;
+}
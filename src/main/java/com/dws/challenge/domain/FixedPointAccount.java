@@ -0,0 +1,135 @@
+package com.dws.challenge.domain;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * Account keeping its balance as a scaled {@code long} of minor units (cents for a scale of 2) instead of a
+ * {@link BigDecimal}, so deposits and withdrawals neither allocate nor run {@code BigDecimal} arithmetic on the
+ * balance. Accounts are created as this type with {@code transfer.fixed-point.enabled}; amounts with more
+ * fraction digits than the scale are refused before a transfer starts, see {@link #canHold}. The JSON shape is
+ * the same as {@link Account}.
+ */
+public class FixedPointAccount extends Account {
+
+  public static final int DEFAULT_SCALE = 2;
+
+  private static final VarHandle BALANCE;
+
+  static {
+    try {
+      BALANCE = MethodHandles.lookup().findVarHandle(FixedPointAccount.class, "balanceMinorUnits", long.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  @Getter(onMethod_ = @JsonIgnore)
+  private final int scale;
+
+  @Getter(onMethod_ = @JsonIgnore)
+  private volatile long balanceMinorUnits;
+
+  public FixedPointAccount(String accountId, String currency, long balanceMinorUnits, int scale) {
+    super(accountId, BigDecimal.ZERO, currency);
+    this.balanceMinorUnits = balanceMinorUnits;
+    this.scale = scale;
+  }
+
+  public FixedPointAccount(String accountId, long balanceMinorUnits, int scale) {
+    this(accountId, null, balanceMinorUnits, scale);
+  }
+
+  public FixedPointAccount(String accountId, BigDecimal balance, String currency, int scale) {
+    this(accountId, currency, toMinorUnits(balance, scale), scale);
+  }
+
+  public FixedPointAccount(String accountId, BigDecimal balance, int scale) {
+    this(accountId, balance, null, scale);
+  }
+
+  @JsonCreator
+  public FixedPointAccount(@JsonProperty("accountId") String accountId,
+    @JsonProperty("balance") BigDecimal balance) {
+    this(accountId, balance, DEFAULT_SCALE);
+  }
+
+  @Override
+  public BigDecimal getBalance() {
+    return BigDecimal.valueOf(balanceMinorUnits, scale);
+  }
+
+  @Override
+  public void setBalance(BigDecimal balance) {
+    balanceMinorUnits = toMinorUnits(balance, scale);
+  }
+
+  /**
+   * Also false when the amount does not fit in a {@code long} of minor units, or adding it to the current
+   * balance would overflow. A concurrent credit can still push the balance over between this check and the
+   * deposit; the engines give the debit back when the credit throws.
+   */
+  @Override
+  public boolean canHold(BigDecimal amount) {
+    if (amount.scale() > scale && amount.stripTrailingZeros().scale() > scale) {
+      return false;
+    }
+    BigInteger minorUnits = amount.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue();
+    if (minorUnits.bitLength() >= Long.SIZE) {
+      return false;
+    }
+    long minor = minorUnits.longValue();
+    return minor <= 0 || balanceMinorUnits <= Long.MAX_VALUE - minor;
+  }
+
+  public void deposit(long amountMinorUnits) {
+    long current;
+    do {
+      current = balanceMinorUnits;
+    } while (!BALANCE.compareAndSet(this, current, Math.addExact(current, amountMinorUnits)));
+  }
+
+  /**
+   * Debit with the same rule as {@link Account#withdraw(BigDecimal)}: the balance must stay above the amount.
+   */
+  public boolean withdraw(long amountMinorUnits) {
+    long current;
+    do {
+      current = balanceMinorUnits;
+      if (current <= amountMinorUnits) {
+        return false;
+      }
+    } while (!BALANCE.compareAndSet(this, current, current - amountMinorUnits));
+    return true;
+  }
+
+  @Override
+  public void deposit(BigDecimal amount) {
+    deposit(toMinorUnits(amount, scale));
+  }
+
+  @Override
+  public boolean withdraw(BigDecimal amount) {
+    return withdraw(toMinorUnits(amount, scale));
+  }
+
+  /**
+   * Converts a decimal amount to minor units of the given scale, rejecting amounts with more
+   * fraction digits than the currency allows or that do not fit in a {@code long}.
+   */
+  public static long toMinorUnits(BigDecimal amount, int scale) {
+    try {
+      return amount.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    } catch (ArithmeticException e) {
+      throw new IllegalArgumentException("Amount " + amount + " cannot be represented with scale " + scale + ".");
+    }
+  }
+}
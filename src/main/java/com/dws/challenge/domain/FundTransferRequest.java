@@ -1,10 +1,12 @@
 package com.dws.challenge.domain;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import lombok.Data;
 
 import java.math.BigDecimal;
@@ -24,12 +26,25 @@ public class FundTransferRequest {
     @Min(value = 1, message = "Amount must be greater than zero")
     private final BigDecimal amount;
 
+    /**
+     * Currency of the amount, or null for the currency of the source account.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Pattern(regexp = "[A-Z]{3}", message = "Currency must be a three letter ISO code.")
+    private final String currency;
+
+    public FundTransferRequest(String accountFrom, String accountTo, BigDecimal amount) {
+        this(accountFrom, accountTo, amount, null);
+    }
+
     @JsonCreator
     public FundTransferRequest(@JsonProperty("accountFrom") String accountFrom,
                                @JsonProperty("accountTo") String accountTo,
-                               @JsonProperty("amount") BigDecimal amount) {
+                               @JsonProperty("amount") BigDecimal amount,
+                               @JsonProperty("currency") String currency) {
         this.accountFrom = accountFrom;
         this.accountTo = accountTo;
         this.amount = amount;
+        this.currency = currency;
     }
 }
@@ -0,0 +1,5 @@
+package com.dws.challenge.domain;
+
+public enum ImportErrorReason {
+    INVALID, DUPLICATE
+}
@@ -0,0 +1,15 @@
+package com.dws.challenge.domain;
+
+import lombok.Data;
+
+@Data
+public class ImportLineError {
+
+    private final long line;
+
+    private final String accountId;
+
+    private final ImportErrorReason reason;
+
+    private final String message;
+}
@@ -0,0 +1,37 @@
+package com.dws.challenge.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Pending scheduled transfer as returned by {@code /v1/transfer/scheduled}.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ScheduledTransfer {
+
+    private final long id;
+
+    private final String accountFrom;
+
+    private final String accountTo;
+
+    private final BigDecimal amount;
+
+    private final String currency;
+
+    private final Instant nextExecution;
+
+    /**
+     * Null for a one-off transfer.
+     */
+    private final Long intervalSeconds;
+
+    /**
+     * Runs left including the next one, null for a recurring transfer that runs until cancelled.
+     */
+    private final Integer remainingExecutions;
+}
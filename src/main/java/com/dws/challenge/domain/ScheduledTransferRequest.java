@@ -0,0 +1,61 @@
+package com.dws.challenge.domain;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Transfer to run at {@code executeAt}, and then every {@code intervalSeconds} if set, either until cancelled
+ * or for {@code executions} runs in total.
+ */
+@Data
+public class ScheduledTransferRequest {
+
+    @NotNull
+    @NotEmpty
+    private final String accountFrom;
+
+    @NotNull
+    @NotEmpty
+    private final String accountTo;
+
+    @NotNull
+    @Min(value = 1, message = "Amount must be greater than zero")
+    private final BigDecimal amount;
+
+    @Pattern(regexp = "[A-Z]{3}", message = "Currency must be a three letter ISO code.")
+    private final String currency;
+
+    @NotNull
+    private final Instant executeAt;
+
+    @Min(value = 1, message = "Interval must be at least one second.")
+    private final Long intervalSeconds;
+
+    @Min(value = 1, message = "Executions must be at least one.")
+    private final Integer executions;
+
+    @JsonCreator
+    public ScheduledTransferRequest(@JsonProperty("accountFrom") String accountFrom,
+                                    @JsonProperty("accountTo") String accountTo,
+                                    @JsonProperty("amount") BigDecimal amount,
+                                    @JsonProperty("currency") String currency,
+                                    @JsonProperty("executeAt") Instant executeAt,
+                                    @JsonProperty("intervalSeconds") Long intervalSeconds,
+                                    @JsonProperty("executions") Integer executions) {
+        this.accountFrom = accountFrom;
+        this.accountTo = accountTo;
+        this.amount = amount;
+        this.currency = currency;
+        this.executeAt = executeAt;
+        this.intervalSeconds = intervalSeconds;
+        this.executions = executions;
+    }
+}
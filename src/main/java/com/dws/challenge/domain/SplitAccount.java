@@ -0,0 +1,153 @@
+package com.dws.challenge.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Account whose balance is split over several cells, for hot accounts that sit on most transfers.
+ * Like {@link java.util.concurrent.atomic.LongAdder}, a credit lands on the calling thread's cell, so
+ * concurrent credits rarely contend. A debit is taken from the thread's cell when that cell alone covers
+ * it. Otherwise the cells are consolidated under a lock and the debit is taken from the total.
+ * {@link #getBalance()} sums the cells without the lock: consolidations bump a version before and after
+ * moving the cells, and a sum that saw the version change is taken again, so it never observes a consolidation
+ * halfway and readers never queue behind debits.
+ */
+public class SplitAccount extends Account {
+
+  /**
+   * Cells sit this many slots apart so two cells never share a cache line.
+   */
+  private static final int STRIDE = 16;
+
+  /**
+   * Optimistic sums attempted before {@link #getBalance()} waits for the lock.
+   */
+  private static final int OPTIMISTIC_READS = 4;
+
+  private final AtomicReferenceArray<BigDecimal> cells;
+
+  private final int mask;
+
+  private final ReentrantLock consolidation = new ReentrantLock();
+
+  // Odd while the cells are being consolidated, only changed under the consolidation lock.
+  private volatile long version;
+
+  public SplitAccount(String accountId, BigDecimal balance, int cellCount) {
+    this(accountId, balance, null, cellCount);
+  }
+
+  public SplitAccount(String accountId, BigDecimal balance, String currency, int cellCount) {
+    super(accountId, BigDecimal.ZERO, currency);
+    if (cellCount <= 0) {
+      throw new IllegalArgumentException("Cell count must be greater than zero.");
+    }
+    int size = cellCount == 1 ? 1 : Integer.highestOneBit(cellCount - 1) << 1;
+    this.cells = new AtomicReferenceArray<>(size * STRIDE);
+    this.mask = size - 1;
+    for (int i = 0; i < size; i++) {
+      cells.set(i * STRIDE, BigDecimal.ZERO);
+    }
+    cells.set(0, balance);
+  }
+
+  @JsonIgnore
+  public int getCellCount() {
+    return mask + 1;
+  }
+
+  @Override
+  public BigDecimal getBalance() {
+    for (int attempt = 0; attempt < OPTIMISTIC_READS; attempt++) {
+      long before = version;
+      if ((before & 1) == 0) {
+        BigDecimal total = sum();
+        if (version == before) {
+          return total;
+        }
+      }
+      Thread.onSpinWait();
+    }
+    // Consolidations keep overlapping the sum, wait for the current one instead of spinning.
+    consolidation.lock();
+    try {
+      return sum();
+    } finally {
+      consolidation.unlock();
+    }
+  }
+
+  @Override
+  public void setBalance(BigDecimal balance) {
+    consolidation.lock();
+    version++;
+    try {
+      for (int i = 1; i <= mask; i++) {
+        cells.set(i * STRIDE, BigDecimal.ZERO);
+      }
+      cells.set(0, balance);
+    } finally {
+      version++;
+      consolidation.unlock();
+    }
+  }
+
+  @Override
+  public void deposit(BigDecimal amount) {
+    deposit(amount, localCell());
+  }
+
+  @Override
+  public boolean withdraw(BigDecimal amount) {
+    int cell = localCell();
+    BigDecimal current = cells.get(cell);
+    while (current.compareTo(amount) > 0) {
+      if (cells.compareAndSet(cell, current, current.subtract(amount))) {
+        return true;
+      }
+      current = cells.get(cell);
+    }
+    return withdrawConsolidated(amount, cell);
+  }
+
+  private boolean withdrawConsolidated(BigDecimal amount, int cell) {
+    consolidation.lock();
+    version++;
+    try {
+      // Drain every cell into the total; credits arriving meanwhile simply land in the drained cells.
+      BigDecimal total = BigDecimal.ZERO;
+      for (int i = 0; i <= mask; i++) {
+        total = total.add(cells.getAndSet(i * STRIDE, BigDecimal.ZERO));
+      }
+      boolean covered = total.compareTo(amount) > 0;
+      deposit(covered ? total.subtract(amount) : total, cell);
+      return covered;
+    } finally {
+      version++;
+      consolidation.unlock();
+    }
+  }
+
+  private BigDecimal sum() {
+    BigDecimal total = BigDecimal.ZERO;
+    for (int i = 0; i <= mask; i++) {
+      total = total.add(cells.get(i * STRIDE));
+    }
+    return total;
+  }
+
+  private void deposit(BigDecimal amount, int cell) {
+    BigDecimal current;
+    do {
+      current = cells.get(cell);
+    } while (!cells.compareAndSet(cell, current, current.add(amount)));
+  }
+
+  private int localCell() {
+    long id = Thread.currentThread().threadId();
+    return (int) ((id * 0x9E3779B97F4A7C15L) >>> 40 & mask) * STRIDE;
+  }
+}
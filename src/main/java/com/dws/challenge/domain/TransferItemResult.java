@@ -0,0 +1,13 @@
+package com.dws.challenge.domain;
+
+import lombok.Data;
+
+@Data
+public class TransferItemResult {
+
+    private final int index;
+
+    private final TransferStatus status;
+
+    private final String message;
+}
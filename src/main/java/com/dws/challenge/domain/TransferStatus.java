@@ -0,0 +1,10 @@
+package com.dws.challenge.domain;
+
+public enum TransferStatus {
+    SUCCESS,
+    INVALID_REQUEST,
+    ACCOUNT_NOT_FOUND,
+    INSUFFICIENT_BALANCE,
+    VELOCITY_LIMIT_EXCEEDED,
+    NOT_EXECUTED
+}
@@ -0,0 +1,30 @@
+package com.dws.challenge.domain;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * Most an account may send within the rolling velocity window; a null field means no limit.
+ */
+@Data
+public class VelocityLimit {
+
+    public static final VelocityLimit UNLIMITED = new VelocityLimit(null, null);
+
+    @Min(value = 0, message = "Maximum amount must not be negative.")
+    private final BigDecimal maxAmount;
+
+    @Min(value = 0, message = "Maximum count must not be negative.")
+    private final Integer maxCount;
+
+    @JsonCreator
+    public VelocityLimit(@JsonProperty("maxAmount") BigDecimal maxAmount,
+                         @JsonProperty("maxCount") Integer maxCount) {
+        this.maxAmount = maxAmount;
+        this.maxCount = maxCount;
+    }
+}
@@ -0,0 +1,19 @@
+package com.dws.challenge.exception;
+
+/**
+ * Expected outcome of a request, answered by {@link GlobalExceptionHandler} and never logged. In lean mode
+ * ({@code transfer.lean.enabled}) these exceptions carry no stack trace: filling it in dominated the cost of
+ * a rejected transfer, and nobody reads it.
+ */
+public abstract class BusinessException extends RuntimeException {
+
+  private static volatile boolean stackTraces = true;
+
+  protected BusinessException(String message) {
+    super(message, null, false, stackTraces);
+  }
+
+  public static void setStackTraces(boolean enabled) {
+    stackTraces = enabled;
+  }
+}
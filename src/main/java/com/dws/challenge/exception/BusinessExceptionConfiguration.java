@@ -0,0 +1,30 @@
+package com.dws.challenge.exception;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Applies {@code transfer.lean.enabled} to {@link BusinessException} for both web stacks. The setting is
+ * process-wide, so it is put back to the default when the context closes rather than left for the next one.
+ */
+@Configuration
+public class BusinessExceptionConfiguration {
+
+    private final boolean lean;
+
+    public BusinessExceptionConfiguration(@Value("${transfer.lean.enabled:false}") boolean lean) {
+        this.lean = lean;
+    }
+
+    @PostConstruct
+    void applyStackTraces() {
+        BusinessException.setStackTraces(!lean);
+    }
+
+    @PreDestroy
+    void restoreStackTraces() {
+        BusinessException.setStackTraces(true);
+    }
+}
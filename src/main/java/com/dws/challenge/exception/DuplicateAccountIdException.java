@@ -1,6 +1,9 @@
 package com.dws.challenge.exception;
 
-public class DuplicateAccountIdException extends RuntimeException {
+/**
+ * Account creation with an id that is already taken.
+ */
+public class DuplicateAccountIdException extends BusinessException {
 
   public DuplicateAccountIdException(String message) {
     super(message);
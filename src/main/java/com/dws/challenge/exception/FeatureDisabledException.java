@@ -0,0 +1,11 @@
+package com.dws.challenge.exception;
+
+/**
+ * Request for a feature that is switched off or not offered by the configured transfer engine.
+ */
+public class FeatureDisabledException extends RuntimeException {
+
+  public FeatureDisabledException(String message) {
+    super(message);
+  }
+}
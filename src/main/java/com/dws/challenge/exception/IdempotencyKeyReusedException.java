@@ -0,0 +1,11 @@
+package com.dws.challenge.exception;
+
+/**
+ * Idempotency key sent again with a different transfer request.
+ */
+public class IdempotencyKeyReusedException extends BusinessException {
+
+  public IdempotencyKeyReusedException(String message) {
+    super(message);
+  }
+}
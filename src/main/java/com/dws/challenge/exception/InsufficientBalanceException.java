@@ -1,6 +1,9 @@
 package com.dws.challenge.exception;
 
-public class InsufficientBalanceException extends RuntimeException {
+/**
+ * Transfer rejected because the source account cannot cover the amount.
+ */
+public class InsufficientBalanceException extends BusinessException {
 
   public InsufficientBalanceException(String message) {
     super(message);
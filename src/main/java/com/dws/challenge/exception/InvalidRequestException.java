@@ -0,0 +1,19 @@
+package com.dws.challenge.exception;
+
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * Request that failed field validation, answered like a failed {@code @Valid} binding.
+ */
+@Getter
+public class InvalidRequestException extends BusinessException {
+
+  private final Map<String, String> fieldErrors;
+
+  public InvalidRequestException(Map<String, String> fieldErrors) {
+    super("Invalid request " + fieldErrors);
+    this.fieldErrors = fieldErrors;
+  }
+}
@@ -0,0 +1,11 @@
+package com.dws.challenge.exception;
+
+/**
+ * Write sent to a read replica.
+ */
+public class ReadOnlyReplicaException extends BusinessException {
+
+  public ReadOnlyReplicaException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,11 @@
+package com.dws.challenge.exception;
+
+/**
+ * Read from a replica that lags the primary by more than the configured staleness bound.
+ */
+public class StaleReplicaException extends BusinessException {
+
+  public StaleReplicaException(String message) {
+    super(message);
+  }
+}
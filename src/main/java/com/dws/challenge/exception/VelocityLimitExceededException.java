@@ -0,0 +1,11 @@
+package com.dws.challenge.exception;
+
+/**
+ * Transfer rejected because it would exceed the velocity limits of the source account.
+ */
+public class VelocityLimitExceededException extends BusinessException {
+
+  public VelocityLimitExceededException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,141 @@
+package com.dws.challenge.fx;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the current {@link FxRateTable} in a volatile field. Readers take the reference and keep using that
+ * table for the whole transfer; an update builds a complete new table and publishes it with one write, so a
+ * transfer never sees half an update (copy-on-write).
+ * <p>
+ * Rates come from {@code fx.rates} ({@code CODE=rate} pairs) and, if {@code fx.rates-file} is set, from that
+ * properties file, which is reloaded whenever it changes. {@link #update} replaces the rates at runtime and
+ * stands in for a market data feed.
+ */
+@Component
+@Slf4j
+public class FxRateProvider implements AutoCloseable {
+
+    public static final FxRateProvider NONE = new FxRateProvider("EUR", List.of(), "", 0);
+
+    private final String baseCurrency;
+
+    private final Path ratesFile;
+
+    private final ScheduledExecutorService reloader;
+
+    private volatile FxRateTable table;
+
+    private volatile FileTime loadedModified;
+
+    @Autowired
+    public FxRateProvider(@Value("${fx.base-currency:EUR}") String baseCurrency,
+                          @Value("${fx.rates:}") List<String> rates,
+                          @Value("${fx.rates-file:}") String ratesFile,
+                          @Value("${fx.refresh-seconds:30}") long refreshSeconds) {
+        this.baseCurrency = baseCurrency;
+        this.ratesFile = ratesFile.isEmpty() ? null : Path.of(ratesFile);
+        this.table = FxRateTable.of(baseCurrency, parse(rates));
+        if (this.ratesFile == null) {
+            this.reloader = null;
+            return;
+        }
+        try {
+            reload();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load FX rates from " + ratesFile, e);
+        }
+        if (refreshSeconds > 0) {
+            this.reloader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "fx-rate-reloader");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reloader.scheduleWithFixedDelay(this::reloadQuietly, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+        } else {
+            this.reloader = null;
+        }
+    }
+
+    /**
+     * Table to use for one whole transfer, read without locking.
+     */
+    public FxRateTable current() {
+        return table;
+    }
+
+    /**
+     * Method to replace every rate at once
+     *
+     * @param rates units of each currency bought by one unit of the base currency
+     * @return the table now in use
+     * @throws IllegalArgumentException if a rate or currency code is invalid, in which case the rates in use stay
+     */
+    public FxRateTable update(Map<String, BigDecimal> rates) {
+        FxRateTable next = FxRateTable.of(baseCurrency, rates);
+        table = next;
+        log.info("Swapped in {} FX rate(s) against {}", next.getRates().size(), baseCurrency);
+        return next;
+    }
+
+    @Override
+    public void close() {
+        if (reloader != null) {
+            reloader.shutdownNow();
+        }
+    }
+
+    private void reloadQuietly() {
+        try {
+            FileTime modified = Files.getLastModifiedTime(ratesFile);
+            if (!modified.equals(loadedModified)) {
+                reload();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Keeping the current FX rates, failed to reload {}", ratesFile, e);
+        }
+    }
+
+    private void reload() throws IOException {
+        FileTime modified = Files.getLastModifiedTime(ratesFile);
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(ratesFile)) {
+            properties.load(reader);
+        }
+        Map<String, BigDecimal> rates = new HashMap<>();
+        for (String currency : properties.stringPropertyNames()) {
+            rates.put(currency.trim(), new BigDecimal(properties.getProperty(currency).trim()));
+        }
+        update(rates);
+        loadedModified = modified;
+    }
+
+    private static Map<String, BigDecimal> parse(List<String> pairs) {
+        Map<String, BigDecimal> rates = new HashMap<>();
+        for (String pair : pairs) {
+            int separator = pair.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("FX rate must be written as CODE=rate: " + pair);
+            }
+            rates.put(pair.substring(0, separator).trim(), new BigDecimal(pair.substring(separator + 1).trim()));
+        }
+        return rates;
+    }
+}
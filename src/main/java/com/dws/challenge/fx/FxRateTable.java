@@ -0,0 +1,144 @@
+package com.dws.challenge.fx;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable set of exchange rates against one base currency. Every cross rate and the minor unit scale of
+ * every currency are computed when the table is built, so a lookup on the transfer path is two hash probes
+ * and an array read, with no locking and no allocation. Tables are never changed; {@link FxRateProvider}
+ * swaps in a new one as a whole.
+ */
+public final class FxRateTable {
+
+    private static final MathContext CROSS_RATE_PRECISION = MathContext.DECIMAL128;
+
+    private static final int DEFAULT_SCALE = 2;
+
+    private final String baseCurrency;
+
+    private final Map<String, BigDecimal> rates;
+
+    private final Map<String, Integer> indexes;
+
+    private final BigDecimal[] crossRates;
+
+    private final int[] scales;
+
+    /**
+     * @param baseCurrency currency the rates are quoted against
+     * @param rates        units of each currency bought by one unit of the base currency
+     */
+    public static FxRateTable of(String baseCurrency, Map<String, BigDecimal> rates) {
+        return new FxRateTable(baseCurrency, rates);
+    }
+
+    private FxRateTable(String baseCurrency, Map<String, BigDecimal> rates) {
+        checkCode(baseCurrency);
+        Map<String, BigDecimal> all = new TreeMap<>(rates);
+        BigDecimal baseRate = all.put(baseCurrency, BigDecimal.ONE);
+        if (baseRate != null && baseRate.compareTo(BigDecimal.ONE) != 0) {
+            throw new IllegalArgumentException("Rate of the base currency " + baseCurrency + " must be 1.");
+        }
+        int size = all.size();
+        String[] codes = all.keySet().toArray(new String[0]);
+        BigDecimal[] perBase = new BigDecimal[size];
+        Map<String, Integer> indexes = new HashMap<>();
+        this.scales = new int[size];
+        for (int i = 0; i < size; i++) {
+            checkCode(codes[i]);
+            perBase[i] = all.get(codes[i]);
+            if (perBase[i] == null || perBase[i].signum() <= 0) {
+                throw new IllegalArgumentException("Rate of " + codes[i] + " must be greater than zero.");
+            }
+            indexes.put(codes[i], i);
+            scales[i] = scaleOf(codes[i]);
+        }
+        this.crossRates = new BigDecimal[size * size];
+        for (int from = 0; from < size; from++) {
+            for (int to = 0; to < size; to++) {
+                crossRates[from * size + to] = from == to
+                        ? BigDecimal.ONE
+                        : perBase[to].divide(perBase[from], CROSS_RATE_PRECISION);
+            }
+        }
+        this.baseCurrency = baseCurrency;
+        this.rates = Collections.unmodifiableMap(all);
+        this.indexes = indexes;
+    }
+
+    public String getBaseCurrency() {
+        return baseCurrency;
+    }
+
+    public Map<String, BigDecimal> getRates() {
+        return rates;
+    }
+
+    public boolean supports(String currency) {
+        return currency == null || indexes.containsKey(currency);
+    }
+
+    /**
+     * Method to tell whether two account currencies need no conversion, a null currency being the base currency
+     */
+    public boolean isSameCurrency(String from, String to) {
+        return normalize(from).equals(normalize(to));
+    }
+
+    /**
+     * @return units of {@code to} bought by one unit of {@code from}, or null if either currency is unknown
+     */
+    public BigDecimal rate(String from, String to) {
+        Integer fromIndex = indexes.get(normalize(from));
+        Integer toIndex = indexes.get(normalize(to));
+        if (fromIndex == null || toIndex == null) {
+            return null;
+        }
+        return crossRates[fromIndex * scales.length + toIndex];
+    }
+
+    /**
+     * Method to convert an amount, rounding half-even to the minor unit of the target currency
+     *
+     * @return the amount itself when both currencies are the same
+     * @throws IllegalArgumentException if there is no rate between the currencies
+     */
+    public BigDecimal convert(BigDecimal amount, String from, String to) {
+        if (isSameCurrency(from, to)) {
+            return amount;
+        }
+        Integer fromIndex = indexes.get(normalize(from));
+        Integer toIndex = indexes.get(normalize(to));
+        if (fromIndex == null || toIndex == null) {
+            throw new IllegalArgumentException("No exchange rate from " + normalize(from) + " to " + normalize(to) + ".");
+        }
+        return amount.multiply(crossRates[fromIndex * scales.length + toIndex])
+                .setScale(scales[toIndex], RoundingMode.HALF_EVEN);
+    }
+
+    private String normalize(String currency) {
+        return currency == null ? baseCurrency : currency;
+    }
+
+    private static void checkCode(String currency) {
+        if (currency == null || currency.length() != 3 || !currency.chars().allMatch(c -> c >= 'A' && c <= 'Z')) {
+            throw new IllegalArgumentException("Currency must be a three letter ISO code: " + currency);
+        }
+    }
+
+    private static int scaleOf(String currency) {
+        try {
+            int digits = Currency.getInstance(currency).getDefaultFractionDigits();
+            return digits >= 0 ? digits : DEFAULT_SCALE;
+        } catch (IllegalArgumentException e) {
+            return DEFAULT_SCALE;
+        }
+    }
+}
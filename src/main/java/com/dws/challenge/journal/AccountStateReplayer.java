@@ -0,0 +1,76 @@
+package com.dws.challenge.journal;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.service.AccountFactory;
+
+import java.math.BigDecimal;
+
+/**
+ * Rebuilds account balances in a repository from journal records.
+ * Every record is applied as a delta, so the result does not depend on the order in which concurrent
+ * transfers reached the journal, and a transfer logged before the creation of one of its accounts
+ * simply starts that account from zero. Such an account is recreated in the base currency, since its
+ * currency is only known from the creation record. Accounts are created through the {@link AccountFactory},
+ * so hot accounts come back split and fixed-point accounts keep their representation.
+ */
+public class AccountStateReplayer implements JournalVisitor {
+
+    private final AccountsRepository accountsRepository;
+
+    private final AccountFactory accountFactory;
+
+    private long lastSequence;
+
+    private long records;
+
+    public AccountStateReplayer(AccountsRepository accountsRepository, AccountFactory accountFactory) {
+        this.accountsRepository = accountsRepository;
+        this.accountFactory = accountFactory;
+    }
+
+    @Override
+    public void onAccountCreated(long sequence, String accountId, String currency, BigDecimal openingBalance) {
+        // Created with its opening balance, so a fixed-point account gets the scale it was first created with.
+        if (accountsRepository.getAccount(accountId) == null) {
+            accountsRepository.createAccount(accountFactory.prepare(new Account(accountId, openingBalance, currency)));
+        } else {
+            deposit(accountId, currency, openingBalance);
+        }
+        applied(sequence);
+    }
+
+    @Override
+    public void onTransfer(long sequence, String fromAccountId, String toAccountId, BigDecimal debited,
+                           BigDecimal credited) {
+        deposit(fromAccountId, null, debited.negate());
+        deposit(toAccountId, null, credited);
+        applied(sequence);
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    private void applied(long sequence) {
+        lastSequence = Math.max(lastSequence, sequence);
+        records++;
+    }
+
+    private void deposit(String accountId, String currency, BigDecimal amount) {
+        Account account = accountsRepository.acquireAccount(accountId);
+        if (account == null) {
+            accountsRepository.createAccount(accountFactory.prepare(new Account(accountId, BigDecimal.ZERO, currency)));
+            account = accountsRepository.acquireAccount(accountId);
+        }
+        try {
+            account.deposit(amount);
+        } finally {
+            accountsRepository.releaseAccount(account);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.dws.challenge.journal;
+
+/**
+ * Latency/durability trade-off of the {@link TransactionJournal}.
+ */
+public enum FsyncPolicy {
+
+    /**
+     * Callers wait until their record has been forced to disk. Records arriving within the group commit
+     * window share a single force, so a transfer is acknowledged only once it is durable.
+     */
+    GROUP,
+
+    /**
+     * Callers return once their record is in the mapped log. The log is forced every group commit window,
+     * so a crash may lose at most that window of acknowledged transfers.
+     */
+    INTERVAL,
+
+    /**
+     * The log is never forced explicitly; the operating system writes dirty pages back on its own schedule.
+     */
+    NONE
+}
@@ -0,0 +1,40 @@
+package com.dws.challenge.journal;
+
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.service.AccountFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+@ConditionalOnProperty(name = "journal.enabled", havingValue = "true")
+public class JournalConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public TransactionJournal transactionJournal(@Value("${journal.directory:data/journal}") String directory,
+                                                 @Value("${journal.segment-size:67108864}") int segmentSize,
+                                                 @Value("${journal.fsync:GROUP}") FsyncPolicy fsyncPolicy,
+                                                 @Value("${journal.group-commit-window-micros:200}") long groupCommitWindowMicros)
+            throws IOException {
+        return new TransactionJournal(Path.of(directory), segmentSize, fsyncPolicy, groupCommitWindowMicros);
+    }
+
+    /**
+     * Recovers the repository from the newest snapshot plus the journal tail, then starts periodic snapshots.
+     */
+    @Bean(destroyMethod = "close")
+    public SnapshotManager snapshotManager(TransactionJournal transactionJournal, AccountsRepository accountsRepository,
+                                           AccountFactory accountFactory,
+                                           @Value("${journal.snapshot.interval-seconds:300}") long intervalSeconds)
+            throws IOException {
+        SnapshotManager snapshotManager = new SnapshotManager(transactionJournal,
+                new SnapshotStore(transactionJournal.getDirectory().resolve("snapshots")));
+        snapshotManager.recover(accountsRepository, accountFactory);
+        snapshotManager.start(intervalSeconds);
+        return snapshotManager;
+    }
+}
@@ -0,0 +1,20 @@
+package com.dws.challenge.journal;
+
+import java.math.BigDecimal;
+
+/**
+ * Receives the records of the journal while it is being read back.
+ */
+public interface JournalVisitor {
+
+    /**
+     * @param currency currency of the account, or null for the base currency
+     */
+    void onAccountCreated(long sequence, String accountId, String currency, BigDecimal openingBalance);
+
+    /**
+     * @param debited  amount taken from the source account
+     * @param credited amount given to the destination account, equal to {@code debited} within one currency
+     */
+    void onTransfer(long sequence, String fromAccountId, String toAccountId, BigDecimal debited, BigDecimal credited);
+}
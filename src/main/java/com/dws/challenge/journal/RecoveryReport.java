@@ -0,0 +1,12 @@
+package com.dws.challenge.journal;
+
+/**
+ * Timings of the last startup recovery: the snapshot load followed by the replay of the journal tail.
+ */
+public record RecoveryReport(long snapshotSequence, long snapshotAccounts, long snapshotLoadMillis,
+                             long replayedRecords, long replayMillis) {
+
+    public long totalMillis() {
+        return snapshotLoadMillis + replayMillis;
+    }
+}
@@ -0,0 +1,205 @@
+package com.dws.challenge.journal;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.service.AccountFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Takes periodic snapshots of account balances and recovers the repository from the newest one.
+ * <p>
+ * A snapshot is built from the journal rather than from the live repository. The current segment is
+ * sealed, and the sealed records newer than the previous snapshot are folded into it as balance deltas.
+ * Transfers are never paused, yet the snapshot is an exact state as of the sealed sequence. Only the
+ * accounts touched since the previous snapshot are held in memory while the new one is written.
+ * <p>
+ * The two newest snapshots are kept, together with the segments needed to replay from the older one,
+ * so recovery can fall back if the newest snapshot turns out to be damaged.
+ */
+@Slf4j
+public class SnapshotManager implements AutoCloseable {
+
+    private static final int RETAINED_SNAPSHOTS = 2;
+
+    private final TransactionJournal journal;
+
+    private final SnapshotStore store;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+
+    private volatile RecoveryReport recoveryReport;
+
+    private volatile long lastSnapshotSequence;
+
+    private volatile long lastSnapshotMillis;
+
+    public SnapshotManager(TransactionJournal journal, SnapshotStore store) {
+        this.journal = journal;
+        this.store = store;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-snapshotter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Loads the newest readable snapshot into the empty repository and replays the journal records after it.
+     * Accounts are stored as {@code accountFactory} prepares them, as they were when first created.
+     */
+    public RecoveryReport recover(AccountsRepository accountsRepository, AccountFactory accountFactory)
+            throws IOException {
+        long started = System.nanoTime();
+        long snapshotSequence = 0;
+        long snapshotAccounts = 0;
+        for (Path snapshot : store.snapshots()) {
+            try {
+                snapshotAccounts = store.read(snapshot, (accountId, currency, balance) ->
+                        accountsRepository.createAccount(accountFactory.prepare(new Account(accountId, balance, currency))));
+                snapshotSequence = SnapshotStore.sequenceOf(snapshot);
+                break;
+            } catch (IOException e) {
+                log.warn("Skipping unreadable snapshot {}", snapshot, e);
+                accountsRepository.clearAccounts();
+                snapshotAccounts = 0;
+            }
+        }
+        long loaded = System.nanoTime();
+
+        AccountStateReplayer replayer = new AccountStateReplayer(accountsRepository, accountFactory);
+        journal.replay(snapshotSequence, replayer);
+        long replayed = System.nanoTime();
+
+        recoveryReport = new RecoveryReport(snapshotSequence, snapshotAccounts,
+                TimeUnit.NANOSECONDS.toMillis(loaded - started), replayer.getRecords(),
+                TimeUnit.NANOSECONDS.toMillis(replayed - loaded));
+        lastSnapshotSequence = snapshotSequence;
+        log.info("Recovered {} account(s) from snapshot at sequence {} in {} ms, replayed {} journal record(s) in {} ms",
+                snapshotAccounts, snapshotSequence, recoveryReport.snapshotLoadMillis(), recoveryReport.replayedRecords(),
+                recoveryReport.replayMillis());
+        return recoveryReport;
+    }
+
+    public void start(long intervalSeconds) {
+        if (intervalSeconds > 0) {
+            scheduler.scheduleWithFixedDelay(this::snapshotQuietly, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Seals the journal and folds every record since the previous snapshot into a new one.
+     *
+     * @return the new snapshot, or empty if nothing was appended since the previous one
+     */
+    public Optional<Path> snapshot() throws IOException {
+        snapshotLock.lock();
+        try {
+            return writeSnapshot();
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    private Optional<Path> writeSnapshot() throws IOException {
+        long started = System.nanoTime();
+        long sealedSequence = journal.seal();
+        List<Path> snapshots = store.snapshots();
+        Path base = snapshots.isEmpty() ? null : snapshots.get(0);
+        long baseSequence = base == null ? 0 : SnapshotStore.sequenceOf(base);
+        if (sealedSequence <= baseSequence) {
+            return Optional.empty();
+        }
+
+        Map<String, BigDecimal> deltas = new HashMap<>();
+        Map<String, String> currencies = new HashMap<>();
+        JournalVisitor collector = new JournalVisitor() {
+            @Override
+            public void onAccountCreated(long sequence, String accountId, String currency, BigDecimal openingBalance) {
+                if (sequence <= sealedSequence) {
+                    deltas.merge(accountId, openingBalance, BigDecimal::add);
+                    if (currency != null) {
+                        currencies.put(accountId, currency);
+                    }
+                }
+            }
+
+            @Override
+            public void onTransfer(long sequence, String fromAccountId, String toAccountId, BigDecimal debited,
+                                   BigDecimal credited) {
+                if (sequence <= sealedSequence) {
+                    deltas.merge(fromAccountId, debited.negate(), BigDecimal::add);
+                    deltas.merge(toAccountId, credited, BigDecimal::add);
+                }
+            }
+        };
+        List<Path> segments = journal.segments();
+        for (Path segment : segments.subList(0, segments.size() - 1)) {
+            TransactionJournal.readSegment(segment, baseSequence, collector);
+        }
+
+        Path snapshot = store.write(sealedSequence, base, deltas, currencies);
+        lastSnapshotSequence = sealedSequence;
+        lastSnapshotMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        log.info("Wrote snapshot {} in {} ms", snapshot, lastSnapshotMillis);
+        prune();
+        return Optional.of(snapshot);
+    }
+
+    public RecoveryReport getRecoveryReport() {
+        return recoveryReport;
+    }
+
+    public long getLastSnapshotSequence() {
+        return lastSnapshotSequence;
+    }
+
+    public long getLastSnapshotMillis() {
+        return lastSnapshotMillis;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to write account snapshot", e);
+        }
+    }
+
+    private void prune() throws IOException {
+        List<Path> snapshots = store.snapshots();
+        for (Path old : snapshots.subList(Math.min(RETAINED_SNAPSHOTS, snapshots.size()), snapshots.size())) {
+            Files.deleteIfExists(old);
+        }
+        if (snapshots.size() < RETAINED_SNAPSHOTS) {
+            return;
+        }
+        // Segments entirely covered by the oldest retained snapshot are no longer needed for recovery.
+        long covered = SnapshotStore.sequenceOf(snapshots.get(RETAINED_SNAPSHOTS - 1));
+        List<Path> segments = journal.segments();
+        for (int i = 0; i < segments.size() - 1; i++) {
+            if (TransactionJournal.firstSequence(segments.get(i + 1)) - 1 <= covered) {
+                Files.deleteIfExists(segments.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.dws.challenge.journal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary snapshots of every account balance up to a journal sequence.
+ * <p>
+ * A snapshot file is {@code [int magic][int version][long sequence][long count]}, followed by {@code count}
+ * entries of {@code [utf accountId][utf currency][int scale][byte length][unscaled bytes]} and a trailing
+ * CRC32C of the entries. The currency is empty for the base currency; version 1 files have no currency.
+ * Files are written under a temporary name and atomically renamed once complete.
+ */
+public class SnapshotStore {
+
+    private static final int MAGIC = 0x534E4150;
+
+    private static final int VERSION = 2;
+
+    private static final int UNTAGGED_VERSION = 1;
+
+    private static final int COUNT_OFFSET = 2 * Integer.BYTES + Long.BYTES;
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final Path directory;
+
+    public SnapshotStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Snapshot files, newest first.
+     */
+    public List<Path> snapshots() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+            }).sorted(Comparator.reverseOrder()).toList();
+        }
+    }
+
+    public static long sequenceOf(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()));
+    }
+
+    /**
+     * Streams the entries of a snapshot to the consumer.
+     *
+     * @return number of entries read
+     * @throws IOException if the file is truncated or fails its checksum, possibly after some entries were consumed
+     */
+    public long read(Path snapshot, EntryConsumer consumer) throws IOException {
+        try (InputStream raw = new BufferedInputStream(Files.newInputStream(snapshot), BUFFER_SIZE)) {
+            DataInputStream header = new DataInputStream(raw);
+            int version = header.readInt() == MAGIC ? header.readInt() : -1;
+            if (version != VERSION && version != UNTAGGED_VERSION) {
+                throw new IOException("Not a version " + VERSION + " snapshot: " + snapshot);
+            }
+            header.readLong();
+            long count = header.readLong();
+            CRC32C crc = new CRC32C();
+            DataInputStream entries = new DataInputStream(new CheckedInputStream(raw, crc));
+            for (long i = 0; i < count; i++) {
+                String accountId = entries.readUTF();
+                String currency = version == VERSION ? entries.readUTF() : "";
+                int scale = entries.readInt();
+                byte[] unscaled = new byte[entries.readUnsignedByte()];
+                entries.readFully(unscaled);
+                consumer.accept(accountId, currency.isEmpty() ? null : currency,
+                        new BigDecimal(new BigInteger(unscaled), scale));
+            }
+            if (header.readInt() != (int) crc.getValue()) {
+                throw new IOException("Snapshot checksum mismatch: " + snapshot);
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Writes a new snapshot by streaming the entries of {@code base} with the balance deltas applied,
+     * followed by the accounts that only appear in the deltas. Consumes the delta map.
+     *
+     * @param base       previous snapshot, or null for the first one
+     * @param deltas     balance change per account since the base snapshot
+     * @param currencies currency of the accounts created since the base snapshot, base currency accounts omitted
+     * @return the new snapshot file
+     */
+    public Path write(long sequence, Path base, Map<String, BigDecimal> deltas, Map<String, String> currencies)
+            throws IOException {
+        Path target = directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, sequence, SNAPSHOT_SUFFIX));
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            BufferedOutputStream raw = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+            DataOutputStream header = new DataOutputStream(raw);
+            header.writeInt(MAGIC);
+            header.writeInt(VERSION);
+            header.writeLong(sequence);
+            header.writeLong(0L);
+            CRC32C crc = new CRC32C();
+            DataOutputStream entries = new DataOutputStream(new CheckedOutputStream(raw, crc));
+            long[] count = new long[1];
+            if (base != null) {
+                try {
+                    read(base, (accountId, currency, balance) -> {
+                        BigDecimal delta = deltas.remove(accountId);
+                        writeEntry(entries, accountId, currency, delta == null ? balance : balance.add(delta));
+                        count[0]++;
+                    });
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+            }
+            try {
+                for (Map.Entry<String, BigDecimal> entry : deltas.entrySet()) {
+                    writeEntry(entries, entry.getKey(), currencies.get(entry.getKey()), entry.getValue());
+                    count[0]++;
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            deltas.clear();
+            entries.flush();
+            header.writeInt((int) crc.getValue());
+            header.flush();
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, count[0]), COUNT_OFFSET);
+            channel.force(true);
+        }
+        return Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeEntry(DataOutputStream out, String accountId, String currency, BigDecimal balance) {
+        try {
+            byte[] unscaled = balance.unscaledValue().toByteArray();
+            if (unscaled.length > 0xFF) {
+                throw new IllegalArgumentException("Balance of " + accountId + " is too large for a snapshot entry.");
+            }
+            out.writeUTF(accountId);
+            out.writeUTF(currency == null ? "" : currency);
+            out.writeInt(balance.scale());
+            out.writeByte(unscaled.length);
+            out.write(unscaled);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Receives the entries of a snapshot while it is being read.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+
+        /**
+         * @param currency currency of the account, or null for the base currency
+         */
+        void accept(String accountId, String currency, BigDecimal balance);
+    }
+}
@@ -0,0 +1,513 @@
+package com.dws.challenge.journal;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.service.TransferListener;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of account creations and transfers, written to memory-mapped segment files.
+ * <p>
+ * A record is {@code [int length][byte type][long sequence][body][int crc32c]}, where the length counts
+ * the bytes after the length field. A zero length marks the end of the written part of a segment, and a
+ * record with a bad checksum is treated as a torn write at the tail. Segment files are named after the
+ * sequence of their first record. An account creation body ends with the account currency and a transfer
+ * body with the credited amount only when they are needed, so records of same-currency accounts keep
+ * their original layout.
+ * <p>
+ * Appends only copy the record into the mapped segment under a short lock; forcing the segment to disk is
+ * left to a flusher thread that batches every record written since its last force (group commit).
+ * <p>
+ * Room for a transfer record is reserved in {@link #beforeTransfer}, rolling over to a new segment there if
+ * needed, so a journal that cannot take the record refuses the transfer before any balance changes and the
+ * append after the transfer only copies bytes into space already set aside.
+ */
+@Slf4j
+public class TransactionJournal implements TransferListener, AutoCloseable {
+
+    static final byte ACCOUNT_CREATED = 1;
+
+    static final byte TRANSFER = 2;
+
+    private static final int HEADER_SIZE = Integer.BYTES + Byte.BYTES + Long.BYTES;
+
+    private static final int SEQUENCE_OFFSET = Integer.BYTES + Byte.BYTES;
+
+    private static final String SEGMENT_PREFIX = "journal-";
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final FsyncPolicy fsyncPolicy;
+
+    private final long groupCommitWindowNanos;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final Condition flushRequested = flushLock.newCondition();
+
+    private final Condition flushed = flushLock.newCondition();
+
+    private final AtomicLong forceCount = new AtomicLong();
+
+    private final Thread flusher;
+
+    // Guarded by appendLock.
+    private MappedByteBuffer segment;
+
+    // Bytes of the current segment set aside for transfers not yet appended, guarded by appendLock.
+    private long reservedBytes;
+
+    private volatile long lastSequence;
+
+    private volatile long durableSequence;
+
+    private volatile boolean running = true;
+
+    public TransactionJournal(Path directory, int segmentSize, FsyncPolicy fsyncPolicy, long groupCommitWindowMicros)
+            throws IOException {
+        // The INTERVAL flusher waits one window between forces, a window of zero would spin it on a core.
+        if (groupCommitWindowMicros < 0 || (fsyncPolicy == FsyncPolicy.INTERVAL && groupCommitWindowMicros == 0)) {
+            throw new IllegalArgumentException("Group commit window of " + groupCommitWindowMicros
+                    + " us is not valid for " + fsyncPolicy + " fsync, use GROUP to force every record.");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsyncPolicy = fsyncPolicy;
+        this.groupCommitWindowNanos = TimeUnit.MICROSECONDS.toNanos(groupCommitWindowMicros);
+        Files.createDirectories(directory);
+        openTail();
+        this.durableSequence = lastSequence;
+        if (fsyncPolicy == FsyncPolicy.NONE) {
+            this.flusher = null;
+        } else {
+            this.flusher = new Thread(this::flushLoop, "journal-flusher");
+            this.flusher.setDaemon(true);
+            this.flusher.start();
+        }
+    }
+
+    @Override
+    public void onAccountCreated(Account account, BigDecimal openingBalance) {
+        byte[] id = account.getAccountId().getBytes(StandardCharsets.UTF_8);
+        byte[] unscaled = openingBalance.unscaledValue().toByteArray();
+        byte[] currency = account.getCurrency() == null ? null : account.getCurrency().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = newRecord(ACCOUNT_CREATED, Short.BYTES + id.length + amountSize(unscaled)
+                + (currency == null ? 0 : Short.BYTES + currency.length));
+        putString(record, id);
+        putAmount(record, openingBalance.scale(), unscaled);
+        if (currency != null) {
+            putString(record, currency);
+        }
+        commit(append(record, false));
+    }
+
+    @Override
+    public void onTransfer(Account from, Account to, BigDecimal amount) {
+        onTransfer(from, to, amount, amount);
+    }
+
+    @Override
+    public void beforeTransfer(Account from, Account to, BigDecimal debited, BigDecimal credited) {
+        int size = transferRecord(from, to, debited, credited).capacity();
+        appendLock.lock();
+        try {
+            makeRoom(size);
+            reservedBytes += size;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to reserve room in the transaction journal", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void onTransferNotApplied(Account from, Account to, BigDecimal debited, BigDecimal credited) {
+        int size = transferRecord(from, to, debited, credited).capacity();
+        appendLock.lock();
+        try {
+            reservedBytes -= size;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void onTransfer(Account from, Account to, BigDecimal debited, BigDecimal credited) {
+        commit(append(transferRecord(from, to, debited, credited), true));
+    }
+
+    private ByteBuffer transferRecord(Account from, Account to, BigDecimal debited, BigDecimal credited) {
+        byte[] fromId = from.getAccountId().getBytes(StandardCharsets.UTF_8);
+        byte[] toId = to.getAccountId().getBytes(StandardCharsets.UTF_8);
+        byte[] unscaled = debited.unscaledValue().toByteArray();
+        byte[] creditedUnscaled = credited.equals(debited) ? null : credited.unscaledValue().toByteArray();
+        ByteBuffer record = newRecord(TRANSFER, 2 * Short.BYTES + fromId.length + toId.length + amountSize(unscaled)
+                + (creditedUnscaled == null ? 0 : amountSize(creditedUnscaled)));
+        putString(record, fromId);
+        putString(record, toId);
+        putAmount(record, debited.scale(), unscaled);
+        if (creditedUnscaled != null) {
+            putAmount(record, credited.scale(), creditedUnscaled);
+        }
+        return record;
+    }
+
+    /**
+     * Reads every record with a sequence above {@code afterSequence}, oldest first.
+     *
+     * @return number of records handed to the visitor
+     */
+    public long replay(long afterSequence, JournalVisitor visitor) throws IOException {
+        long records = 0;
+        for (Path segmentFile : segments()) {
+            records += readSegment(segmentFile, afterSequence, visitor);
+        }
+        return records;
+    }
+
+    /**
+     * Segment files in sequence order, the last one being the segment currently appended to.
+     */
+    public List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().toList();
+        }
+    }
+
+    /**
+     * Rolls over to a new segment so every record appended so far sits in a sealed segment.
+     *
+     * @return sequence of the last sealed record
+     */
+    public long seal() {
+        appendLock.lock();
+        try {
+            if (segment.position() > 0) {
+                rollover();
+            }
+            return lastSequence;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to seal the transaction journal segment", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    public long getDurableSequence() {
+        return durableSequence;
+    }
+
+    public long getForceCount() {
+        return forceCount.get();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        if (flusher != null) {
+            flusher.interrupt();
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        force();
+    }
+
+    /**
+     * Reads one segment file, stopping at the end marker or at the first torn record.
+     *
+     * @return number of records handed to the visitor
+     */
+    static long readSegment(Path segmentFile, long afterSequence, JournalVisitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            long records = 0;
+            int recordSize;
+            while ((recordSize = nextRecordSize(buffer)) > 0) {
+                int start = buffer.position();
+                long sequence = buffer.getLong(start + SEQUENCE_OFFSET);
+                if (sequence > afterSequence) {
+                    byte type = buffer.get(start + Integer.BYTES);
+                    int bodyEnd = start + recordSize - Integer.BYTES;
+                    buffer.position(start + HEADER_SIZE);
+                    if (type == ACCOUNT_CREATED) {
+                        String accountId = getString(buffer);
+                        BigDecimal openingBalance = getAmount(buffer);
+                        String currency = buffer.position() < bodyEnd ? getString(buffer) : null;
+                        visitor.onAccountCreated(sequence, accountId, currency, openingBalance);
+                    } else {
+                        String fromAccountId = getString(buffer);
+                        String toAccountId = getString(buffer);
+                        BigDecimal debited = getAmount(buffer);
+                        BigDecimal credited = buffer.position() < bodyEnd ? getAmount(buffer) : debited;
+                        visitor.onTransfer(sequence, fromAccountId, toAccountId, debited, credited);
+                    }
+                    records++;
+                }
+                buffer.position(start + recordSize);
+            }
+            return records;
+        }
+    }
+
+    /**
+     * Size of the record at the buffer position including its length field, or 0 at the end of the
+     * written data or when the record is torn. Leaves the position unchanged.
+     */
+    private static int nextRecordSize(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() < Integer.BYTES) {
+            return 0;
+        }
+        int length = buffer.getInt(start);
+        if (length < Byte.BYTES + Long.BYTES + Integer.BYTES || length > buffer.remaining() - Integer.BYTES) {
+            return 0;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(start + Integer.BYTES, length - Integer.BYTES));
+        if ((int) crc.getValue() != buffer.getInt(start + length)) {
+            return 0;
+        }
+        return length + Integer.BYTES;
+    }
+
+    private ByteBuffer newRecord(byte type, int bodySize) {
+        int size = HEADER_SIZE + bodySize + Integer.BYTES;
+        if (size > segmentSize - Integer.BYTES) {
+            throw new IllegalArgumentException("Journal record of " + size + " bytes does not fit in a segment.");
+        }
+        ByteBuffer record = ByteBuffer.allocate(size);
+        record.putInt(size - Integer.BYTES);
+        record.put(type);
+        record.putLong(0L);
+        return record;
+    }
+
+    /**
+     * @param reserved whether {@link #beforeTransfer} already set aside room for the record, in which case it
+     *                 fits the current segment and the append cannot fail
+     */
+    private long append(ByteBuffer record, boolean reserved) {
+        appendLock.lock();
+        try {
+            // A transfer journaled without going through beforeTransfer has nothing reserved and makes its own room.
+            if (reserved && reservedBytes >= record.capacity()) {
+                reservedBytes -= record.capacity();
+            } else {
+                makeRoom(record.capacity());
+            }
+            long sequence = lastSequence + 1;
+            record.putLong(SEQUENCE_OFFSET, sequence);
+            CRC32C crc = new CRC32C();
+            crc.update(record.array(), Integer.BYTES, record.capacity() - 2 * Integer.BYTES);
+            record.putInt(record.capacity() - Integer.BYTES, (int) crc.getValue());
+            segment.put(record.array());
+            lastSequence = sequence;
+            return sequence;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to the transaction journal", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Rolls over if the current segment cannot take {@code size} more bytes on top of those reserved. Called
+     * with appendLock held.
+     */
+    private void makeRoom(int size) throws IOException {
+        if (segment.remaining() - reservedBytes >= size) {
+            return;
+        }
+        if (reservedBytes + size > segmentSize) {
+            throw new IllegalStateException("Transaction journal segment is full of reserved transfers.");
+        }
+        rollover();
+    }
+
+    private void commit(long sequence) {
+        if (fsyncPolicy != FsyncPolicy.GROUP || durableSequence >= sequence) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            flushRequested.signal();
+            while (durableSequence < sequence && running) {
+                flushed.awaitUninterruptibly();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            flushLock.lock();
+            try {
+                if (fsyncPolicy == FsyncPolicy.GROUP) {
+                    while (running && durableSequence == lastSequence) {
+                        flushRequested.await();
+                    }
+                } else {
+                    flushRequested.awaitNanos(groupCommitWindowNanos);
+                }
+            } catch (InterruptedException e) {
+                break;
+            } finally {
+                flushLock.unlock();
+            }
+            if (fsyncPolicy == FsyncPolicy.GROUP && groupCommitWindowNanos > 0) {
+                // Let more appenders join this force.
+                LockSupport.parkNanos(groupCommitWindowNanos);
+            }
+            force();
+        }
+    }
+
+    private void force() {
+        MappedByteBuffer target;
+        long sequence;
+        appendLock.lock();
+        try {
+            target = segment;
+            sequence = lastSequence;
+        } finally {
+            appendLock.unlock();
+        }
+        if (sequence > durableSequence) {
+            target.force();
+            forceCount.incrementAndGet();
+        }
+        markDurable(sequence);
+    }
+
+    private void markDurable(long sequence) {
+        flushLock.lock();
+        try {
+            if (sequence > durableSequence) {
+                durableSequence = sequence;
+            }
+            flushed.signalAll();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Called with appendLock held.
+    private void rollover() throws IOException {
+        if (fsyncPolicy != FsyncPolicy.NONE) {
+            segment.force();
+            forceCount.incrementAndGet();
+            markDurable(lastSequence);
+        }
+        segment = map(directory.resolve(segmentName(lastSequence + 1)), 0);
+    }
+
+    private void openTail() throws IOException {
+        List<Path> existing = segments();
+        if (existing.isEmpty()) {
+            lastSequence = 0;
+            segment = map(directory.resolve(segmentName(1)), 0);
+            return;
+        }
+        Path tail = existing.get(existing.size() - 1);
+        segment = map(tail, Files.size(tail));
+        long sequence = firstSequence(tail) - 1;
+        int recordSize;
+        while ((recordSize = nextRecordSize(segment)) > 0) {
+            sequence = segment.getLong(segment.position() + SEQUENCE_OFFSET);
+            segment.position(segment.position() + recordSize);
+        }
+        lastSequence = sequence;
+        // Clear whatever torn bytes follow the last valid record so they are not mistaken for data later.
+        if (segment.remaining() >= Integer.BYTES && segment.getInt(segment.position()) != 0) {
+            for (int i = segment.position(); i < segment.limit(); i++) {
+                segment.put(i, (byte) 0);
+            }
+        }
+        log.info("Transaction journal opened at sequence {} in {}", lastSequence, tail);
+    }
+
+    private MappedByteBuffer map(Path file, long existingSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed.
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(existingSize, segmentSize));
+        }
+    }
+
+    static long firstSequence(Path segmentFile) {
+        String name = segmentFile.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static String segmentName(long firstSequence) {
+        return String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX);
+    }
+
+    private static int amountSize(byte[] unscaled) {
+        return Integer.BYTES + Short.BYTES + unscaled.length;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        buffer.putShort((short) value.length);
+        buffer.put(value);
+    }
+
+    private static void putAmount(ByteBuffer buffer, int scale, byte[] unscaled) {
+        buffer.putInt(scale);
+        buffer.putShort((short) unscaled.length);
+        buffer.put(unscaled);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] value = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static BigDecimal getAmount(ByteBuffer buffer) {
+        int scale = buffer.getInt();
+        byte[] unscaled = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+}
@@ -0,0 +1,142 @@
+package com.dws.challenge.ledger;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Consumer;
+
+/**
+ * Append-only history of one account, stored column-wise in fixed-size chunks so growing it never copies
+ * entries. Only the newest chunks covering {@code maxEntries} entries are kept: the chunk directory is a ring
+ * that grows up to that many chunks, after which a new chunk replaces the oldest one. Appends are serialized by
+ * a spin flag held only for a few array stores; readers take no lock and see every retained entry below the
+ * published size. A chunk is never reused and knows its index, so a reader that finds a different chunk in a
+ * slot knows the entries it was after have been evicted.
+ */
+final class AccountLedger {
+
+    static final int CHUNK_SIZE = 128;
+
+    private static final AtomicIntegerFieldUpdater<AccountLedger> APPENDING =
+            AtomicIntegerFieldUpdater.newUpdater(AccountLedger.class, "appending");
+
+    private final int maxChunks;
+
+    private volatile Chunk[] chunks;
+
+    private volatile long size;
+
+    private volatile int appending;
+
+    // Only read and written while the ledger map computes this account's entry.
+    boolean opened;
+
+    AccountLedger(int maxEntries) {
+        // One chunk over the cap, since the newest chunk is only partly filled when the oldest one is evicted.
+        this.maxChunks = (int) Math.min(Integer.MAX_VALUE, ((long) maxEntries + CHUNK_SIZE - 1) / CHUNK_SIZE + 1);
+        this.chunks = new Chunk[Math.min(4, maxChunks)];
+    }
+
+    long size() {
+        return size;
+    }
+
+    void append(long transferId, long timestamp, LedgerEntryType type, String counterparty, BigDecimal amount) {
+        while (!APPENDING.compareAndSet(this, 0, 1)) {
+            Thread.onSpinWait();
+        }
+        try {
+            long position = size;
+            long chunkIndex = position / CHUNK_SIZE;
+            Chunk[] directory = chunks;
+            int slot = (int) (chunkIndex % directory.length);
+            Chunk chunk = directory[slot];
+            if (chunk == null || chunk.index != chunkIndex) {
+                if (chunk != null && directory.length < maxChunks) {
+                    directory = grow(directory);
+                    slot = (int) (chunkIndex % directory.length);
+                }
+                chunk = new Chunk(chunkIndex);
+                directory[slot] = chunk;
+            }
+            chunk.set((int) (position % CHUNK_SIZE), transferId, timestamp, type, counterparty, amount);
+            chunks = directory;
+            // Publishing the size last makes the entry and its chunk visible to readers together.
+            size = position + 1;
+        } finally {
+            appending = 0;
+        }
+    }
+
+    /**
+     * Method to visit entries from newest to oldest
+     *
+     * @param before only entries below this position, or the newest ones if it is negative
+     * @param limit  largest number of entries to visit
+     * @return position to pass as {@code before} for the next entries, or -1 if the oldest retained entry was visited
+     */
+    long forEachDescending(long before, int limit, Consumer<LedgerEntry> consumer) {
+        long published = size;
+        Chunk[] directory = chunks;
+        long position = (before < 0 ? published : Math.min(before, published)) - 1;
+        for (int visited = 0; position >= 0 && visited < limit; position--, visited++) {
+            long chunkIndex = position / CHUNK_SIZE;
+            Chunk chunk = directory[(int) (chunkIndex % directory.length)];
+            if (chunk == null || chunk.index != chunkIndex) {
+                return -1;
+            }
+            consumer.accept(chunk.get(position));
+        }
+        if (position < 0) {
+            return -1;
+        }
+        long chunkIndex = position / CHUNK_SIZE;
+        Chunk chunk = directory[(int) (chunkIndex % directory.length)];
+        return chunk != null && chunk.index == chunkIndex ? position + 1 : -1;
+    }
+
+    /**
+     * Method to copy the live chunks into a larger ring; readers still holding the old ring keep reading it.
+     */
+    private Chunk[] grow(Chunk[] directory) {
+        Chunk[] grown = new Chunk[Math.min(directory.length * 2, maxChunks)];
+        for (Chunk chunk : directory) {
+            if (chunk != null) {
+                grown[(int) (chunk.index % grown.length)] = chunk;
+            }
+        }
+        return grown;
+    }
+
+    private static final class Chunk {
+
+        private final long index;
+
+        private final long[] transferIds = new long[CHUNK_SIZE];
+
+        private final long[] timestamps = new long[CHUNK_SIZE];
+
+        private final byte[] types = new byte[CHUNK_SIZE];
+
+        private final String[] counterparties = new String[CHUNK_SIZE];
+
+        private final BigDecimal[] amounts = new BigDecimal[CHUNK_SIZE];
+
+        void set(int slot, long transferId, long timestamp, LedgerEntryType type, String counterparty, BigDecimal amount) {
+            transferIds[slot] = transferId;
+            timestamps[slot] = timestamp;
+            types[slot] = (byte) type.ordinal();
+            counterparties[slot] = counterparty;
+            amounts[slot] = amount;
+        }
+
+        Chunk(long index) {
+            this.index = index;
+        }
+
+        LedgerEntry get(long position) {
+            int slot = (int) (position % CHUNK_SIZE);
+            return new LedgerEntry(position, transferIds[slot], timestamps[slot], LedgerEntryType.values()[types[slot]],
+                    counterparties[slot], amounts[slot]);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.dws.challenge.ledger;
+
+import java.math.BigDecimal;
+
+/**
+ * One line of an account statement.
+ *
+ * @param position     position of the entry in the account's ledger, used as the pagination cursor
+ * @param transferId   id shared by the debit and credit entries of one transfer
+ * @param timestamp    epoch millis at which the transfer was applied
+ * @param counterparty other account of the transfer, null for the opening entry
+ * @param amount       always positive, the type tells the direction
+ */
+public record LedgerEntry(long position, long transferId, long timestamp, LedgerEntryType type,
+                          String counterparty, BigDecimal amount) {
+}
@@ -0,0 +1,5 @@
+package com.dws.challenge.ledger;
+
+public enum LedgerEntryType {
+    OPENING, DEBIT, CREDIT
+}
@@ -0,0 +1,102 @@
+package com.dws.challenge.ledger;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.service.TransferListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * In-memory transaction history per account, fed by {@link com.dws.challenge.service.AccountsService}
+ * after each applied transfer. A transfer costs two chunk appends and no allocation beyond the occasional
+ * new chunk. Each account keeps at least its newest {@code ledger.max-entries-per-account} entries, older ones
+ * are evicted a chunk at a time, so the history grows with the number of accounts only.
+ * <p>
+ * Transfer ids come from counters striped by thread, each on its own cache line, so concurrent transfers do
+ * not contend on one counter. Ids are unique but only ordered within a stripe.
+ */
+@Component
+@ConditionalOnProperty(name = "ledger.enabled", havingValue = "true")
+public class TransactionLedger implements TransferListener {
+
+    private static final int STRIPE_BITS = 6;
+
+    /**
+     * Counters sit this many slots apart so two stripes never share a cache line.
+     */
+    private static final int STRIDE = 16;
+
+    private final Map<String, AccountLedger> ledgers = new ConcurrentHashMap<>();
+
+    private final AtomicLongArray transferIds = new AtomicLongArray((1 << STRIPE_BITS) * STRIDE);
+
+    private final int maxEntriesPerAccount;
+
+    public TransactionLedger(@Value("${ledger.max-entries-per-account:1000}") int maxEntriesPerAccount) {
+        if (maxEntriesPerAccount <= 0) {
+            throw new IllegalArgumentException("Ledger must keep at least one entry per account.");
+        }
+        this.maxEntriesPerAccount = maxEntriesPerAccount;
+    }
+
+    @Override
+    public void onAccountCreated(Account account, BigDecimal openingBalance) {
+        // A ledger already opened belongs to an earlier account with the same id, removed since; one that is not
+        // was started by a transfer that reached the new account before this call.
+        AccountLedger ledger = ledgers.compute(account.getAccountId(), (accountId, existing) -> {
+            AccountLedger opened = existing != null && !existing.opened ? existing : new AccountLedger(maxEntriesPerAccount);
+            opened.opened = true;
+            return opened;
+        });
+        ledger.append(nextTransferId(), System.currentTimeMillis(), LedgerEntryType.OPENING, null, openingBalance);
+    }
+
+    @Override
+    public void onTransfer(Account from, Account to, BigDecimal amount) {
+        onTransfer(from, to, amount, amount);
+    }
+
+    @Override
+    public void onTransfer(Account from, Account to, BigDecimal debited, BigDecimal credited) {
+        long transferId = nextTransferId();
+        long timestamp = System.currentTimeMillis();
+        ledgerOf(from).append(transferId, timestamp, LedgerEntryType.DEBIT, to.getAccountId(), debited);
+        ledgerOf(to).append(transferId, timestamp, LedgerEntryType.CREDIT, from.getAccountId(), credited);
+    }
+
+    /**
+     * Method to read an account statement, newest entry first
+     *
+     * @param accountId account to read
+     * @param before  cursor returned by a previous page, or -1 for the newest entries
+     * @param limit   largest number of entries to read
+     * @return cursor for the next page, or -1 if the oldest retained entry has been read
+     */
+    public long read(String accountId, long before, int limit, Consumer<LedgerEntry> consumer) {
+        AccountLedger ledger = ledgers.get(accountId);
+        return ledger == null ? -1 : ledger.forEachDescending(before, limit, consumer);
+    }
+
+    private long nextTransferId() {
+        int stripe = (int) (Thread.currentThread().threadId() & ((1 << STRIPE_BITS) - 1));
+        return transferIds.incrementAndGet(stripe * STRIDE) << STRIPE_BITS | stripe;
+    }
+
+    /**
+     * Ledgers are keyed by account id and hold no reference to the account: a tiered repository hands out a new
+     * object each time it brings an account back into memory, and must be free to drop the old one.
+     */
+    private AccountLedger ledgerOf(Account account) {
+        AccountLedger ledger = ledgers.get(account.getAccountId());
+        if (ledger != null) {
+            return ledger;
+        }
+        return ledgers.computeIfAbsent(account.getAccountId(), accountId -> new AccountLedger(maxEntriesPerAccount));
+    }
+}
@@ -0,0 +1,106 @@
+package com.dws.challenge.metrics;
+
+import com.dws.challenge.journal.SnapshotManager;
+import com.dws.challenge.journal.TransactionJournal;
+import com.dws.challenge.replication.ChangeStreamPublisher;
+import com.dws.challenge.replication.ChangeStreamReplica;
+import com.dws.challenge.repository.TieredAccountsRepository;
+import com.dws.challenge.schedule.ScheduledTransferService;
+import com.dws.challenge.service.AsyncNotificationService;
+import com.dws.challenge.service.IdempotencyCache;
+import com.dws.challenge.service.NotificationService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Gauges over state the components already track, read only when the registry is scraped.
+ */
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    public MeterBinder notificationMetrics(NotificationService notificationService) {
+        return registry -> {
+            if (notificationService instanceof AsyncNotificationService async) {
+                Gauge.builder("notification.queue.depth", async, AsyncNotificationService::getQueueDepth).register(registry);
+                Gauge.builder("notification.queue.capacity", async, AsyncNotificationService::getQueueCapacity).register(registry);
+                Gauge.builder("notification.lag", async, AsyncNotificationService::getLastLagMillis)
+                        .baseUnit("milliseconds").register(registry);
+                FunctionCounter.builder("notification.dropped", async, AsyncNotificationService::getDroppedCount).register(registry);
+                FunctionCounter.builder("notification.spilled", async, AsyncNotificationService::getSpilledCount).register(registry);
+                FunctionCounter.builder("notification.delivered", async, AsyncNotificationService::getDeliveredCount).register(registry);
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder idempotencyMetrics(IdempotencyCache idempotencyCache) {
+        return registry -> Gauge.builder("idempotency.cache.size", idempotencyCache, IdempotencyCache::size).register(registry);
+    }
+
+    @Bean
+    public MeterBinder journalMetrics(ObjectProvider<TransactionJournal> transactionJournal,
+                                      ObjectProvider<SnapshotManager> snapshotManager) {
+        return registry -> {
+            transactionJournal.ifAvailable(journal -> {
+                Gauge.builder("journal.sequence.last", journal, TransactionJournal::getLastSequence).register(registry);
+                Gauge.builder("journal.sequence.durable", journal, TransactionJournal::getDurableSequence).register(registry);
+                FunctionCounter.builder("journal.forces", journal, TransactionJournal::getForceCount).register(registry);
+            });
+            snapshotManager.ifAvailable(snapshots -> {
+                Gauge.builder("journal.snapshot.sequence", snapshots, SnapshotManager::getLastSnapshotSequence).register(registry);
+                Gauge.builder("journal.recovery.duration", snapshots, manager -> manager.getRecoveryReport() == null
+                        ? 0 : manager.getRecoveryReport().totalMillis()).baseUnit("milliseconds").register(registry);
+            });
+        };
+    }
+
+    @Bean
+    public MeterBinder accountTierMetrics(ObjectProvider<TieredAccountsRepository> tieredAccountsRepository) {
+        return registry -> tieredAccountsRepository.ifAvailable(repository -> {
+            Gauge.builder("accounts.tier.hot", repository, TieredAccountsRepository::getHotCount).register(registry);
+            Gauge.builder("accounts.tier.cold", repository, TieredAccountsRepository::getColdCount).register(registry);
+            Gauge.builder("accounts.tier.cold.memory", repository, TieredAccountsRepository::getColdBytes)
+                    .baseUnit("bytes").register(registry);
+            FunctionCounter.builder("accounts.tier.promotions", repository, TieredAccountsRepository::getPromotionCount)
+                    .register(registry);
+            FunctionCounter.builder("accounts.tier.demotions", repository, TieredAccountsRepository::getDemotionCount)
+                    .register(registry);
+        });
+    }
+
+    @Bean
+    public MeterBinder replicationMetrics(ObjectProvider<ChangeStreamPublisher> changeStreamPublisher,
+                                          ObjectProvider<ChangeStreamReplica> changeStreamReplica) {
+        return registry -> {
+            changeStreamPublisher.ifAvailable(publisher -> {
+                Gauge.builder("replication.sequence", publisher, ChangeStreamPublisher::getSequence).register(registry);
+                Gauge.builder("replication.subscribers", publisher, ChangeStreamPublisher::getSubscriberCount)
+                        .register(registry);
+            });
+            changeStreamReplica.ifAvailable(replica -> {
+                Gauge.builder("replication.replica.sequence", replica, ChangeStreamReplica::getSequence).register(registry);
+                Gauge.builder("replication.replica.staleness", replica, ChangeStreamReplica::getStalenessMillis)
+                        .baseUnit("milliseconds").register(registry);
+                FunctionCounter.builder("replication.replica.changes", replica, ChangeStreamReplica::getAppliedChanges)
+                        .register(registry);
+            });
+        };
+    }
+
+    @Bean
+    public MeterBinder scheduledTransferMetrics(ScheduledTransferService scheduledTransferService) {
+        return registry -> {
+            Gauge.builder("transfers.scheduled.pending", scheduledTransferService, ScheduledTransferService::getPendingCount)
+                    .register(registry);
+            FunctionCounter.builder("transfers.scheduled.executed", scheduledTransferService, ScheduledTransferService::getExecutedCount)
+                    .register(registry);
+            FunctionCounter.builder("transfers.scheduled.failed", scheduledTransferService, ScheduledTransferService::getFailedCount)
+                    .register(registry);
+        };
+    }
+}
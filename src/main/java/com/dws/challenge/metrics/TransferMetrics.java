@@ -0,0 +1,84 @@
+package com.dws.challenge.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers for the transfer hot path. Every timer is registered up front, so recording is a
+ * {@link System#nanoTime()} difference plus a lock-free histogram update, with no tag lookups per call.
+ * Percentiles come from Micrometer's HdrHistogram-backed distribution and are published to Prometheus
+ * together with histogram buckets.
+ */
+@Component
+public class TransferMetrics {
+
+    /**
+     * Meters that are never published, for code paths built outside the Spring context.
+     */
+    public static final TransferMetrics NOOP = new TransferMetrics(new CompositeMeterRegistry());
+
+    public enum Outcome {
+        SUCCESS, INSUFFICIENT_BALANCE, ACCOUNT_NOT_FOUND, INVALID_REQUEST, VELOCITY_LIMIT_EXCEEDED
+    }
+
+    private final Map<Outcome, Timer> transfers = new EnumMap<>(Outcome.class);
+
+    private final Timer lockWait;
+
+    private final Timer lockHold;
+
+    private final Timer repositoryLookup;
+
+    private final Timer notification;
+
+    @Autowired
+    public TransferMetrics(MeterRegistry registry) {
+        for (Outcome outcome : Outcome.values()) {
+            transfers.put(outcome, timer("transfer.requests", "Transfers handled by AccountsService.transferMoney", registry,
+                    "outcome", outcome.name().toLowerCase()));
+        }
+        this.lockWait = timer("transfer.lock.wait", "Time spent waiting for the transfer engine locks", registry);
+        this.lockHold = timer("transfer.lock.hold", "Time the transfer engine locks were held", registry);
+        this.repositoryLookup = timer("repository.lookup", "Account lookups in the repository", registry);
+        this.notification = timer("notification.latency", "Time spent handing a transfer notification over", registry);
+    }
+
+    public void recordTransfer(Outcome outcome, long nanos) {
+        transfers.get(outcome).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordLockWait(long nanos) {
+        lockWait.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordLockHold(long nanos) {
+        lockHold.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRepositoryLookup(long nanos) {
+        repositoryLookup.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordNotification(long nanos) {
+        notification.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static Timer timer(String name, String description, MeterRegistry registry, String... tags) {
+        return Timer.builder(name)
+                .description(description)
+                .tags(tags)
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(100))
+                .maximumExpectedValue(Duration.ofSeconds(1))
+                .register(registry);
+    }
+}
@@ -0,0 +1,81 @@
+package com.dws.challenge.replication;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One step of the change stream: the balance of every account changed since the previous batch, as read when
+ * the batch was cut. Balances are absolute, so a replica that applies the batches in sequence order ends up
+ * with the balances of the primary whatever it missed before its last snapshot. A batch without changes is
+ * a heartbeat, it only moves the replica's view of the primary's clock.
+ * <p>
+ * On the wire a batch is {@code [int length][long sequence][long timestampMillis][int count]} followed by
+ * {@code count} changes {@code [UTF accountId][UTF currency][int scale][short unscaledLength][unscaled]}, the
+ * length not counting itself and an empty currency standing for the base currency.
+ */
+record ChangeBatch(long sequence, long timestampMillis, List<Change> changes) {
+
+    static final int LENGTH_SIZE = Integer.BYTES;
+
+    static final int MAX_SIZE = 64 << 20;
+
+    /**
+     * @param currency currency of the account, or null for the base currency
+     */
+    record Change(String accountId, String currency, BigDecimal balance) {
+    }
+
+    /**
+     * @return the batch as a frame, length prefix included
+     */
+    ByteBuffer encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + 48 * changes.size());
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(0);
+            out.writeLong(sequence);
+            out.writeLong(timestampMillis);
+            out.writeInt(changes.size());
+            for (Change change : changes) {
+                byte[] unscaled = change.balance().unscaledValue().toByteArray();
+                out.writeUTF(change.accountId());
+                out.writeUTF(change.currency() == null ? "" : change.currency());
+                out.writeInt(change.balance().scale());
+                out.writeShort(unscaled.length);
+                out.write(unscaled);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ByteBuffer frame = ByteBuffer.wrap(bytes.toByteArray());
+        return frame.putInt(0, frame.remaining() - LENGTH_SIZE);
+    }
+
+    /**
+     * Method to read the batch following a length prefix already consumed
+     */
+    static ChangeBatch decode(DataInputStream in) throws IOException {
+        long sequence = in.readLong();
+        long timestampMillis = in.readLong();
+        int count = in.readInt();
+        List<Change> changes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String accountId = in.readUTF();
+            String currency = in.readUTF();
+            int scale = in.readInt();
+            byte[] unscaled = new byte[in.readUnsignedShort()];
+            in.readFully(unscaled);
+            changes.add(new Change(accountId, currency.isEmpty() ? null : currency,
+                    new BigDecimal(new BigInteger(unscaled), scale)));
+        }
+        return new ChangeBatch(sequence, timestampMillis, changes);
+    }
+}
@@ -0,0 +1,383 @@
+package com.dws.challenge.replication;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.service.TransferListener;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Primary side of the change stream. Creations and transfers only mark their accounts dirty, in a concurrent
+ * map keyed by id, so the transfer path never waits on replicas. Every {@code batchMillis} a flusher thread
+ * takes the dirty accounts, reads their balances and sends them as one {@link ChangeBatch}, so an account
+ * changed a thousand times in between is sent once. When nothing changed, an empty batch goes out every
+ * {@code heartbeatMillis} so replicas can tell an idle primary from a lost one.
+ * <p>
+ * Batches go to every replica connected to {@code port}, each of which first gets a snapshot of every account
+ * read from the repository, and are appended to {@code file} when one is set, recreated on start for replicas to
+ * tail; accounts recovered from the journal reach file replicas the first time they change.
+ * <p>
+ * Each replica has its own writer thread and a queue of at most {@code maxPendingBatches} frames, shared with
+ * the other replicas rather than copied. The flusher only enqueues, so a replica that stops reading holds back
+ * neither the transfers nor the other replicas: once its queue is full it is disconnected, and it catches up
+ * from a fresh snapshot when it reconnects.
+ */
+@Slf4j
+public class ChangeStreamPublisher implements TransferListener, AutoCloseable {
+
+    static final int MAX_CHANGES_PER_BATCH = 10_000;
+
+    private final Map<String, Account> dirty = new ConcurrentHashMap<>();
+
+    private final AccountsRepository accounts;
+
+    private final Queue<Socket> joining = new ConcurrentLinkedQueue<>();
+
+    private final long batchMillis;
+
+    private final long heartbeatMillis;
+
+    private final int maxPendingBatches;
+
+    private final ServerSocket serverSocket;
+
+    private final FileChannel file;
+
+    private final Thread flusher;
+
+    private final Thread acceptor;
+
+    // Only used by the flusher thread.
+    private final List<Subscriber> subscribers = new ArrayList<>();
+
+    private long lastBatchMillis;
+
+    private volatile long sequence;
+
+    private volatile int subscriberCount;
+
+    private volatile boolean running = true;
+
+    /**
+     * @param accounts          accounts the snapshot for a joining replica is read from
+     * @param port              port replicas connect to, 0 for any free port, negative for none
+     * @param file              file to append batches to, or null
+     * @param maxPendingBatches frames a replica may fall behind before it is disconnected
+     */
+    public ChangeStreamPublisher(AccountsRepository accounts, int port, Path file, long batchMillis,
+                                 long heartbeatMillis, int maxPendingBatches) throws IOException {
+        if (maxPendingBatches < 1) {
+            throw new IllegalArgumentException("A replica must be allowed at least one pending batch.");
+        }
+        this.accounts = accounts;
+        this.batchMillis = batchMillis;
+        this.heartbeatMillis = heartbeatMillis;
+        this.maxPendingBatches = maxPendingBatches;
+        if (file == null) {
+            this.file = null;
+        } else {
+            // A new file rather than a truncated one, so tailing replicas notice the restart.
+            Files.deleteIfExists(file);
+            this.file = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+        if (port < 0) {
+            this.serverSocket = null;
+            this.acceptor = null;
+        } else {
+            this.serverSocket = new ServerSocket();
+            serverSocket.bind(new InetSocketAddress(port));
+            this.acceptor = new Thread(this::acceptLoop, "change-stream-acceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+        this.flusher = new Thread(this::flushLoop, "change-stream-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("Publishing balance changes every {} ms on port {} and to file {}", batchMillis, getPort(), file);
+    }
+
+    @Override
+    public void onAccountCreated(Account account, BigDecimal openingBalance) {
+        dirty.put(account.getAccountId(), account);
+    }
+
+    @Override
+    public void onTransfer(Account from, Account to, BigDecimal debited, BigDecimal credited) {
+        dirty.put(from.getAccountId(), from);
+        dirty.put(to.getAccountId(), to);
+    }
+
+    /**
+     * @return the port replicas connect to, -1 if there is none
+     */
+    public int getPort() {
+        return serverSocket == null ? -1 : serverSocket.getLocalPort();
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        flusher.interrupt();
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (serverSocket != null) {
+            serverSocket.close();
+        }
+        // Gives every replica a moment to receive the final batch.
+        for (Subscriber subscriber : subscribers) {
+            subscriber.finish(heartbeatMillis);
+        }
+        if (file != null) {
+            file.close();
+        }
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                joining.add(socket);
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Failed to accept a replica connection", e);
+                }
+            }
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            try {
+                Thread.sleep(batchMillis);
+            } catch (InterruptedException e) {
+                break;
+            }
+            flush();
+        }
+        // Last changes before closing, so replicas of a stopped primary end up with its final balances.
+        flush();
+    }
+
+    private void flush() {
+        try {
+            // Snapshots are read before the dirty accounts: a balance that changes in between is in this batch,
+            // which a new replica applies after its snapshot.
+            boolean joined = false;
+            Socket socket;
+            while ((socket = joining.poll()) != null) {
+                joined |= subscribe(socket);
+            }
+            List<ChangeBatch.Change> changes = new ArrayList<>();
+            for (Iterator<String> ids = dirty.keySet().iterator(); ids.hasNext(); ) {
+                // Removed before the balance is read: a transfer marking the account again after this
+                // point is sent in the next batch, one that marked it before is covered by this read.
+                Account account = dirty.remove(ids.next());
+                if (account != null) {
+                    changes.add(new ChangeBatch.Change(account.getAccountId(), account.getCurrency(), account.getBalance()));
+                }
+            }
+            long now = System.currentTimeMillis();
+            // A new replica gets a batch right away, its snapshot only carries the time of the previous one.
+            if (changes.isEmpty() && !joined && now - lastBatchMillis < heartbeatMillis) {
+                return;
+            }
+            lastBatchMillis = now;
+            sequence++;
+            for (ByteBuffer frame : frames(sequence, now, changes)) {
+                publish(frame);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to publish balance changes", e);
+        }
+    }
+
+    private boolean subscribe(Socket socket) {
+        List<ChangeBatch.Change> snapshot = new ArrayList<>();
+        accounts.forEachAccount(account -> snapshot.add(
+                new ChangeBatch.Change(account.getAccountId(), account.getCurrency(), account.getBalance())));
+        Subscriber subscriber;
+        try {
+            subscriber = new Subscriber(socket, frames(sequence, lastBatchMillis, snapshot), maxPendingBatches);
+        } catch (IOException e) {
+            log.warn("Failed to set up replica {}", socket.getRemoteSocketAddress(), e);
+            try {
+                socket.close();
+            } catch (IOException closeFailure) {
+                log.debug("Failed to close replica connection", closeFailure);
+            }
+            return false;
+        }
+        subscribers.add(subscriber);
+        subscriberCount = subscribers.size();
+        log.info("Replica {} subscribed at sequence {} with {} account(s)", subscriber.address, sequence, snapshot.size());
+        return true;
+    }
+
+    private void publish(ByteBuffer frame) {
+        if (file != null) {
+            try {
+                ByteBuffer copy = frame.duplicate();
+                while (copy.hasRemaining()) {
+                    file.write(copy);
+                }
+            } catch (IOException e) {
+                log.error("Failed to append balance changes to the change stream file", e);
+            }
+        }
+        for (Iterator<Subscriber> it = subscribers.iterator(); it.hasNext(); ) {
+            Subscriber subscriber = it.next();
+            if (subscriber.isClosed()) {
+                log.info("Replica {} disconnected", subscriber.address);
+                it.remove();
+            } else if (!subscriber.offer(frame)) {
+                log.warn("Replica {} is more than {} batches behind, disconnecting it", subscriber.address,
+                        maxPendingBatches);
+                subscriber.close();
+                it.remove();
+            }
+        }
+        subscriberCount = subscribers.size();
+    }
+
+    private static List<ByteBuffer> frames(long sequence, long timestampMillis, List<ChangeBatch.Change> changes) {
+        List<ByteBuffer> frames = new ArrayList<>();
+        int from = 0;
+        do {
+            int to = Math.min(changes.size(), from + MAX_CHANGES_PER_BATCH);
+            frames.add(new ChangeBatch(sequence, timestampMillis, changes.subList(from, to)).encode());
+            from = to;
+        } while (from < changes.size());
+        return frames;
+    }
+
+    private static final class Subscriber {
+
+        // Marks the end of the stream for the writer thread.
+        private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+        private final Socket socket;
+
+        private final OutputStream out;
+
+        private final Object address;
+
+        private final List<ByteBuffer> snapshot;
+
+        private final BlockingQueue<ByteBuffer> pending;
+
+        private final Thread writer;
+
+        private volatile boolean closed;
+
+        Subscriber(Socket socket, List<ByteBuffer> snapshot, int maxPendingBatches) throws IOException {
+            this.socket = socket;
+            this.out = new BufferedOutputStream(socket.getOutputStream(), 64 * 1024);
+            this.address = socket.getRemoteSocketAddress();
+            this.snapshot = snapshot;
+            this.pending = new ArrayBlockingQueue<>(maxPendingBatches);
+            this.writer = new Thread(this::writeLoop, "change-stream-writer-" + address);
+            writer.setDaemon(true);
+            writer.start();
+        }
+
+        /**
+         * @return false if the replica's queue is full
+         */
+        boolean offer(ByteBuffer frame) {
+            return pending.offer(frame);
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+
+        /**
+         * Method to let the writer send what is queued, for at most {@code waitMillis}, and close the connection
+         */
+        void finish(long waitMillis) {
+            if (pending.offer(END)) {
+                try {
+                    writer.join(waitMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            close();
+        }
+
+        void close() {
+            closed = true;
+            // Also ends a write blocked on a replica that stopped reading.
+            try {
+                socket.close();
+            } catch (IOException e) {
+                log.debug("Failed to close replica connection", e);
+            }
+            writer.interrupt();
+        }
+
+        private void writeLoop() {
+            try {
+                for (ByteBuffer frame : snapshot) {
+                    write(frame);
+                }
+                snapshot.clear();
+                out.flush();
+                while (true) {
+                    ByteBuffer frame = pending.take();
+                    if (frame == END) {
+                        out.flush();
+                        return;
+                    }
+                    write(frame);
+                    if (pending.isEmpty()) {
+                        out.flush();
+                    }
+                }
+            } catch (IOException | InterruptedException e) {
+                if (!closed) {
+                    log.debug("Failed to send balance changes to replica {}", address, e);
+                }
+            } finally {
+                close();
+            }
+        }
+
+        private void write(ByteBuffer frame) throws IOException {
+            out.write(frame.array(), frame.arrayOffset() + frame.position(), frame.remaining());
+        }
+    }
+}
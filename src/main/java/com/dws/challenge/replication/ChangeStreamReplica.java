@@ -0,0 +1,224 @@
+package com.dws.challenge.replication;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.service.AccountFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+
+/**
+ * Replica side of the change stream: one thread reads {@link ChangeBatch}es, either from the primary's port,
+ * reconnecting after {@code retryMillis} whenever the connection drops, or by tailing the primary's file, and
+ * writes the balances into the local repository. Balances are set on accounts pinned through
+ * {@link AccountsRepository#acquireAccount}, so a tiered repository cannot drop an update to an account it is
+ * moving out of memory, and new accounts are created through the {@link AccountFactory}, so the replica holds
+ * the same account types as the primary. The web layer only reads that repository, see
+ * {@link ReplicaWebConfiguration}.
+ * <p>
+ * Staleness is the age of the newest batch applied, by the primary's clock, so it is only meaningful with both
+ * on the same machine or with synchronised clocks. Heartbeats keep it below the heartbeat interval while the
+ * primary is reachable and keeping up.
+ */
+@Slf4j
+public class ChangeStreamReplica implements AutoCloseable {
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+
+    private static final long FILE_POLL_MILLIS = 5;
+
+    private final AccountsRepository accountsRepository;
+
+    private final AccountFactory accountFactory;
+
+    private final InetSocketAddress primary;
+
+    private final Path file;
+
+    private final long retryMillis;
+
+    private final Thread reader;
+
+    private volatile Socket socket;
+
+    private volatile long sequence;
+
+    private volatile long timestampMillis;
+
+    private volatile long appliedChanges;
+
+    private volatile boolean running = true;
+
+    /**
+     * @param file file written by the primary to tail instead of connecting to it, or null
+     */
+    public ChangeStreamReplica(AccountsRepository accountsRepository, AccountFactory accountFactory, String host,
+                               int port, Path file, long retryMillis) {
+        this.accountsRepository = accountsRepository;
+        this.accountFactory = accountFactory;
+        this.primary = file == null ? new InetSocketAddress(host, port) : null;
+        this.file = file;
+        this.retryMillis = retryMillis;
+        this.reader = new Thread(file == null ? this::followSocket : this::followFile, "change-stream-replica");
+        reader.setDaemon(true);
+        reader.start();
+        log.info("Replicating balances from {}", file == null ? primary : file);
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getAppliedChanges() {
+        return appliedChanges;
+    }
+
+    /**
+     * @return milliseconds between the cut of the newest batch applied and now, -1 before the first batch
+     */
+    public long getStalenessMillis() {
+        long timestamp = timestampMillis;
+        return timestamp == 0 ? -1 : Math.max(0, System.currentTimeMillis() - timestamp);
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        reader.interrupt();
+        Socket current = socket;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    private void followSocket() {
+        while (running) {
+            try (Socket connection = new Socket()) {
+                socket = connection;
+                connection.connect(primary, CONNECT_TIMEOUT_MILLIS);
+                log.info("Connected to primary {}", primary);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream(), 64 * 1024));
+                while (running) {
+                    checkLength(in.readInt());
+                    apply(ChangeBatch.decode(in));
+                }
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Lost the change stream from {}, retrying in {} ms: {}", primary, retryMillis, e.toString());
+                }
+            }
+            pause(retryMillis);
+        }
+    }
+
+    private void followFile() {
+        FileChannel channel = null;
+        Object fileKey = null;
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(ChangeBatch.LENGTH_SIZE);
+        while (running) {
+            try {
+                if (channel == null || position == channel.size()) {
+                    // At the end of what was written; a different file key means the primary started a new file.
+                    Object currentKey = fileKey(file);
+                    if (channel == null || !Objects.equals(currentKey, fileKey)) {
+                        if (channel != null) {
+                            channel.close();
+                            log.info("Change stream file {} was recreated, reading it from the start", file);
+                        }
+                        channel = currentKey == null ? null : FileChannel.open(file, StandardOpenOption.READ);
+                        fileKey = currentKey;
+                        position = 0;
+                    }
+                    if (channel == null || position == channel.size()) {
+                        pause(FILE_POLL_MILLIS);
+                        continue;
+                    }
+                }
+                header.clear();
+                channel.read(header, position);
+                int length = header.position() == ChangeBatch.LENGTH_SIZE ? header.getInt(0) : -1;
+                if (length < 0 || channel.size() < position + ChangeBatch.LENGTH_SIZE + length) {
+                    // The primary is still writing this batch.
+                    pause(FILE_POLL_MILLIS);
+                    continue;
+                }
+                checkLength(length);
+                ByteBuffer body = ByteBuffer.allocate(length);
+                while (body.hasRemaining()) {
+                    channel.read(body, position + ChangeBatch.LENGTH_SIZE + body.position());
+                }
+                apply(ChangeBatch.decode(new DataInputStream(new ByteArrayInputStream(body.array()))));
+                position += ChangeBatch.LENGTH_SIZE + length;
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Failed to read change stream file {}, retrying in {} ms", file, retryMillis, e);
+                }
+                pause(retryMillis);
+            }
+        }
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            log.debug("Failed to close change stream file", e);
+        }
+    }
+
+    private void apply(ChangeBatch batch) {
+        for (ChangeBatch.Change change : batch.changes()) {
+            Account account = accountsRepository.acquireAccount(change.accountId());
+            if (account == null) {
+                accountsRepository.createAccount(
+                        accountFactory.prepare(new Account(change.accountId(), change.balance(), change.currency())));
+                continue;
+            }
+            try {
+                account.setBalance(change.balance());
+            } finally {
+                accountsRepository.releaseAccount(account);
+            }
+        }
+        appliedChanges += batch.changes().size();
+        sequence = batch.sequence();
+        timestampMillis = batch.timestampMillis();
+    }
+
+    private void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            running = false;
+        }
+    }
+
+    private static void checkLength(int length) throws IOException {
+        if (length < 0 || length > ChangeBatch.MAX_SIZE) {
+            throw new IOException("Invalid change batch length " + length);
+        }
+    }
+
+    private static Object fileKey(Path file) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            // Not every file system has file keys, the creation time tells a recreated file apart as well.
+            return attributes.fileKey() != null ? attributes.fileKey() : attributes.creationTime();
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+}
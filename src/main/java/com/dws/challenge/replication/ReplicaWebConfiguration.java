@@ -0,0 +1,67 @@
+package com.dws.challenge.replication;
+
+import com.dws.challenge.exception.ReadOnlyReplicaException;
+import com.dws.challenge.exception.StaleReplicaException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Turns the API of a replica read-only: only account balance reads are served, with the staleness of the
+ * replica in a response header, and they are refused once it exceeds {@code replication.max-staleness-millis}.
+ * Everything else, on {@code /v1} and {@code /v2} alike, including reads of state that is not replicated such as
+ * transaction history, is refused. {@link com.dws.challenge.service.AccountsService} refuses writes on a replica
+ * as well, so they are also turned away when the API runs on the reactive stack.
+ */
+@Configuration
+@ConditionalOnProperty(name = "replication.role", havingValue = "replica")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ReplicaWebConfiguration implements WebMvcConfigurer {
+
+    public static final String STALENESS_HEADER = "X-Replica-Staleness-Millis";
+
+    private static final PathMatcher PATHS = new AntPathMatcher();
+
+    private final ChangeStreamReplica changeStreamReplica;
+
+    private final long maxStalenessMillis;
+
+    public ReplicaWebConfiguration(ChangeStreamReplica changeStreamReplica,
+                                   @Value("${replication.max-staleness-millis:5000}") long maxStalenessMillis) {
+        this.changeStreamReplica = changeStreamReplica;
+        this.maxStalenessMillis = maxStalenessMillis;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                String path = request.getRequestURI().substring(request.getContextPath().length());
+                if (!HttpMethod.GET.matches(request.getMethod()) || !path.equals("/v1/accounts")
+                        && !PATHS.match("/v1/accounts/*", path) && !PATHS.match("/v2/accounts/*", path)) {
+                    throw new ReadOnlyReplicaException("Read-only replica, send this request to the primary.");
+                }
+                long staleness = changeStreamReplica.getStalenessMillis();
+                response.setHeader(STALENESS_HEADER, Long.toString(staleness));
+                if (staleness < 0) {
+                    throw new StaleReplicaException("Replica has not received the change stream yet.");
+                }
+                if (staleness > maxStalenessMillis) {
+                    throw new StaleReplicaException("Replica is " + staleness + " ms behind the primary, more than "
+                            + maxStalenessMillis + " ms.");
+                }
+                return true;
+            }
+        }).addPathPatterns("/**").excludePathPatterns("/error", "/actuator/**");
+    }
+}
@@ -0,0 +1,43 @@
+package com.dws.challenge.replication;
+
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.service.AccountFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * {@code replication.role=primary} publishes the change stream, {@code replication.role=replica} follows it;
+ * {@code replication.file} switches both from the socket to a shared file.
+ */
+@Configuration
+public class ReplicationConfiguration {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "replication.role", havingValue = "primary")
+    public ChangeStreamPublisher changeStreamPublisher(AccountsRepository accountsRepository,
+                                                      @Value("${replication.port:18082}") int port,
+                                                      @Value("${replication.file:}") String file,
+                                                      @Value("${replication.batch-millis:50}") long batchMillis,
+                                                      @Value("${replication.heartbeat-millis:1000}") long heartbeatMillis,
+                                                      @Value("${replication.max-pending-batches:256}") int maxPendingBatches)
+            throws IOException {
+        return new ChangeStreamPublisher(accountsRepository, file.isEmpty() ? port : -1,
+                file.isEmpty() ? null : Path.of(file), batchMillis, heartbeatMillis, maxPendingBatches);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "replication.role", havingValue = "replica")
+    public ChangeStreamReplica changeStreamReplica(AccountsRepository accountsRepository, AccountFactory accountFactory,
+                                                  @Value("${replication.host:localhost}") String host,
+                                                  @Value("${replication.port:18082}") int port,
+                                                  @Value("${replication.file:}") String file,
+                                                  @Value("${replication.heartbeat-millis:1000}") long retryMillis) {
+        return new ChangeStreamReplica(accountsRepository, accountFactory, host, port,
+                file.isEmpty() ? null : Path.of(file), retryMillis);
+    }
+}
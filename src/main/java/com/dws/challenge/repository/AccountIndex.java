@@ -0,0 +1,169 @@
+package com.dws.challenge.repository;
+
+import com.dws.challenge.domain.Account;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Accounts stored by dense {@code int} handle, given in creation order, with an open-addressing index from
+ * account id to handle. The index is two primitive arrays probed linearly, one with the id hash of each slot
+ * and one with the handle stored in it, so a lookup compares ints and only calls {@code equals} on a hash
+ * match, and an account costs a few array cells instead of a map node.
+ * <p>
+ * Lookups take no lock: a writer fills in the hash and the account before publishing the handle with a release
+ * store, and a resize publishes a new table. Inserts are serialized by one lock.
+ */
+final class AccountIndex {
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private static final int MAX_SLOTS = 1 << 30;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile Table table = new Table(16);
+
+    // Guarded by lock.
+    private int size;
+
+    Account get(String accountId) {
+        Table current = table;
+        int hash = spread(accountId.hashCode());
+        for (int slot = hash & current.mask; ; slot = (slot + 1) & current.mask) {
+            int handle = (int) SLOTS.getAcquire(current.slots, slot) - 1;
+            if (handle < 0) {
+                return null;
+            }
+            if (current.hashes[slot] == hash) {
+                Account account = current.accounts[handle];
+                if (account.getAccountId().equals(accountId)) {
+                    return account;
+                }
+            }
+        }
+    }
+
+    /**
+     * Method to store an account under the next handle, which is also set on the account
+     *
+     * @return false if the id is already taken
+     */
+    boolean add(Account account) {
+        lock.lock();
+        try {
+            return insert(account);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean[] addAll(List<Account> accounts) {
+        boolean[] added = new boolean[accounts.size()];
+        lock.lock();
+        try {
+            for (int i = 0; i < added.length; i++) {
+                added[i] = insert(accounts.get(i));
+            }
+        } finally {
+            lock.unlock();
+        }
+        return added;
+    }
+
+    /**
+     * Method to visit the accounts of the current table without taking the lock; accounts added meanwhile may
+     * be missed
+     */
+    void forEach(Consumer<Account> action) {
+        Table current = table;
+        for (int slot = 0; slot < current.slots.length; slot++) {
+            int handle = (int) SLOTS.getAcquire(current.slots, slot) - 1;
+            if (handle >= 0) {
+                action.accept(current.accounts[handle]);
+            }
+        }
+    }
+
+    void clear() {
+        lock.lock();
+        try {
+            table = new Table(16);
+            size = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean insert(Account account) {
+        Table current = table;
+        int hash = spread(account.getAccountId().hashCode());
+        int slot = hash & current.mask;
+        for (int handle; (handle = current.slots[slot] - 1) >= 0; slot = (slot + 1) & current.mask) {
+            if (current.hashes[slot] == hash && current.accounts[handle].getAccountId().equals(account.getAccountId())) {
+                return false;
+            }
+        }
+        if (size == current.accounts.length) {
+            current = resize(current);
+            slot = hash & current.mask;
+            while (current.slots[slot] != 0) {
+                slot = (slot + 1) & current.mask;
+            }
+        }
+        int handle = size++;
+        account.setHandle(handle);
+        current.accounts[handle] = account;
+        current.hashes[slot] = hash;
+        SLOTS.setRelease(current.slots, slot, handle + 1);
+        return true;
+    }
+
+    private Table resize(Table current) {
+        if (current.slots.length == MAX_SLOTS) {
+            throw new IllegalStateException("Account index is full.");
+        }
+        Table resized = new Table(current.slots.length * 2);
+        System.arraycopy(current.accounts, 0, resized.accounts, 0, size);
+        for (int slot = 0; slot < current.slots.length; slot++) {
+            if (current.slots[slot] != 0) {
+                int target = current.hashes[slot] & resized.mask;
+                while (resized.slots[target] != 0) {
+                    target = (target + 1) & resized.mask;
+                }
+                resized.hashes[target] = current.hashes[slot];
+                resized.slots[target] = current.slots[slot];
+            }
+        }
+        table = resized;
+        return resized;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Slots hold {@code handle + 1}, 0 marking an empty slot; at most half of them are used.
+     */
+    private static final class Table {
+
+        final int[] slots;
+
+        final int[] hashes;
+
+        final Account[] accounts;
+
+        final int mask;
+
+        Table(int capacity) {
+            this.slots = new int[capacity];
+            this.hashes = new int[capacity];
+            this.accounts = new Account[capacity / 2];
+            this.mask = capacity - 1;
+        }
+    }
+}
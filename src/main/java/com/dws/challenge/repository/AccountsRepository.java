@@ -3,11 +3,41 @@ package com.dws.challenge.repository;
 import com.dws.challenge.domain.Account;
 import com.dws.challenge.exception.DuplicateAccountIdException;
 
+import java.util.List;
+import java.util.function.Consumer;
+
 public interface AccountsRepository {
 
   void createAccount(Account account) throws DuplicateAccountIdException;
 
+  /**
+   * Inserts a batch of accounts, skipping ids that already exist instead of throwing.
+   *
+   * @return per account, false if its id was already taken
+   */
+  boolean[] createAccounts(List<Account> accounts);
+
   Account getAccount(String accountId);
 
+  /**
+   * Looks an account up in order to change its balance. Repositories that move idle accounts out of memory
+   * keep the returned object in place until it is passed to {@link #releaseAccount(Account)}, so no update
+   * made through it is lost.
+   *
+   * @return the account, or null if it does not exist
+   */
+  default Account acquireAccount(String accountId) {
+    return getAccount(accountId);
+  }
+
+  default void releaseAccount(Account account) {
+  }
+
+  /**
+   * Visits every account, e.g. to snapshot the balances. Accounts created while the visit runs may be missed, and
+   * the objects passed are only for reading.
+   */
+  void forEachAccount(Consumer<Account> action);
+
   void clearAccounts();
 }
@@ -2,30 +2,44 @@ package com.dws.challenge.repository;
 
 import com.dws.challenge.domain.Account;
 import com.dws.challenge.exception.DuplicateAccountIdException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
+import java.util.function.Consumer;
 
+/**
+ * Accounts on the heap, each given a dense handle when created (see {@link AccountIndex}).
+ */
 @Repository
+@ConditionalOnProperty(name = "accounts.tiered.enabled", havingValue = "false", matchIfMissing = true)
 public class AccountsRepositoryInMemory implements AccountsRepository {
 
-    private final Map<String, Account> accounts = new ConcurrentHashMap<>();
+    private final AccountIndex accounts = new AccountIndex();
 
     @Override
     public void createAccount(Account account) throws DuplicateAccountIdException {
-        Account previousAccount = accounts.putIfAbsent(account.getAccountId(), account);
-        if (previousAccount != null) {
+        if (!accounts.add(account)) {
             throw new DuplicateAccountIdException(
                     "Account id " + account.getAccountId() + " already exists!");
         }
     }
 
+    @Override
+    public boolean[] createAccounts(List<Account> accounts) {
+        return this.accounts.addAll(accounts);
+    }
+
     @Override
     public Account getAccount(String accountId) {
         return accounts.get(accountId);
     }
 
+    @Override
+    public void forEachAccount(Consumer<Account> action) {
+        accounts.forEach(action);
+    }
+
     @Override
     public void clearAccounts() {
         accounts.clear();
@@ -0,0 +1,343 @@
+package com.dws.challenge.repository;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.FixedPointAccount;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Open-addressing hash table of accounts kept in direct buffers, outside the Java heap. Each account takes
+ * one fixed 64 byte slot: {@code [int hash][byte state][byte id length][byte scale][byte kind][long unscaled balance]
+ * [3 bytes currency][pad][40 bytes UTF-8 id]}, found by linear probing from its id hash. The kind records whether
+ * the account is a plain {@link Account} or a {@link FixedPointAccount}, whose minor units and scale are the
+ * unscaled balance and scale, so it comes back out as the same type. Accounts that do not fit a slot (see
+ * {@link #fits}) are never stored here. Every operation takes one lock; the table only sees
+ * promotions and demotions, not the transfers themselves.
+ */
+final class OffHeapAccountTable {
+
+    static final int SLOT_SIZE = 64;
+
+    static final int MAX_ID_BYTES = 40;
+
+    private static final int SLOTS_PER_BUFFER = 1 << 24;
+
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private static final byte EMPTY = 0;
+
+    private static final byte USED = 1;
+
+    private static final byte REMOVED = 2;
+
+    private static final byte PLAIN = 0;
+
+    private static final byte FIXED_POINT = 1;
+
+    private static final int HASH = 0;
+
+    private static final int STATE = 4;
+
+    private static final int ID_LENGTH = 5;
+
+    private static final int SCALE = 6;
+
+    private static final int KIND = 7;
+
+    private static final int UNSCALED = 8;
+
+    private static final int CURRENCY = 16;
+
+    private static final int ID = 24;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Guarded by lock.
+    private ByteBuffer[] buffers;
+
+    private int mask;
+
+    private int size;
+
+    private int removed;
+
+    OffHeapAccountTable(int initialCapacity) {
+        allocate(Math.max(16, Integer.highestOneBit(Math.max(initialCapacity, 2) - 1) << 1));
+    }
+
+    /**
+     * Method to tell whether an account can be stored in a slot: a plain {@link Account} or a
+     * {@link FixedPointAccount} with a short id, a three letter currency and a balance whose unscaled value fits a
+     * {@code long}. A {@link com.dws.challenge.domain.SplitAccount} never does, it is meant to stay hot.
+     */
+    static boolean fits(Account account) {
+        if (account.getAccountId().length() > MAX_ID_BYTES) {
+            return false;
+        }
+        String currency = account.getCurrency();
+        if (currency != null && (currency.length() != 3 || !isAscii(currency))) {
+            return false;
+        }
+        if (account.getClass() == FixedPointAccount.class) {
+            int scale = ((FixedPointAccount) account).getScale();
+            return scale >= Byte.MIN_VALUE && scale <= Byte.MAX_VALUE
+                    && account.getAccountId().getBytes(StandardCharsets.UTF_8).length <= MAX_ID_BYTES;
+        }
+        if (account.getClass() != Account.class) {
+            return false;
+        }
+        BigDecimal balance = account.getBalance();
+        return balance.scale() >= Byte.MIN_VALUE && balance.scale() <= Byte.MAX_VALUE
+                && balance.unscaledValue().bitLength() < Long.SIZE
+                && account.getAccountId().getBytes(StandardCharsets.UTF_8).length <= MAX_ID_BYTES;
+    }
+
+    /**
+     * Method to store an account that {@link #fits}
+     *
+     * @return false if an account with the same id is already stored
+     */
+    boolean put(Account account) {
+        byte[] id = account.getAccountId().getBytes(StandardCharsets.UTF_8);
+        int hash = hash(id);
+        lock.lock();
+        try {
+            if (find(id, hash) >= 0) {
+                return false;
+            }
+            if (size + removed + 1 > (mask + 1L) * 3 / 4) {
+                resize();
+            }
+            write(insertionSlot(hash), id, hash, account);
+            size++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Method to take an account out of the table
+     *
+     * @return a new on-heap copy of the account, or null if it is not stored
+     */
+    Account remove(String accountId) {
+        byte[] id = accountId.getBytes(StandardCharsets.UTF_8);
+        lock.lock();
+        try {
+            int slot = find(id, hash(id));
+            if (slot < 0) {
+                return null;
+            }
+            Account account = read(slot, accountId);
+            buffer(slot).put(offset(slot) + STATE, REMOVED);
+            size--;
+            removed++;
+            return account;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Method to visit an on-heap copy of every stored account. The lock is held throughout, so the action must
+     * not call back into the table.
+     */
+    void forEach(Consumer<Account> action) {
+        lock.lock();
+        try {
+            for (int slot = 0; slot <= mask; slot++) {
+                ByteBuffer buffer = buffer(slot);
+                int offset = offset(slot);
+                if (buffer.get(offset + STATE) == USED) {
+                    byte[] id = new byte[buffer.get(offset + ID_LENGTH)];
+                    buffer.get(offset + ID, id);
+                    action.accept(read(slot, new String(id, StandardCharsets.UTF_8)));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean contains(String accountId) {
+        byte[] id = accountId.getBytes(StandardCharsets.UTF_8);
+        lock.lock();
+        try {
+            return find(id, hash(id)) >= 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long offHeapBytes() {
+        lock.lock();
+        try {
+            return (mask + 1L) * SLOT_SIZE;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void clear() {
+        lock.lock();
+        try {
+            allocate(mask + 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Called with lock held.
+    private int find(byte[] id, int hash) {
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            ByteBuffer buffer = buffer(slot);
+            int offset = offset(slot);
+            byte state = buffer.get(offset + STATE);
+            if (state == EMPTY) {
+                return -1;
+            }
+            if (state == USED && buffer.getInt(offset + HASH) == hash && idEquals(buffer, offset, id)) {
+                return slot;
+            }
+        }
+    }
+
+    // Called with lock held, after find() has established the id is absent.
+    private int insertionSlot(int hash) {
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            byte state = buffer(slot).get(offset(slot) + STATE);
+            if (state != USED) {
+                if (state == REMOVED) {
+                    removed--;
+                }
+                return slot;
+            }
+        }
+    }
+
+    private Account read(int slot, String accountId) {
+        ByteBuffer buffer = buffer(slot);
+        int offset = offset(slot);
+        long unscaled = buffer.getLong(offset + UNSCALED);
+        int scale = buffer.get(offset + SCALE);
+        String currency = null;
+        if (buffer.get(offset + CURRENCY) != 0) {
+            byte[] code = new byte[3];
+            buffer.get(offset + CURRENCY, code);
+            currency = new String(code, StandardCharsets.US_ASCII);
+        }
+        if (buffer.get(offset + KIND) == FIXED_POINT) {
+            return new FixedPointAccount(accountId, currency, unscaled, scale);
+        }
+        return new Account(accountId, BigDecimal.valueOf(unscaled, scale), currency);
+    }
+
+    private void write(int slot, byte[] id, int hash, Account account) {
+        ByteBuffer buffer = buffer(slot);
+        int offset = offset(slot);
+        buffer.putInt(offset + HASH, hash);
+        buffer.put(offset + ID_LENGTH, (byte) id.length);
+        if (account instanceof FixedPointAccount fixedPoint) {
+            buffer.put(offset + KIND, FIXED_POINT);
+            buffer.put(offset + SCALE, (byte) fixedPoint.getScale());
+            buffer.putLong(offset + UNSCALED, fixedPoint.getBalanceMinorUnits());
+        } else {
+            BigDecimal balance = account.getBalance();
+            buffer.put(offset + KIND, PLAIN);
+            buffer.put(offset + SCALE, (byte) balance.scale());
+            buffer.putLong(offset + UNSCALED, balance.unscaledValue().longValue());
+        }
+        if (account.getCurrency() == null) {
+            buffer.put(offset + CURRENCY, (byte) 0);
+        } else {
+            buffer.put(offset + CURRENCY, account.getCurrency().getBytes(StandardCharsets.US_ASCII));
+        }
+        buffer.put(offset + ID, id);
+        // State last, so a half-written slot is never matched.
+        buffer.put(offset + STATE, USED);
+    }
+
+    private void resize() {
+        int capacity = mask + 1;
+        // Grow when live slots fill half the table, otherwise rehash in place to drop removed slots.
+        int newCapacity = (size + 1) * 2L > capacity ? capacity * 2 : capacity;
+        if (newCapacity > MAX_CAPACITY) {
+            throw new IllegalStateException("Off-heap account table is full.");
+        }
+        ByteBuffer[] old = buffers;
+        int oldCapacity = capacity;
+        allocate(newCapacity);
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            ByteBuffer buffer = old[slot / SLOTS_PER_BUFFER];
+            int offset = (slot % SLOTS_PER_BUFFER) * SLOT_SIZE;
+            if (buffer.get(offset + STATE) == USED) {
+                int target = insertionSlot(buffer.getInt(offset + HASH));
+                buffer(target).put(offset(target), buffer, offset, SLOT_SIZE);
+                size++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        int slotsPerBuffer = Math.min(capacity, SLOTS_PER_BUFFER);
+        buffers = new ByteBuffer[capacity / slotsPerBuffer];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = ByteBuffer.allocateDirect(slotsPerBuffer * SLOT_SIZE);
+        }
+        mask = capacity - 1;
+        size = 0;
+        removed = 0;
+    }
+
+    private ByteBuffer buffer(int slot) {
+        return buffers[slot / SLOTS_PER_BUFFER];
+    }
+
+    private static int offset(int slot) {
+        return (slot % SLOTS_PER_BUFFER) * SLOT_SIZE;
+    }
+
+    private static boolean idEquals(ByteBuffer buffer, int offset, byte[] id) {
+        if (buffer.get(offset + ID_LENGTH) != id.length) {
+            return false;
+        }
+        for (int i = 0; i < id.length; i++) {
+            if (buffer.get(offset + ID + i) != id[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(byte[] id) {
+        int h = 1;
+        for (byte b : id) {
+            h = 31 * h + b;
+        }
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
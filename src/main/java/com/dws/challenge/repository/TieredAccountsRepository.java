@@ -0,0 +1,319 @@
+package com.dws.challenge.repository;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Two-tier repository for large, mostly dormant account sets. Recently used accounts are on-heap
+ * {@link Account} objects; the rest sit in an {@link OffHeapAccountTable} and cost no heap at all.
+ * <p>
+ * Accounts created in bulk go straight to the cold tier and are materialized on first access. A sweeper
+ * keeps the hot tier near {@code accounts.tiered.hot-capacity} with the CLOCK policy: every access sets the
+ * account's reference bit, and the sweeper's hand clears set bits and demotes accounts whose bit is
+ * already clear. An account acquired for a balance change is pinned and never demoted until released,
+ * so an update can never land on an object that has already been copied out.
+ * <p>
+ * Lock order is always a hot map bin before the cold table, so promotion, demotion and creation of the
+ * same id are serialized by the map alone.
+ */
+@Repository
+@ConditionalOnProperty(name = "accounts.tiered.enabled", havingValue = "true")
+@Slf4j
+public class TieredAccountsRepository implements AccountsRepository, AutoCloseable {
+
+    private final ConcurrentHashMap<String, HotSlot> hot = new ConcurrentHashMap<>();
+
+    private final OffHeapAccountTable cold;
+
+    private final int hotCapacity;
+
+    private final LongAdder promotions = new LongAdder();
+
+    private final LongAdder demotions = new LongAdder();
+
+    private final ScheduledExecutorService sweeper;
+
+    // Guarded by this, only used by demoteIdle().
+    private Iterator<HotSlot> hand;
+
+    public TieredAccountsRepository(int hotCapacity, int coldCapacity) {
+        this(hotCapacity, coldCapacity, 0);
+    }
+
+    @Autowired
+    public TieredAccountsRepository(@Value("${accounts.tiered.hot-capacity:100000}") int hotCapacity,
+                                    @Value("${accounts.tiered.cold-capacity:1048576}") int coldCapacity,
+                                    @Value("${accounts.tiered.sweep-millis:100}") long sweepMillis) {
+        if (hotCapacity < 0) {
+            throw new IllegalArgumentException("Hot capacity must not be negative.");
+        }
+        this.hotCapacity = hotCapacity;
+        this.cold = new OffHeapAccountTable(coldCapacity);
+        if (sweepMillis > 0) {
+            this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "account-tier-sweeper");
+                thread.setDaemon(true);
+                return thread;
+            });
+            sweeper.scheduleWithFixedDelay(this::demoteQuietly, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.sweeper = null;
+        }
+    }
+
+    @Override
+    public void createAccount(Account account) throws DuplicateAccountIdException {
+        boolean[] duplicate = new boolean[1];
+        hot.compute(account.getAccountId(), (accountId, existing) -> {
+            if (existing != null || cold.contains(accountId)) {
+                duplicate[0] = true;
+                return existing;
+            }
+            return new HotSlot(account);
+        });
+        if (duplicate[0]) {
+            throw new DuplicateAccountIdException("Account id " + account.getAccountId() + " already exists!");
+        }
+    }
+
+    /**
+     * Stores the accounts in the cold tier, except those that do not fit a cold slot.
+     */
+    @Override
+    public boolean[] createAccounts(List<Account> accounts) {
+        boolean[] created = new boolean[accounts.size()];
+        for (int i = 0; i < created.length; i++) {
+            Account account = accounts.get(i);
+            int index = i;
+            hot.compute(account.getAccountId(), (accountId, existing) -> {
+                if (existing != null) {
+                    return existing;
+                }
+                if (OffHeapAccountTable.fits(account)) {
+                    created[index] = cold.put(account);
+                    return null;
+                }
+                if (cold.contains(accountId)) {
+                    return null;
+                }
+                created[index] = true;
+                return new HotSlot(account);
+            });
+        }
+        return created;
+    }
+
+    /**
+     * Promotes a cold account. The object returned is only for reading; use {@link #acquireAccount} to change
+     * the balance.
+     */
+    @Override
+    public Account getAccount(String accountId) {
+        HotSlot slot = slotOf(accountId);
+        return slot == null ? null : slot.account;
+    }
+
+    @Override
+    public Account acquireAccount(String accountId) {
+        while (true) {
+            HotSlot slot = slotOf(accountId);
+            if (slot == null) {
+                return null;
+            }
+            if (slot.tryPin()) {
+                return slot.account;
+            }
+            // Being demoted right now; once it is in the cold tier the next pass promotes it again.
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public void releaseAccount(Account account) {
+        HotSlot slot = hot.get(account.getAccountId());
+        if (slot != null && slot.account == account) {
+            slot.unpin();
+        }
+    }
+
+    /**
+     * Visits copies of the cold accounts, then the hot ones, without promoting any. Demotion waits until the
+     * visit is over, so an account can only move to the hot tier meanwhile and is then seen at least once.
+     */
+    @Override
+    public synchronized void forEachAccount(Consumer<Account> action) {
+        cold.forEach(action);
+        for (HotSlot slot : hot.values()) {
+            action.accept(slot.account);
+        }
+    }
+
+    @Override
+    public void clearAccounts() {
+        hot.clear();
+        cold.clear();
+    }
+
+    /**
+     * Runs the CLOCK hand until the hot tier is back at its capacity or every account has been looked at twice.
+     *
+     * @return number of accounts moved to the cold tier
+     */
+    public synchronized int demoteIdle() {
+        int excess = hot.size() - hotCapacity;
+        int demoted = 0;
+        long budget = 2L * hot.size();
+        while (demoted < excess && budget-- > 0) {
+            if (hand == null || !hand.hasNext()) {
+                hand = hot.values().iterator();
+                if (!hand.hasNext()) {
+                    break;
+                }
+            }
+            HotSlot slot = hand.next();
+            if (slot.referenced) {
+                slot.referenced = false;
+            } else if (demote(slot)) {
+                demoted++;
+            }
+        }
+        if (demoted > 0) {
+            demotions.add(demoted);
+            log.debug("Demoted {} idle account(s), {} hot and {} cold", demoted, hot.size(), cold.size());
+        }
+        return demoted;
+    }
+
+    public int getHotCount() {
+        return hot.size();
+    }
+
+    public int getColdCount() {
+        return cold.size();
+    }
+
+    public long getColdBytes() {
+        return cold.offHeapBytes();
+    }
+
+    public long getPromotionCount() {
+        return promotions.sum();
+    }
+
+    public long getDemotionCount() {
+        return demotions.sum();
+    }
+
+    @Override
+    public void close() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    private HotSlot slotOf(String accountId) {
+        HotSlot slot = hot.get(accountId);
+        if (slot == null) {
+            slot = hot.computeIfAbsent(accountId, id -> {
+                Account account = cold.remove(id);
+                if (account == null) {
+                    return null;
+                }
+                promotions.increment();
+                return new HotSlot(account);
+            });
+            if (slot == null) {
+                return null;
+            }
+        }
+        if (!slot.referenced) {
+            slot.referenced = true;
+        }
+        return slot;
+    }
+
+    private boolean demote(HotSlot slot) {
+        Account account = slot.account;
+        // Retiring first freezes the balance: no pinned writer is left and none can start.
+        if (!slot.tryRetire()) {
+            return false;
+        }
+        boolean[] moved = new boolean[1];
+        if (OffHeapAccountTable.fits(account)) {
+            hot.computeIfPresent(account.getAccountId(), (accountId, current) -> {
+                if (current != slot) {
+                    return current;
+                }
+                moved[0] = cold.put(account);
+                return moved[0] ? null : current;
+            });
+        }
+        if (!moved[0]) {
+            slot.unretire();
+        }
+        return moved[0];
+    }
+
+    private void demoteQuietly() {
+        try {
+            demoteIdle();
+        } catch (RuntimeException e) {
+            log.error("Failed to demote idle accounts", e);
+        }
+    }
+
+    private static final class HotSlot {
+
+        private static final AtomicIntegerFieldUpdater<HotSlot> PINS =
+                AtomicIntegerFieldUpdater.newUpdater(HotSlot.class, "pins");
+
+        private final Account account;
+
+        // Number of holders changing the balance, or -1 while the account is being demoted.
+        private volatile int pins;
+
+        private volatile boolean referenced = true;
+
+        HotSlot(Account account) {
+            this.account = account;
+        }
+
+        boolean tryPin() {
+            int current;
+            do {
+                current = pins;
+                if (current < 0) {
+                    return false;
+                }
+            } while (!PINS.compareAndSet(this, current, current + 1));
+            return true;
+        }
+
+        void unpin() {
+            PINS.decrementAndGet(this);
+        }
+
+        boolean tryRetire() {
+            return PINS.compareAndSet(this, 0, -1);
+        }
+
+        void unretire() {
+            pins = 0;
+        }
+    }
+}
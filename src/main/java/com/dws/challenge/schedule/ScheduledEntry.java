@@ -0,0 +1,38 @@
+package com.dws.challenge.schedule;
+
+import com.dws.challenge.domain.ScheduledTransfer;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pending scheduled transfer as held by {@link ScheduledTransferService} and {@link ScheduledTransferStore}.
+ *
+ * @param intervalMillis 0 for a one-off transfer
+ * @param remaining      runs left including the next one, or {@link #UNLIMITED}
+ * @param handle         {@link TimingWheel} handle, not persisted
+ */
+record ScheduledEntry(long id, String accountFrom, String accountTo, BigDecimal amount, String currency,
+                      long dueMillis, long intervalMillis, int remaining, int handle) {
+
+    static final int UNLIMITED = -1;
+
+    ScheduledEntry withDue(long dueMillis, int remaining) {
+        return new ScheduledEntry(id, accountFrom, accountTo, amount, currency, dueMillis, intervalMillis, remaining, handle);
+    }
+
+    ScheduledEntry withHandle(int handle) {
+        return new ScheduledEntry(id, accountFrom, accountTo, amount, currency, dueMillis, intervalMillis, remaining, handle);
+    }
+
+    boolean matches(String accountId) {
+        return accountId == null || accountId.equals(accountFrom) || accountId.equals(accountTo);
+    }
+
+    ScheduledTransfer toView() {
+        return new ScheduledTransfer(id, accountFrom, accountTo, amount, currency, Instant.ofEpochMilli(dueMillis),
+                intervalMillis == 0 ? null : TimeUnit.MILLISECONDS.toSeconds(intervalMillis),
+                remaining == UNLIMITED ? null : remaining);
+    }
+}
@@ -0,0 +1,361 @@
+package com.dws.challenge.schedule;
+
+import com.dws.challenge.domain.BatchTransferMode;
+import com.dws.challenge.domain.BatchTransferResponse;
+import com.dws.challenge.domain.FundTransferRequest;
+import com.dws.challenge.domain.ScheduledTransfer;
+import com.dws.challenge.domain.ScheduledTransferRequest;
+import com.dws.challenge.domain.TransferItemResult;
+import com.dws.challenge.domain.TransferStatus;
+import com.dws.challenge.exception.ReadOnlyReplicaException;
+import com.dws.challenge.service.AccountsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs transfers at a future time, once or on a fixed interval (standing orders, payroll). Pending transfers sit
+ * in one {@link TimingWheel} instead of a timer task each, so millions of them cost no threads. A single ticker
+ * thread advances the wheel every {@code transfer.scheduled.tick-millis} and hands the due transfers to
+ * {@link AccountsService#transferBatch} sorted by account, so transfers between the same two accounts share one
+ * lock acquisition. A transfer never runs before its time, and at most one tick after it.
+ * <p>
+ * The details of each pending transfer sit in a map by id, which also serves listing in id order. With the map
+ * node, the boxed id, the entry record and its amount, a pending transfer costs roughly 250 bytes of heap
+ * besides its account id strings, so ten million of them need a few gigabytes.
+ * <p>
+ * With {@code transfer.scheduled.directory} set, every change goes to a {@link ScheduledTransferStore}. A run is
+ * recorded and forced before it executes, so a crash in between skips that run rather than repeating it: a
+ * debit taken twice is worse than a missed one the client can schedule again. A recurring transfer that missed
+ * runs while the service was down runs once and then keeps to its interval.
+ * <p>
+ * On a read replica there is no ticker and transfers can be neither scheduled nor cancelled, the primary runs them.
+ */
+@Component
+@Slf4j
+public class ScheduledTransferService implements AutoCloseable {
+
+    private static final String ACCOUNT_NOT_FOUND = "One or both account(s) not found.";
+
+    private final AccountsService accountsService;
+
+    private final ScheduledTransferStore store;
+
+    private final long tickMillis;
+
+    private final int batchSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Guarded by lock.
+    private final TimingWheel wheel;
+
+    // Guarded by lock.
+    private final NavigableMap<Long, ScheduledEntry> pending = new TreeMap<>();
+
+    // Guarded by lock.
+    private long nextId;
+
+    private final LongAdder executed = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final ScheduledExecutorService ticker;
+
+    /**
+     * Scheduler without a ticker thread, transfers only run when {@link #fireDue} is called.
+     *
+     * @param store where to keep pending transfers, or null to keep them in memory only
+     */
+    public ScheduledTransferService(AccountsService accountsService, ScheduledTransferStore store, long tickMillis,
+                             int batchSize) {
+        this(accountsService, store, tickMillis, batchSize, false);
+    }
+
+    @Autowired
+    public ScheduledTransferService(AccountsService accountsService,
+                             @Value("${transfer.scheduled.directory:}") String directory,
+                             @Value("${transfer.scheduled.tick-millis:1000}") long tickMillis,
+                             @Value("${transfer.scheduled.batch-size:1000}") int batchSize) throws IOException {
+        this(accountsService, directory.isEmpty() ? null : new ScheduledTransferStore(Path.of(directory)), tickMillis,
+                batchSize, true);
+    }
+
+    private ScheduledTransferService(AccountsService accountsService, ScheduledTransferStore store, long tickMillis,
+                              int batchSize, boolean tick) {
+        if (tickMillis <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Tick and batch size must be greater than zero.");
+        }
+        this.accountsService = accountsService;
+        this.store = store;
+        this.tickMillis = tickMillis;
+        this.batchSize = batchSize;
+        this.wheel = new TimingWheel(Math.floorDiv(System.currentTimeMillis(), tickMillis), 1024);
+        if (store == null) {
+            this.nextId = 1;
+            log.info("Scheduled transfers are kept in memory only, set transfer.scheduled.directory to keep them");
+        } else {
+            this.nextId = store.nextId();
+            for (ScheduledEntry entry : store.recovered()) {
+                pending.put(entry.id(), entry.withHandle(wheel.schedule(entry.id(), dueTick(entry.dueMillis()))));
+            }
+        }
+        if (tick && !accountsService.isReadOnly()) {
+            this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "transfer-scheduler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            ticker.scheduleAtFixedRate(this::fireQuietly, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.ticker = null;
+        }
+    }
+
+    /**
+     * Method to schedule a transfer, one due in the past runs on the next tick
+     *
+     * @throws IllegalArgumentException if the request is incomplete or an account does not exist
+     */
+    public ScheduledTransfer schedule(ScheduledTransferRequest request) {
+        checkWritable();
+        if (request.getAmount() == null || request.getAmount().signum() <= 0) {
+            throw new IllegalArgumentException("Amount must be greater than zero.");
+        }
+        if (request.getExecuteAt() == null) {
+            throw new IllegalArgumentException("Execution time must be given.");
+        }
+        if (request.getExecutions() != null && request.getIntervalSeconds() == null) {
+            throw new IllegalArgumentException("Executions can only be limited for a recurring transfer.");
+        }
+        if (request.getAccountFrom() == null || request.getAccountTo() == null
+                || accountsService.getAccount(request.getAccountFrom()) == null
+                || accountsService.getAccount(request.getAccountTo()) == null) {
+            throw new IllegalArgumentException(ACCOUNT_NOT_FOUND);
+        }
+        long intervalMillis = request.getIntervalSeconds() == null
+                ? 0 : TimeUnit.SECONDS.toMillis(request.getIntervalSeconds());
+        int remaining = intervalMillis == 0 ? 1
+                : request.getExecutions() == null ? ScheduledEntry.UNLIMITED : request.getExecutions();
+
+        ScheduledEntry entry;
+        lock.lock();
+        try {
+            entry = new ScheduledEntry(nextId++, request.getAccountFrom(), request.getAccountTo(), request.getAmount(),
+                    request.getCurrency(), request.getExecuteAt().toEpochMilli(), intervalMillis, remaining, -1);
+            if (store != null) {
+                store.scheduled(entry);
+            }
+            pending.put(entry.id(), entry.withHandle(wheel.schedule(entry.id(), dueTick(entry.dueMillis()))));
+        } finally {
+            lock.unlock();
+        }
+        if (store != null) {
+            store.force();
+        }
+        log.info("Scheduled transfer {} from={} to={} amount={} at {}", entry.id(), entry.accountFrom(),
+                entry.accountTo(), entry.amount(), request.getExecuteAt());
+        return entry.toView();
+    }
+
+    /**
+     * @return false if there is no pending transfer with the id
+     */
+    public boolean cancel(long id) {
+        checkWritable();
+        lock.lock();
+        try {
+            ScheduledEntry entry = pending.remove(id);
+            if (entry == null) {
+                return false;
+            }
+            wheel.cancel(entry.handle());
+            if (store != null) {
+                store.cancelled(id);
+                compactIfDue();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (store != null) {
+            store.force();
+        }
+        log.info("Cancelled scheduled transfer {}", id);
+        return true;
+    }
+
+    /**
+     * @return the pending transfer, or null if it has completed, been cancelled or never existed
+     */
+    public ScheduledTransfer get(long id) {
+        lock.lock();
+        try {
+            ScheduledEntry entry = pending.get(id);
+            return entry == null ? null : entry.toView();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param accountId only transfers from or to this account, or null for all
+     * @return pending transfers in id order
+     */
+    public List<ScheduledTransfer> list(String accountId, long afterId, int limit) {
+        List<ScheduledTransfer> views = new ArrayList<>(Math.min(limit, 1024));
+        lock.lock();
+        try {
+            for (ScheduledEntry entry : pending.tailMap(afterId, false).values()) {
+                if (views.size() == limit) {
+                    break;
+                }
+                if (entry.matches(accountId)) {
+                    views.add(entry.toView());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return views;
+    }
+
+    /**
+     * Method to run every transfer due up to the given time
+     *
+     * @return number of transfers run, successfully or not
+     */
+    public int fireDue(long nowMillis) {
+        List<ScheduledEntry> due = new ArrayList<>();
+        lock.lock();
+        try {
+            wheel.advanceTo(Math.floorDiv(nowMillis, tickMillis), id -> due.add(pending.get(id)));
+            for (ScheduledEntry entry : due) {
+                advance(entry, nowMillis);
+            }
+            if (store != null) {
+                compactIfDue();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (due.isEmpty()) {
+            return 0;
+        }
+        if (store != null) {
+            store.force();
+        }
+        execute(due);
+        return due.size();
+    }
+
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getExecutedCount() {
+        return executed.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    private void checkWritable() {
+        if (accountsService.isReadOnly()) {
+            throw new ReadOnlyReplicaException("Read-only replica, send this request to the primary.");
+        }
+    }
+
+    // Called with lock held. Also forces the records written so far, so it may run before the caller's force.
+    private void compactIfDue() {
+        if (store.compactionDue(pending.size())) {
+            store.compact(nextId, pending.values());
+        }
+    }
+
+    // Called with lock held, once the entry has left the wheel.
+    private void advance(ScheduledEntry entry, long nowMillis) {
+        int remaining = entry.remaining() == ScheduledEntry.UNLIMITED ? ScheduledEntry.UNLIMITED : entry.remaining() - 1;
+        if (remaining == 0) {
+            pending.remove(entry.id());
+            if (store != null) {
+                store.advanced(entry.id(), entry.dueMillis(), 0);
+            }
+            return;
+        }
+        long missed = Math.max(0, (nowMillis - entry.dueMillis()) / entry.intervalMillis());
+        long nextDue = entry.dueMillis() + (missed + 1) * entry.intervalMillis();
+        ScheduledEntry next = entry.withDue(nextDue, remaining);
+        pending.put(entry.id(), next.withHandle(wheel.schedule(entry.id(), dueTick(nextDue))));
+        if (store != null) {
+            store.advanced(entry.id(), nextDue, remaining);
+        }
+    }
+
+    private void execute(List<ScheduledEntry> due) {
+        due.sort(Comparator.comparing(ScheduledEntry::accountFrom).thenComparing(ScheduledEntry::accountTo));
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<ScheduledEntry> batch = due.subList(from, Math.min(from + batchSize, due.size()));
+            List<FundTransferRequest> requests = new ArrayList<>(batch.size());
+            for (ScheduledEntry entry : batch) {
+                requests.add(new FundTransferRequest(entry.accountFrom(), entry.accountTo(), entry.amount(), entry.currency()));
+            }
+            try {
+                BatchTransferResponse response = accountsService.transferBatch(requests, BatchTransferMode.BEST_EFFORT);
+                executed.add(response.getSucceeded());
+                failed.add(response.getFailed());
+                for (TransferItemResult result : response.getResults()) {
+                    if (result.getStatus() != TransferStatus.SUCCESS) {
+                        log.warn("Scheduled transfer {} failed: {} {}", batch.get(result.getIndex()).id(),
+                                result.getStatus(), result.getMessage());
+                    }
+                }
+            } catch (RuntimeException e) {
+                failed.add(batch.size());
+                log.error("Failed to run {} scheduled transfer(s)", batch.size(), e);
+            }
+        }
+        log.debug("Ran {} scheduled transfer(s)", due.size());
+    }
+
+    private long dueTick(long dueMillis) {
+        return Math.ceilDiv(dueMillis, tickMillis);
+    }
+
+    private void fireQuietly() {
+        try {
+            fireDue(System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            log.error("Failed to run scheduled transfers", e);
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.dws.challenge.schedule;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log that keeps scheduled transfers across restarts.
+ * <p>
+ * A record is {@code [int length][int crc32c][byte type][body]}, where the length and checksum cover the type and
+ * body. A transfer is written once when scheduled; firing it appends only its next due time and remaining runs,
+ * and cancelling it only its id. On open the log is replayed, a torn record at the tail is dropped, and the live
+ * transfers are rewritten into a fresh log that replaces the old one atomically. The same rewrite runs whenever
+ * the log holds more than {@value #COMPACTION_FACTOR} times the records the live transfers need, so a recurring
+ * transfer firing for months keeps the log proportional to what is pending rather than to what has run.
+ * <p>
+ * Writes are made under the {@link ScheduledTransferService} lock; {@link #force} may be called outside it.
+ */
+@Slf4j
+public class ScheduledTransferStore implements AutoCloseable {
+
+    private static final byte NEXT_ID = 0;
+
+    private static final byte SCHEDULED = 1;
+
+    private static final byte CANCELLED = 2;
+
+    private static final byte ADVANCED = 3;
+
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+
+    private static final String FILE_NAME = "scheduled-transfers.log";
+
+    private static final long MIN_COMPACTION_RECORDS = 65_536;
+
+    private static final int COMPACTION_FACTOR = 4;
+
+    private final Path file;
+
+    // Logs shorter than this are never compacted while open, rewriting them would cost more than it saves.
+    private final long minCompactionRecords;
+
+    private final Map<Long, ScheduledEntry> recovered = new TreeMap<>();
+
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+    private final DataOutputStream bodyOut = new DataOutputStream(body);
+
+    private FileChannel channel;
+
+    // Records in the current log, live or superseded.
+    private long records;
+
+    private long nextId = 1;
+
+    public ScheduledTransferStore(Path directory) throws IOException {
+        this(directory, MIN_COMPACTION_RECORDS);
+    }
+
+    public ScheduledTransferStore(Path directory, long minCompactionRecords) throws IOException {
+        Files.createDirectories(directory);
+        this.file = directory.resolve(FILE_NAME);
+        this.minCompactionRecords = minCompactionRecords;
+        if (Files.exists(file)) {
+            replay();
+        }
+        rewrite(nextId, recovered.values());
+        log.info("Recovered {} scheduled transfer(s) from {}", recovered.size(), file);
+    }
+
+    /**
+     * Transfers pending when the store was opened, by id, with no wheel handle.
+     */
+    Collection<ScheduledEntry> recovered() {
+        return recovered.values();
+    }
+
+    /**
+     * Lowest id never handed out, including to transfers that have since completed.
+     */
+    long nextId() {
+        return nextId;
+    }
+
+    void scheduled(ScheduledEntry entry) {
+        write(scheduledRecord(entry));
+    }
+
+    void cancelled(long id) {
+        write(record(CANCELLED, out -> out.writeLong(id)));
+    }
+
+    /**
+     * @param remaining runs left, 0 once the transfer is complete
+     */
+    void advanced(long id, long dueMillis, int remaining) {
+        write(record(ADVANCED, out -> {
+            out.writeLong(id);
+            out.writeLong(dueMillis);
+            out.writeInt(remaining);
+        }));
+    }
+
+    /**
+     * @param live number of transfers pending
+     * @return whether the log has grown enough past the live transfers for {@link #compact} to pay off
+     */
+    boolean compactionDue(int live) {
+        return records >= minCompactionRecords && records > COMPACTION_FACTOR * (live + 1L);
+    }
+
+    /**
+     * Replaces the log with one holding only the given transfers, forced before it replaces the old one.
+     */
+    void compact(long nextId, Collection<ScheduledEntry> live) {
+        long before = records;
+        try {
+            channel.close();
+            rewrite(nextId, live);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compact " + file, e);
+        }
+        log.info("Compacted {} from {} to {} record(s)", file, before, records);
+    }
+
+    void force() {
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to force " + file, e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void replay() throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            while (true) {
+                byte[] header = in.readNBytes(HEADER_SIZE);
+                if (header.length == 0) {
+                    return;
+                }
+                int length = header.length == HEADER_SIZE ? ByteBuffer.wrap(header).getInt() : -1;
+                byte[] record = length > 0 && length <= MAX_RECORD_SIZE ? in.readNBytes(length) : null;
+                if (record == null || record.length != length || checksum(record) != ByteBuffer.wrap(header).getInt(Integer.BYTES)) {
+                    log.warn("Dropped a torn record at the end of {}", file);
+                    return;
+                }
+                apply(new DataInputStream(new ByteArrayInputStream(record)));
+            }
+        }
+    }
+
+    private void apply(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case NEXT_ID -> nextId = Math.max(nextId, in.readLong());
+            case SCHEDULED -> {
+                long id = in.readLong();
+                String accountFrom = in.readUTF();
+                String accountTo = in.readUTF();
+                int scale = in.readInt();
+                byte[] unscaled = new byte[in.readUnsignedShort()];
+                in.readFully(unscaled);
+                String currency = in.readUTF();
+                ScheduledEntry entry = new ScheduledEntry(id, accountFrom, accountTo,
+                        new BigDecimal(new BigInteger(unscaled), scale), currency.isEmpty() ? null : currency,
+                        in.readLong(), in.readLong(), in.readInt(), -1);
+                recovered.put(id, entry);
+                nextId = Math.max(nextId, id + 1);
+            }
+            case CANCELLED -> recovered.remove(in.readLong());
+            case ADVANCED -> {
+                long id = in.readLong();
+                long dueMillis = in.readLong();
+                int remaining = in.readInt();
+                ScheduledEntry entry = recovered.get(id);
+                if (remaining == 0) {
+                    recovered.remove(id);
+                } else if (entry != null) {
+                    recovered.put(id, entry.withDue(dueMillis, remaining));
+                }
+            }
+            default -> throw new IOException("Unknown scheduled transfer record type " + type + " in " + file);
+        }
+    }
+
+    private void rewrite(long nextId, Collection<ScheduledEntry> live) throws IOException {
+        Path temporary = file.resolveSibling(FILE_NAME + ".tmp");
+        try (FileChannel compacted = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            append(compacted, nextIdRecord(nextId));
+            for (ScheduledEntry entry : live) {
+                append(compacted, scheduledRecord(entry));
+            }
+            compacted.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        this.channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.records = 1L + live.size();
+    }
+
+    private void write(ByteBuffer record) {
+        try {
+            append(channel, record);
+            records++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write " + file, e);
+        }
+    }
+
+    private ByteBuffer scheduledRecord(ScheduledEntry entry) {
+        return record(SCHEDULED, out -> {
+            out.writeLong(entry.id());
+            out.writeUTF(entry.accountFrom());
+            out.writeUTF(entry.accountTo());
+            byte[] unscaled = entry.amount().unscaledValue().toByteArray();
+            out.writeInt(entry.amount().scale());
+            out.writeShort(unscaled.length);
+            out.write(unscaled);
+            out.writeUTF(entry.currency() == null ? "" : entry.currency());
+            out.writeLong(entry.dueMillis());
+            out.writeLong(entry.intervalMillis());
+            out.writeInt(entry.remaining());
+        });
+    }
+
+    private ByteBuffer nextIdRecord(long id) {
+        return record(NEXT_ID, out -> out.writeLong(id));
+    }
+
+    private ByteBuffer record(byte type, BodyWriter writer) {
+        body.reset();
+        try {
+            bodyOut.writeByte(type);
+            writer.write(bodyOut);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] bytes = body.toByteArray();
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + bytes.length);
+        record.putInt(bytes.length).putInt(checksum(bytes)).put(bytes).flip();
+        return record;
+    }
+
+    private static void append(FileChannel target, ByteBuffer record) throws IOException {
+        while (record.hasRemaining()) {
+            target.write(record);
+        }
+    }
+
+    private static int checksum(byte[] bytes) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    @FunctionalInterface
+    private interface BodyWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
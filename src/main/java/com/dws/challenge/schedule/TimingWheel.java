@@ -0,0 +1,192 @@
+package com.dws.challenge.schedule;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Hierarchical timing wheel of {@code long} ids, each due at a tick. There are four levels of 256 slots; level
+ * {@code l} slots are {@code 256^l} ticks wide, so scheduling and cancelling are O(1) whatever the delay, and an
+ * entry is moved down a level at most three times before it expires.
+ * <p>
+ * Entries are not objects: they live in parallel primitive arrays and are chained into their slot by index,
+ * with freed indexes reused, so the wheel itself costs 28 bytes per pending entry and no garbage. Whatever the
+ * owner keeps per id is on top of that. Scheduling returns the index as the entry's handle. Not thread-safe, the
+ * owner guards every call.
+ */
+public final class TimingWheel {
+
+    private static final int SLOT_BITS = 8;
+
+    private static final int SLOTS = 1 << SLOT_BITS;
+
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private static final int LEVELS = 4;
+
+    private static final int NONE = -1;
+
+    private final int[] heads = new int[LEVELS * SLOTS];
+
+    private long[] ids;
+
+    private long[] deadlines;
+
+    private int[] next;
+
+    private int[] previous;
+
+    private int[] slots;
+
+    private int allocated;
+
+    private int free = NONE;
+
+    private int size;
+
+    private long currentTick;
+
+    public TimingWheel(long currentTick, int initialCapacity) {
+        Arrays.fill(heads, NONE);
+        int capacity = Math.max(initialCapacity, 16);
+        this.ids = new long[capacity];
+        this.deadlines = new long[capacity];
+        this.next = new int[capacity];
+        this.previous = new int[capacity];
+        this.slots = new int[capacity];
+        this.currentTick = currentTick;
+    }
+
+    /**
+     * Method to add an entry, an entry already due expires on the next tick
+     *
+     * @return handle to cancel the entry with, valid until it expires or is cancelled
+     */
+    public int schedule(long id, long deadlineTick) {
+        int entry = allocate();
+        ids[entry] = id;
+        deadlines[entry] = Math.max(deadlineTick, currentTick + 1);
+        place(entry);
+        size++;
+        return entry;
+    }
+
+    /**
+     * @return id of the cancelled entry
+     */
+    public long cancel(int handle) {
+        long id = ids[handle];
+        unlink(handle);
+        release(handle);
+        size--;
+        return id;
+    }
+
+    /**
+     * Method to move the wheel forward, one tick at a time
+     *
+     * @param expired receives the id of every entry due up to and including {@code tick}, earliest tick first
+     * @return number of entries expired
+     */
+    public int advanceTo(long tick, LongConsumer expired) {
+        int count = 0;
+        while (currentTick < tick) {
+            if (size == 0) {
+                currentTick = tick;
+                break;
+            }
+            currentTick++;
+            // Higher levels first, their entries may land in the lower level slots reached on this tick.
+            int level = 1;
+            while (level < LEVELS && (currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                level++;
+            }
+            for (level--; level > 0; level--) {
+                cascade(level * SLOTS + slotAt(currentTick, level));
+            }
+            int slot = slotAt(currentTick, 0);
+            int entry = heads[slot];
+            heads[slot] = NONE;
+            while (entry != NONE) {
+                int following = next[entry];
+                long id = ids[entry];
+                release(entry);
+                size--;
+                count++;
+                expired.accept(id);
+                entry = following;
+            }
+        }
+        return count;
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void cascade(int slot) {
+        int entry = heads[slot];
+        heads[slot] = NONE;
+        while (entry != NONE) {
+            int following = next[entry];
+            place(entry);
+            entry = following;
+        }
+    }
+
+    private void place(int entry) {
+        long delay = deadlines[entry] - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delay >>> (SLOT_BITS * (level + 1)) != 0) {
+            level++;
+        }
+        int slot = level * SLOTS + slotAt(deadlines[entry], level);
+        slots[entry] = slot;
+        previous[entry] = NONE;
+        next[entry] = heads[slot];
+        if (heads[slot] != NONE) {
+            previous[heads[slot]] = entry;
+        }
+        heads[slot] = entry;
+    }
+
+    private void unlink(int entry) {
+        if (previous[entry] == NONE) {
+            heads[slots[entry]] = next[entry];
+        } else {
+            next[previous[entry]] = next[entry];
+        }
+        if (next[entry] != NONE) {
+            previous[next[entry]] = previous[entry];
+        }
+    }
+
+    private int allocate() {
+        if (free != NONE) {
+            int entry = free;
+            free = next[entry];
+            return entry;
+        }
+        if (allocated == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            deadlines = Arrays.copyOf(deadlines, capacity);
+            next = Arrays.copyOf(next, capacity);
+            previous = Arrays.copyOf(previous, capacity);
+            slots = Arrays.copyOf(slots, capacity);
+        }
+        return allocated++;
+    }
+
+    private void release(int entry) {
+        next[entry] = free;
+        free = entry;
+    }
+
+    private static int slotAt(long tick, int level) {
+        return (int) (tick >>> (SLOT_BITS * level)) & SLOT_MASK;
+    }
+}
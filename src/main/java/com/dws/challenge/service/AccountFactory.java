@@ -0,0 +1,71 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.FixedPointAccount;
+import com.dws.challenge.domain.SplitAccount;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Currency;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Decides how an account being created is stored. Accounts designated with {@code transfer.hot-accounts.ids}
+ * are stored as {@link SplitAccount}s with {@code transfer.hot-accounts.cells} cells. With
+ * {@code transfer.fixed-point.enabled} every other account is stored as a {@link FixedPointAccount} in the minor
+ * units of its currency, or of its opening balance if that has more fraction digits. Otherwise accounts are
+ * stored as created.
+ */
+@Component
+public class AccountFactory {
+
+    public static final AccountFactory NONE = new AccountFactory(List.of(), 1, false, null);
+
+    private final Set<String> hotAccountIds;
+
+    private final int cells;
+
+    private final boolean fixedPoint;
+
+    private final String baseCurrency;
+
+    @Autowired
+    public AccountFactory(@Value("${transfer.hot-accounts.ids:}") List<String> hotAccountIds,
+                          @Value("${transfer.hot-accounts.cells:16}") int cells,
+                          @Value("${transfer.fixed-point.enabled:false}") boolean fixedPoint,
+                          @Value("${fx.base-currency:EUR}") String baseCurrency) {
+        this.hotAccountIds = Set.copyOf(hotAccountIds);
+        this.cells = cells;
+        this.fixedPoint = fixedPoint;
+        this.baseCurrency = baseCurrency;
+    }
+
+    public static AccountFactory hotAccounts(List<String> accountIds, int cells) {
+        return new AccountFactory(accountIds, cells, false, null);
+    }
+
+    public Account prepare(Account account) {
+        if (account instanceof SplitAccount || account instanceof FixedPointAccount) {
+            return account;
+        }
+        if (hotAccountIds.contains(account.getAccountId())) {
+            return new SplitAccount(account.getAccountId(), account.getBalance(), account.getCurrency(), cells);
+        }
+        if (fixedPoint) {
+            int scale = Math.max(minorUnits(account.getCurrency()), account.getBalance().stripTrailingZeros().scale());
+            return new FixedPointAccount(account.getAccountId(), account.getBalance(), account.getCurrency(), scale);
+        }
+        return account;
+    }
+
+    private int minorUnits(String currency) {
+        try {
+            int digits = Currency.getInstance(currency == null ? baseCurrency : currency).getDefaultFractionDigits();
+            return digits >= 0 ? digits : FixedPointAccount.DEFAULT_SCALE;
+        } catch (IllegalArgumentException e) {
+            return FixedPointAccount.DEFAULT_SCALE;
+        }
+    }
+}
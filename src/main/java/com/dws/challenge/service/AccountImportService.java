@@ -0,0 +1,164 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BulkImportResponse;
+import com.dws.challenge.domain.ImportErrorReason;
+import com.dws.challenge.domain.ImportLineError;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Creates accounts from an NDJSON or CSV stream. The body is read one line at a time, each line is bound by
+ * a shared Jackson reader and validated on its own, and valid accounts are inserted in fixed-size batches,
+ * so memory use depends on the batch size and the error report cap, not on the size of the upload.
+ */
+@Service
+@Slf4j
+public class AccountImportService {
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    private static final CsvSchema CSV_SCHEMA = CsvSchema.builder()
+            .addColumn("accountId")
+            .addColumn("balance", CsvSchema.ColumnType.NUMBER)
+            .addColumn("currency")
+            .build();
+
+    private final AccountsService accountsService;
+
+    private final Validator validator;
+
+    private final ObjectReader jsonReader;
+
+    private final ObjectReader csvReader;
+
+    private final int batchSize;
+
+    private final int maxReportedErrors;
+
+    @Autowired
+    public AccountImportService(AccountsService accountsService, ObjectMapper objectMapper, Validator validator,
+                                @Value("${accounts.bulk.batch-size:1000}") int batchSize,
+                                @Value("${accounts.bulk.max-reported-errors:1000}") int maxReportedErrors) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be greater than zero.");
+        }
+        this.accountsService = accountsService;
+        this.validator = validator;
+        this.jsonReader = objectMapper.readerFor(Account.class);
+        this.csvReader = new CsvMapper().readerFor(Account.class).with(CSV_SCHEMA);
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public BulkImportResponse importAccounts(InputStream body, Format format) throws IOException {
+        Import anImport = new Import();
+        ObjectReader reader = format == Format.CSV ? csvReader : jsonReader;
+        BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        long lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (format == Format.CSV && lineNumber == 1 && line.startsWith("accountId"))) {
+                continue;
+            }
+            Account account;
+            try {
+                account = reader.readValue(line);
+            } catch (JsonProcessingException e) {
+                anImport.invalid(lineNumber, null, e.getOriginalMessage());
+                continue;
+            }
+            Set<ConstraintViolation<Account>> violations = validator.validate(account);
+            if (!violations.isEmpty()) {
+                anImport.invalid(lineNumber, account.getAccountId(), violations.stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+                continue;
+            }
+            anImport.add(lineNumber, account);
+        }
+        anImport.flush();
+        log.info("Bulk import created {} account(s), {} duplicate(s), {} invalid line(s)",
+                anImport.created, anImport.duplicates, anImport.invalid);
+        return new BulkImportResponse(anImport.created, anImport.duplicates, anImport.invalid, anImport.errors,
+                anImport.errorsTruncated);
+    }
+
+    private final class Import {
+
+        private final List<Account> batch = new ArrayList<>(batchSize);
+
+        private final long[] batchLines = new long[batchSize];
+
+        private final List<ImportLineError> errors = new ArrayList<>();
+
+        private long created;
+
+        private long duplicates;
+
+        private long invalid;
+
+        private boolean errorsTruncated;
+
+        void add(long lineNumber, Account account) {
+            batchLines[batch.size()] = lineNumber;
+            batch.add(account);
+            if (batch.size() == batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            boolean[] inserted = accountsService.createAccounts(batch);
+            for (int i = 0; i < inserted.length; i++) {
+                if (inserted[i]) {
+                    created++;
+                } else {
+                    duplicates++;
+                    report(new ImportLineError(batchLines[i], batch.get(i).getAccountId(), ImportErrorReason.DUPLICATE,
+                            "Account id " + batch.get(i).getAccountId() + " already exists!"));
+                }
+            }
+            batch.clear();
+        }
+
+        void invalid(long lineNumber, String accountId, String message) {
+            invalid++;
+            report(new ImportLineError(lineNumber, accountId, ImportErrorReason.INVALID, message));
+        }
+
+        private void report(ImportLineError error) {
+            if (errors.size() < maxReportedErrors) {
+                errors.add(error);
+            } else {
+                errorsTruncated = true;
+            }
+        }
+    }
+}
@@ -1,41 +1,165 @@
 package com.dws.challenge.service;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountBalance;
+import com.dws.challenge.domain.BalanceSnapshot;
+import com.dws.challenge.domain.BatchTransferMode;
+import com.dws.challenge.domain.BatchTransferResponse;
+import com.dws.challenge.domain.FundTransferRequest;
+import com.dws.challenge.domain.SplitAccount;
+import com.dws.challenge.domain.TransferItemResult;
+import com.dws.challenge.domain.TransferStatus;
+import com.dws.challenge.exception.FeatureDisabledException;
 import com.dws.challenge.exception.InsufficientBalanceException;
+import com.dws.challenge.exception.ReadOnlyReplicaException;
+import com.dws.challenge.exception.VelocityLimitExceededException;
+import com.dws.challenge.fx.FxRateProvider;
+import com.dws.challenge.fx.FxRateTable;
+import com.dws.challenge.metrics.TransferMetrics;
+import com.dws.challenge.metrics.TransferMetrics.Outcome;
 import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.service.engine.AccountTransfer;
+import com.dws.challenge.service.engine.TransferEngine;
+import lombok.Builder;
 import lombok.Getter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.locks.Lock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
 
 @Service
 public class AccountsService {
 
+    private static final String VELOCITY_LIMIT_EXCEEDED = "Velocity limit exceeded for the source account.";
+
+    private static final String READ_ONLY_REPLICA = "Read-only replica, send this request to the primary.";
+
     @Getter
     private final AccountsRepository accountsRepository;
 
+    private final TransferEngine transferEngine;
+
+    private final NotificationService notificationService;
+
+    private final List<TransferListener> transferListeners;
+
+    private final TransferMetrics transferMetrics;
+
+    private final AccountFactory accountFactory;
+
+    private final VelocityLimiter velocityLimiter;
+
+    private final FxRateProvider fxRateProvider;
+
+    // Set on a replica, whose balances only change through the change stream.
+    @Getter
+    private final boolean readOnly;
+
+    /**
+     * Built outside Spring, the listeners, metrics, account factory, velocity limiter and FX rates left unset
+     * default to none.
+     */
     @Autowired
-    public AccountsService(AccountsRepository accountsRepository) {
+    @Builder
+    public AccountsService(AccountsRepository accountsRepository, TransferEngine transferEngine,
+                           NotificationService notificationService, List<TransferListener> transferListeners,
+                           TransferMetrics transferMetrics, AccountFactory accountFactory, VelocityLimiter velocityLimiter,
+                           FxRateProvider fxRateProvider,
+                           @Value("#{'${replication.role:none}' == 'replica'}") boolean readOnly) {
         this.accountsRepository = accountsRepository;
+        this.transferEngine = transferEngine;
+        this.notificationService = notificationService;
+        this.transferListeners = transferListeners == null ? List.of() : List.copyOf(transferListeners);
+        this.transferMetrics = transferMetrics == null ? TransferMetrics.NOOP : transferMetrics;
+        this.accountFactory = accountFactory == null ? AccountFactory.NONE : accountFactory;
+        this.velocityLimiter = velocityLimiter == null ? VelocityLimiter.NONE : velocityLimiter;
+        this.fxRateProvider = fxRateProvider == null ? FxRateProvider.NONE : fxRateProvider;
+        this.readOnly = readOnly;
     }
 
-    @Autowired
-    NotificationService notificationService;
-
-    private final Map<String, Lock> lockAccountsMap = new HashMap<>();
-
+    /**
+     * Method to create an account. The account is stored as {@link AccountFactory} prepares it, so the
+     * repository may hold a different instance than the one passed in.
+     */
     public void createAccount(Account account) {
-        this.accountsRepository.createAccount(account);
+        checkWritable();
+        BigDecimal openingBalance = account.getBalance();
+        Account stored = accountFactory.prepare(account);
+        this.accountsRepository.createAccount(stored);
+        for (TransferListener listener : transferListeners) {
+            listener.onAccountCreated(stored, openingBalance);
+        }
+    }
+
+    /**
+     * Method to create a batch of accounts, skipping ids that already exist
+     *
+     * @param accounts accounts to create
+     * @return per account, false if its id was already taken
+     */
+    public boolean[] createAccounts(List<Account> accounts) {
+        checkWritable();
+        BigDecimal[] openingBalances = new BigDecimal[accounts.size()];
+        List<Account> stored = new ArrayList<>(accounts.size());
+        for (int i = 0; i < openingBalances.length; i++) {
+            openingBalances[i] = accounts.get(i).getBalance();
+            stored.add(accountFactory.prepare(accounts.get(i)));
+        }
+        boolean[] created = this.accountsRepository.createAccounts(stored);
+        for (int i = 0; i < created.length; i++) {
+            if (created[i]) {
+                for (TransferListener listener : transferListeners) {
+                    listener.onAccountCreated(stored.get(i), openingBalances[i]);
+                }
+            }
+        }
+        return created;
     }
 
     public Account getAccount(String accountId) {
         return this.accountsRepository.getAccount(accountId);
     }
 
+    /**
+     * Method to read the balance of one account
+     *
+     * @return immutable view of the balance, or null if the account does not exist
+     */
+    public AccountBalance getBalance(String accountId) {
+        Account account = this.accountsRepository.getAccount(accountId);
+        return account == null ? null : new AccountBalance(account.getAccountId(), account.getBalance(), account.getCurrency());
+    }
+
+    /**
+     * Method to read several balances as one view, see {@link TransferEngine#readBalances}
+     *
+     * @param accountIds accounts to read, duplicates are read once
+     * @return balances in request order, and the ids that do not exist
+     */
+    public BalanceSnapshot getBalances(List<String> accountIds) {
+        List<Account> accounts = new ArrayList<>(accountIds.size());
+        List<String> missing = new ArrayList<>();
+        for (String accountId : new LinkedHashSet<>(accountIds)) {
+            Account account = lookup(accountId);
+            if (account == null) {
+                missing.add(accountId);
+            } else {
+                accounts.add(account);
+            }
+        }
+        BigDecimal[] balances = transferEngine.readBalances(accounts);
+        List<AccountBalance> views = new ArrayList<>(balances.length);
+        for (int i = 0; i < balances.length; i++) {
+            views.add(new AccountBalance(accounts.get(i).getAccountId(), balances[i], accounts.get(i).getCurrency()));
+        }
+        return new BalanceSnapshot(views, missing);
+    }
+
     /**
      * Method to perform amount transfer
      *
@@ -45,37 +169,374 @@ public class AccountsService {
      * @return boolean result
      */
     public boolean transferMoney(String fromAccountId, String toAccountId, BigDecimal amount) {
+        return transferMoney(fromAccountId, toAccountId, amount, null);
+    }
+
+    /**
+     * Method to perform amount transfer between accounts of any currency. The source account is debited the
+     * amount in its currency and the destination account credited the amount in its own, both converted with
+     * the same FX rate table.
+     *
+     * @param currency currency of the amount, or null for the currency of the source account
+     * @return boolean result
+     */
+    public boolean transferMoney(String fromAccountId, String toAccountId, BigDecimal amount, String currency) {
+        checkWritable();
+        long started = System.nanoTime();
         if (amount.compareTo(BigDecimal.ZERO) < 0) {
+            transferMetrics.recordTransfer(Outcome.INVALID_REQUEST, System.nanoTime() - started);
             throw new IllegalArgumentException("Amount must be greater than zero.");
         }
-        Account fromAccount = accountsRepository.getAccount(fromAccountId);
-        Account toAccount = accountsRepository.getAccount(toAccountId);
+        // Pinned, so a tiered repository cannot move the accounts out of memory while their balances change.
+        Account fromAccount = acquire(fromAccountId);
+        Account toAccount = acquire(toAccountId);
+        try {
+            if (fromAccount == null || toAccount == null) {
+                transferMetrics.recordTransfer(Outcome.ACCOUNT_NOT_FOUND, System.nanoTime() - started);
+                throw new IllegalArgumentException("One or both account(s) not found.");
+            }
+
+            // One table for both legs, so a concurrent rate swap cannot price them differently.
+            FxRateTable rates = fxRateProvider.current();
+            String amountCurrency = currency == null ? fromAccount.getCurrency() : currency;
+            BigDecimal debit;
+            BigDecimal credit;
+            try {
+                debit = roundedAboveZero(amount, rates.convert(amount, amountCurrency, fromAccount.getCurrency()));
+                credit = rates.convert(amount, amountCurrency, toAccount.getCurrency());
+                checkHeld(fromAccount, toAccount, debit, credit);
+            } catch (IllegalArgumentException e) {
+                transferMetrics.recordTransfer(Outcome.INVALID_REQUEST, System.nanoTime() - started);
+                throw e;
+            }
+
+            if (!velocityLimiter.tryAcquire(fromAccountId, debit)) {
+                transferMetrics.recordTransfer(Outcome.VELOCITY_LIMIT_EXCEEDED, System.nanoTime() - started);
+                throw new VelocityLimitExceededException(VELOCITY_LIMIT_EXCEEDED);
+            }
+            try {
+                beforeTransfer(fromAccount, toAccount, debit, credit);
+            } catch (RuntimeException e) {
+                velocityLimiter.release(fromAccountId, debit);
+                throw e;
+            }
+
+            //Step to perform the amount transfer, locking (if any) is left to the configured engine
+            boolean applied;
+            try {
+                applied = transferEngine.transfer(fromAccount, toAccount, debit, credit);
+            } catch (RuntimeException e) {
+                transferNotApplied(fromAccount, toAccount, debit, credit);
+                throw e;
+            }
+            if (!applied) {
+                transferNotApplied(fromAccount, toAccount, debit, credit);
+                velocityLimiter.release(fromAccountId, debit);
+                transferMetrics.recordTransfer(Outcome.INSUFFICIENT_BALANCE, System.nanoTime() - started);
+                // Negative balance scenario after the withdrawal
+                throw new InsufficientBalanceException("Insufficient balance in the source account.");
+            }
+
+            transferApplied(fromAccount, toAccount, debit, credit);
+
+            transferMetrics.recordTransfer(Outcome.SUCCESS, System.nanoTime() - started);
+            return true;
+        } finally {
+            release(fromAccount);
+            release(toAccount);
+        }
+    }
+
+    /**
+     * Method to perform a batch of transfers
+     *
+     * @param requests transfers in the order they should be applied
+     * @param mode     ATOMIC to apply all transfers or none, BEST_EFFORT to apply each on its own
+     * @return per transfer result, in request order
+     * @throws FeatureDisabledException for an ATOMIC batch on an engine without {@link TransferEngine#transferAll}
+     */
+    public BatchTransferResponse transferBatch(List<FundTransferRequest> requests, BatchTransferMode mode) {
+        checkWritable();
+        if (mode == BatchTransferMode.ATOMIC && !transferEngine.supportsTransferAll()) {
+            throw new FeatureDisabledException("All-or-nothing batches require a lock-based transfer engine.");
+        }
+        TransferItemResult[] results = new TransferItemResult[requests.size()];
+        AccountTransfer[] transfers = new AccountTransfer[requests.size()];
+        FxRateTable rates = fxRateProvider.current();
+        List<Account> acquired = new ArrayList<>();
+        try {
+            try {
+                for (int i = 0; i < requests.size(); i++) {
+                    transfers[i] = resolve(requests.get(i), i, results, rates, acquired);
+                }
+            } catch (RuntimeException e) {
+                // A listener refused a transfer before any was applied; take back what was prepared for the others.
+                releaseVelocity(transfers);
+                transfersNotApplied(transfers);
+                throw e;
+            }
 
+            if (mode == BatchTransferMode.ATOMIC) {
+                transferAtomically(transfers, results);
+            } else {
+                transferBestEffort(transfers, results);
+            }
+        } finally {
+            for (Account account : acquired) {
+                release(account);
+            }
+        }
+
+        int succeeded = 0;
+        for (TransferItemResult result : results) {
+            if (result.getStatus() == TransferStatus.SUCCESS) {
+                succeeded++;
+            }
+        }
+        return new BatchTransferResponse(mode, succeeded, results.length - succeeded, Arrays.asList(results));
+    }
+
+    private AccountTransfer resolve(FundTransferRequest request, int index, TransferItemResult[] results,
+                                    FxRateTable rates, List<Account> acquired) {
+        if (request == null || isEmpty(request.getAccountFrom()) || isEmpty(request.getAccountTo())) {
+            results[index] = new TransferItemResult(index, TransferStatus.INVALID_REQUEST, "Account ids must not be empty.");
+            return null;
+        }
+        if (request.getAmount() == null || request.getAmount().signum() <= 0) {
+            results[index] = new TransferItemResult(index, TransferStatus.INVALID_REQUEST, "Amount must be greater than zero.");
+            return null;
+        }
+        Account fromAccount = acquire(request.getAccountFrom());
+        Account toAccount = acquire(request.getAccountTo());
+        if (fromAccount != null) {
+            acquired.add(fromAccount);
+        }
+        if (toAccount != null) {
+            acquired.add(toAccount);
+        }
         if (fromAccount == null || toAccount == null) {
-            throw new IllegalArgumentException("One or both account(s) not found.");
+            results[index] = new TransferItemResult(index, TransferStatus.ACCOUNT_NOT_FOUND, "One or both account(s) not found.");
+            return null;
+        }
+        String amountCurrency = request.getCurrency() == null ? fromAccount.getCurrency() : request.getCurrency();
+        BigDecimal debit;
+        BigDecimal credit;
+        try {
+            debit = roundedAboveZero(request.getAmount(),
+                    rates.convert(request.getAmount(), amountCurrency, fromAccount.getCurrency()));
+            credit = rates.convert(request.getAmount(), amountCurrency, toAccount.getCurrency());
+            checkHeld(fromAccount, toAccount, debit, credit);
+        } catch (IllegalArgumentException e) {
+            results[index] = new TransferItemResult(index, TransferStatus.INVALID_REQUEST, e.getMessage());
+            return null;
+        }
+        if (!velocityLimiter.tryAcquire(fromAccount.getAccountId(), debit)) {
+            results[index] = new TransferItemResult(index, TransferStatus.VELOCITY_LIMIT_EXCEEDED, VELOCITY_LIMIT_EXCEEDED);
+            return null;
+        }
+        try {
+            beforeTransfer(fromAccount, toAccount, debit, credit);
+        } catch (RuntimeException e) {
+            velocityLimiter.release(fromAccount.getAccountId(), debit);
+            throw e;
+        }
+        return new AccountTransfer(fromAccount, toAccount, debit, credit);
+    }
+
+    private void transferAtomically(AccountTransfer[] transfers, TransferItemResult[] results) {
+        int rejected = -1;
+        for (int i = 0; i < transfers.length && rejected < 0; i++) {
+            if (transfers[i] == null) {
+                rejected = i;
+            } else if (transfers[i].from() instanceof SplitAccount || transfers[i].to() instanceof SplitAccount) {
+                // Split accounts are never locked, so neither the isolation nor the rollback would hold for them.
+                results[i] = new TransferItemResult(i, TransferStatus.INVALID_REQUEST,
+                        "Hot accounts cannot take part in all-or-nothing batches.");
+                rejected = i;
+            }
+        }
+        if (rejected < 0) {
+            try {
+                rejected = transferEngine.transferAll(Arrays.asList(transfers));
+            } catch (RuntimeException e) {
+                releaseVelocity(transfers);
+                transfersNotApplied(transfers);
+                throw e;
+            }
+            if (rejected >= 0) {
+                results[rejected] = new TransferItemResult(rejected, TransferStatus.INSUFFICIENT_BALANCE,
+                        "Insufficient balance in the source account.");
+            }
+        }
+        if (rejected >= 0) {
+            releaseVelocity(transfers);
+            transfersNotApplied(transfers);
         }
+        for (int i = 0; i < transfers.length; i++) {
+            if (rejected < 0) {
+                results[i] = new TransferItemResult(i, TransferStatus.SUCCESS, null);
+                transferApplied(transfers[i].from(), transfers[i].to(), transfers[i].amount(), transfers[i].credit());
+            } else if (results[i] == null) {
+                results[i] = new TransferItemResult(i, TransferStatus.NOT_EXECUTED, "Batch rejected, transfer not executed.");
+            }
+        }
+    }
 
-        //Logic to lock both accounts in a consistent order to avoid deadlocks
-        Account firstLockAccount = fromAccountId.compareTo(toAccountId) < 0 ? fromAccount : toAccount;
-        Account secondLockAccount = fromAccountId.compareTo(toAccountId) < 0 ? toAccount : fromAccount;
+    private void transferBestEffort(AccountTransfer[] transfers, TransferItemResult[] results) {
+        // A run of consecutive transfers between the same two accounts shares one lock acquisition; runs are
+        // applied in request order, so grouping never moves a transfer ahead of an earlier one.
+        List<Integer> run = new ArrayList<>();
+        AccountPair runPair = null;
+        for (int i = 0; i < transfers.length; i++) {
+            if (transfers[i] == null) {
+                continue;
+            }
+            AccountPair pair = AccountPair.of(transfers[i]);
+            if (!pair.equals(runPair)) {
+                transferRun(run, transfers, results);
+                run.clear();
+                runPair = pair;
+            }
+            run.add(i);
+        }
+        transferRun(run, transfers, results);
+    }
+
+    private void transferRun(List<Integer> indexes, AccountTransfer[] transfers, TransferItemResult[] results) {
+        if (indexes.isEmpty()) {
+            return;
+        }
+        List<AccountTransfer> group = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            group.add(transfers[index]);
+        }
+        boolean[] applied;
+        try {
+            applied = transferEngine.transferGroup(group);
+        } catch (RuntimeException e) {
+            for (AccountTransfer transfer : group) {
+                transferNotApplied(transfer.from(), transfer.to(), transfer.amount(), transfer.credit());
+            }
+            throw e;
+        }
+        for (int i = 0; i < applied.length; i++) {
+            int index = indexes.get(i);
+            if (applied[i]) {
+                results[index] = new TransferItemResult(index, TransferStatus.SUCCESS, null);
+                transferApplied(transfers[index].from(), transfers[index].to(), transfers[index].amount(),
+                        transfers[index].credit());
+            } else {
+                transferNotApplied(transfers[index].from(), transfers[index].to(), transfers[index].amount(),
+                        transfers[index].credit());
+                velocityLimiter.release(transfers[index].from().getAccountId(), transfers[index].amount());
+                results[index] = new TransferItemResult(index, TransferStatus.INSUFFICIENT_BALANCE,
+                        "Insufficient balance in the source account.");
+            }
+        }
+    }
 
-        synchronized (firstLockAccount) {
-            synchronized (secondLockAccount) {
-                //Step to perform the amount transfer
-                if (fromAccount.withdraw(amount)) {
-                    toAccount.deposit(amount);
-                } else {
-                    // Negative balance scenario after the withdrawal
-                    throw new InsufficientBalanceException("Insufficient balance in the source account.");
+    private void releaseVelocity(AccountTransfer[] transfers) {
+        for (AccountTransfer transfer : transfers) {
+            if (transfer != null) {
+                velocityLimiter.release(transfer.from().getAccountId(), transfer.amount());
+            }
+        }
+    }
+
+    private void transfersNotApplied(AccountTransfer[] transfers) {
+        for (AccountTransfer transfer : transfers) {
+            if (transfer != null) {
+                transferNotApplied(transfer.from(), transfer.to(), transfer.amount(), transfer.credit());
+            }
+        }
+    }
+
+    /**
+     * Lets every listener prepare for the transfer; if one refuses, those already prepared are told it was not applied.
+     */
+    private void beforeTransfer(Account fromAccount, Account toAccount, BigDecimal debit, BigDecimal credit) {
+        for (int i = 0; i < transferListeners.size(); i++) {
+            try {
+                transferListeners.get(i).beforeTransfer(fromAccount, toAccount, debit, credit);
+            } catch (RuntimeException e) {
+                for (int j = 0; j < i; j++) {
+                    transferListeners.get(j).onTransferNotApplied(fromAccount, toAccount, debit, credit);
                 }
+                throw e;
             }
         }
+    }
+
+    private void transferNotApplied(Account fromAccount, Account toAccount, BigDecimal debit, BigDecimal credit) {
+        for (TransferListener listener : transferListeners) {
+            listener.onTransferNotApplied(fromAccount, toAccount, debit, credit);
+        }
+    }
+
+    private void transferApplied(Account fromAccount, Account toAccount, BigDecimal debit, BigDecimal credit) {
+        for (TransferListener listener : transferListeners) {
+            listener.onTransfer(fromAccount, toAccount, debit, credit);
+        }
 
         //Step to send the notification to both the account holders.
-        notificationService.notifyAboutTransfer(fromAccount, "Amount '" + amount + "' has been successfully transferred to the account : " + toAccountId);
-        notificationService.notifyAboutTransfer(toAccount, "Amount '" + amount + "' received from the account : " + fromAccountId);
+        long notifyStarted = System.nanoTime();
+        notificationService.notifyAboutTransfer(fromAccount, "Amount '" + debit + "' has been successfully transferred to the account : " + toAccount.getAccountId());
+        notificationService.notifyAboutTransfer(toAccount, "Amount '" + credit + "' received from the account : " + fromAccount.getAccountId());
+        transferMetrics.recordNotification(System.nanoTime() - notifyStarted);
+    }
 
-        return true;
+    private void checkWritable() {
+        if (readOnly) {
+            throw new ReadOnlyReplicaException(READ_ONLY_REPLICA);
+        }
+    }
+
+    private Account lookup(String accountId) {
+        long started = System.nanoTime();
+        Account account = accountsRepository.getAccount(accountId);
+        transferMetrics.recordRepositoryLookup(System.nanoTime() - started);
+        return account;
     }
 
+    private Account acquire(String accountId) {
+        long started = System.nanoTime();
+        Account account = accountsRepository.acquireAccount(accountId);
+        transferMetrics.recordRepositoryLookup(System.nanoTime() - started);
+        return account;
+    }
+
+    private void release(Account account) {
+        if (account != null) {
+            accountsRepository.releaseAccount(account);
+        }
+    }
+
+    private static BigDecimal roundedAboveZero(BigDecimal amount, BigDecimal debit) {
+        if (amount.signum() > 0 && debit.signum() <= 0) {
+            throw new IllegalArgumentException("Amount is below the smallest unit of the source currency.");
+        }
+        return debit;
+    }
+
+    /**
+     * Checked before the engine runs, so a fixed-point account cannot refuse the credit once the debit is taken.
+     */
+    private static void checkHeld(Account fromAccount, Account toAccount, BigDecimal debit, BigDecimal credit) {
+        if (!fromAccount.canHold(debit) || !toAccount.canHold(credit)) {
+            throw new IllegalArgumentException("Amount has more decimal places than the account supports.");
+        }
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    private record AccountPair(String first, String second) {
+
+        static AccountPair of(AccountTransfer transfer) {
+            String from = transfer.from().getAccountId();
+            String to = transfer.to().getAccountId();
+            return from.compareTo(to) <= 0 ? new AccountPair(from, to) : new AccountPair(to, from);
+        }
+    }
 }
@@ -0,0 +1,196 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decorator handing notifications to a background dispatcher so the transfer request thread never
+ * waits on the delivery backend. Notifications are buffered in a bounded queue, drained in batches,
+ * and notifications for the same account within a batch are coalesced into a single delivery.
+ */
+@Slf4j
+public class AsyncNotificationService implements NotificationService, AutoCloseable {
+
+    /**
+     * What to do with a notification when the queue is full.
+     */
+    public enum OverflowPolicy {
+        /** Discard the notification and count it as dropped. */
+        DROP,
+        /** Block the caller until the dispatcher frees a slot. */
+        BLOCK,
+        /** Spill the notification onto the calling thread and deliver it synchronously. */
+        SPILL
+    }
+
+    private record PendingNotification(Account account, String description, long enqueuedAtNanos) {
+    }
+
+    private final NotificationService delegate;
+
+    private final BlockingQueue<PendingNotification> queue;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final int batchSize;
+
+    private final Thread dispatcher;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AtomicLong spilled = new AtomicLong();
+
+    private final AtomicLong delivered = new AtomicLong();
+
+    private volatile long lastLagNanos;
+
+    private volatile boolean running = true;
+
+    public AsyncNotificationService(NotificationService delegate, int capacity, OverflowPolicy overflowPolicy,
+                                    int batchSize, ThreadFactory threadFactory) {
+        if (capacity <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Queue capacity and batch size must be greater than zero.");
+        }
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.overflowPolicy = overflowPolicy;
+        this.batchSize = batchSize;
+        this.dispatcher = threadFactory.newThread(this::dispatchLoop);
+        this.dispatcher.start();
+    }
+
+    @Override
+    public void notifyAboutTransfer(Account account, String transferDescription) {
+        PendingNotification notification = new PendingNotification(account, transferDescription, System.nanoTime());
+        if (!running) {
+            deliver(account, transferDescription);
+            return;
+        }
+        if (queue.offer(notification)) {
+            return;
+        }
+        switch (overflowPolicy) {
+            case DROP -> {
+                dropped.incrementAndGet();
+                log.warn("Notification queue full, dropping notification for {}", account.getAccountId());
+            }
+            case BLOCK -> {
+                try {
+                    queue.put(notification);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    dropped.incrementAndGet();
+                }
+            }
+            case SPILL -> {
+                spilled.incrementAndGet();
+                deliver(account, transferDescription);
+            }
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getQueueCapacity() {
+        return queue.size() + queue.remainingCapacity();
+    }
+
+    /**
+     * Time the oldest notification of the last delivered batch spent waiting in the queue.
+     */
+    public long getLastLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastLagNanos);
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getSpilledCount() {
+        return spilled.get();
+    }
+
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    /**
+     * Stops the dispatcher and delivers whatever is still queued.
+     */
+    @Override
+    public void close() {
+        running = false;
+        dispatcher.interrupt();
+        try {
+            dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<PendingNotification> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        deliverBatch(remaining);
+    }
+
+    private void dispatchLoop() {
+        List<PendingNotification> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            deliverBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void deliverBatch(List<PendingNotification> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        lastLagNanos = System.nanoTime() - batch.get(0).enqueuedAtNanos();
+
+        // Coalesce per account so a hot account receives one delivery per batch.
+        Map<String, List<PendingNotification>> byAccount = new LinkedHashMap<>();
+        for (PendingNotification notification : batch) {
+            byAccount.computeIfAbsent(notification.account().getAccountId(), id -> new ArrayList<>(1)).add(notification);
+        }
+        for (List<PendingNotification> notifications : byAccount.values()) {
+            PendingNotification last = notifications.get(notifications.size() - 1);
+            if (notifications.size() == 1) {
+                deliver(last.account(), last.description());
+            } else {
+                StringBuilder description = new StringBuilder();
+                for (PendingNotification notification : notifications) {
+                    if (description.length() > 0) {
+                        description.append(System.lineSeparator());
+                    }
+                    description.append(notification.description());
+                }
+                deliver(last.account(), description.toString());
+            }
+            delivered.addAndGet(notifications.size());
+        }
+    }
+
+    private void deliver(Account account, String description) {
+        try {
+            delegate.notifyAboutTransfer(account, description);
+        } catch (RuntimeException e) {
+            log.error("Failed to deliver notification to owner of {}", account.getAccountId(), e);
+        }
+    }
+}
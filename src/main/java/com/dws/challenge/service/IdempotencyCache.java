@@ -0,0 +1,123 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.exception.IdempotencyKeyReusedException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the outcome of recent requests per client supplied idempotency key, so a retried request
+ * gets the original result instead of being executed again.
+ * <p>
+ * Entries live for the configured retry window and the cache holds at most the configured number of keys,
+ * evicting the oldest first. Lookups and inserts only touch the key's {@link ConcurrentHashMap} bin and a
+ * lock-free insertion queue, so there is no global lock on the request path. A retry arriving while the
+ * original request is still running waits for its outcome.
+ */
+@Component
+public class IdempotencyCache {
+
+    private record Entry(String key, Object fingerprint, CompletableFuture<Object> outcome, long createdAtNanos) {
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final Queue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    private final long ttlNanos;
+
+    private final int maxEntries;
+
+    @Autowired
+    public IdempotencyCache(@Value("${idempotency.ttl-seconds:600}") long ttlSeconds,
+                            @Value("${idempotency.max-entries:100000}") int maxEntries) {
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Runs the action once per key within the retry window and returns, or rethrows, its outcome to every
+     * caller presenting the same key.
+     *
+     * @param fingerprint value identifying the request, a key reused for a different request is rejected
+     * @throws IdempotencyKeyReusedException if the key was already used for a different request
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Object fingerprint, Supplier<T> action) {
+        Entry entry = new Entry(key, fingerprint, new CompletableFuture<>(), System.nanoTime());
+        while (true) {
+            Entry existing = entries.putIfAbsent(key, entry);
+            if (existing == null) {
+                break;
+            }
+            if (!isExpired(existing, entry.createdAtNanos())) {
+                if (!Objects.equals(existing.fingerprint(), fingerprint)) {
+                    throw new IdempotencyKeyReusedException("Idempotency key " + key + " was already used for a different request.");
+                }
+                return (T) await(existing);
+            }
+            if (entries.replace(key, existing, entry)) {
+                break;
+            }
+        }
+        insertionOrder.add(entry);
+        evict(entry.createdAtNanos());
+
+        try {
+            T result = action.get();
+            entry.outcome().complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            entry.outcome().completeExceptionally(e);
+            throw e;
+        } catch (Throwable t) {
+            // An Error says nothing about the request: forget the key so a retry runs it again, and release the
+            // retries already waiting on it.
+            entries.remove(key, entry);
+            entry.outcome().completeExceptionally(t);
+            throw t;
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.createdAtNanos() > ttlNanos;
+    }
+
+    private void evict(long now) {
+        Entry oldest;
+        while ((oldest = insertionOrder.peek()) != null && (entries.size() > maxEntries || isExpired(oldest, now))) {
+            // A concurrent evictor may have taken the head first; at worst one extra old entry goes.
+            Entry evicted = insertionOrder.poll();
+            if (evicted != null) {
+                entries.remove(evicted.key(), evicted);
+            }
+        }
+    }
+
+    private static Object await(Entry entry) {
+        try {
+            return entry.outcome().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
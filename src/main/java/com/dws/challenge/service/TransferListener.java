@@ -0,0 +1,47 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+
+import java.math.BigDecimal;
+
+/**
+ * Callback invoked by {@link AccountsService} once an account creation or a transfer has been applied,
+ * before the caller gets its response. A listener that must not fail once a transfer is applied can prepare
+ * for it in {@link #beforeTransfer}.
+ */
+public interface TransferListener {
+
+    /**
+     * @param openingBalance balance the account was created with, which concurrent transfers may already have changed
+     */
+    default void onAccountCreated(Account account, BigDecimal openingBalance) {
+    }
+
+    /**
+     * Called before the engine moves the money. Throwing rejects the transfer with nothing applied. Every call is
+     * followed by {@link #onTransfer(Account, Account, BigDecimal, BigDecimal)} if the transfer is applied, or by
+     * {@link #onTransferNotApplied} if it is not.
+     */
+    default void beforeTransfer(Account from, Account to, BigDecimal debited, BigDecimal credited) {
+    }
+
+    /**
+     * Called instead of {@code onTransfer} after {@link #beforeTransfer} when the transfer was not applied.
+     */
+    default void onTransferNotApplied(Account from, Account to, BigDecimal debited, BigDecimal credited) {
+    }
+
+    default void onTransfer(Account from, Account to, BigDecimal amount) {
+    }
+
+    /**
+     * Called instead of {@link #onTransfer(Account, Account, BigDecimal)} for every transfer; listeners that
+     * do not care about currency conversion see the amount debited from the source account.
+     *
+     * @param debited  amount taken from the source account
+     * @param credited amount given to the destination account, in its currency
+     */
+    default void onTransfer(Account from, Account to, BigDecimal debited, BigDecimal credited) {
+        onTransfer(from, to, debited);
+    }
+}
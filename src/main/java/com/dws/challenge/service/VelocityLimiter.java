@@ -0,0 +1,221 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.VelocityLimit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Per-account limits on the amount and number of outgoing transfers within a rolling window. Each account
+ * keeps a ring of time buckets as one immutable value replaced by CAS, so admitting a transfer takes no lock
+ * and a transfer is only admitted against a ring holding every transfer admitted before it: concurrent
+ * transfers from one account can never overshoot the limit together, not even across a bucket rollover.
+ * Amounts are counted in ten-thousandths, rounded up. Accounts idle for a whole window are evicted in the
+ * background, which bounds memory by the number of recently active accounts.
+ */
+@Component
+@Slf4j
+public class VelocityLimiter implements AutoCloseable {
+
+    public static final VelocityLimiter NONE = new VelocityLimiter(false, 60, 10, null, 0);
+
+    private static final int AMOUNT_SCALE = 4;
+
+    private final boolean enabled;
+
+    private final int bucketCount;
+
+    private final long bucketNanos;
+
+    private final VelocityLimit defaultLimit;
+
+    private final Map<String, VelocityLimit> accountLimits = new ConcurrentHashMap<>();
+
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService evictor;
+
+    @Autowired
+    public VelocityLimiter(@Value("${velocity.enabled:false}") boolean enabled,
+                           @Value("${velocity.window-seconds:60}") long windowSeconds,
+                           @Value("${velocity.buckets:10}") int bucketCount,
+                           @Value("${velocity.max-amount:#{null}}") BigDecimal maxAmount,
+                           @Value("${velocity.max-count:0}") int maxCount) {
+        if (windowSeconds <= 0 || bucketCount <= 0) {
+            throw new IllegalArgumentException("Velocity window and bucket count must be greater than zero.");
+        }
+        this.enabled = enabled;
+        this.bucketCount = bucketCount;
+        this.bucketNanos = Math.max(1, TimeUnit.SECONDS.toNanos(windowSeconds) / bucketCount);
+        this.defaultLimit = new VelocityLimit(maxAmount, maxCount > 0 ? maxCount : null);
+        if (enabled) {
+            this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "velocity-evictor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            evictor.scheduleWithFixedDelay(this::evictIdle, windowSeconds, windowSeconds, TimeUnit.SECONDS);
+        } else {
+            this.evictor = null;
+        }
+    }
+
+    /**
+     * Method to admit an outgoing transfer, counting it against the account's window
+     *
+     * @return false if the transfer would exceed the account's limit, in which case nothing is counted
+     */
+    public boolean tryAcquire(String accountId, BigDecimal amount) {
+        if (!enabled) {
+            return true;
+        }
+        VelocityLimit limit = limitOf(accountId);
+        if (limit.getMaxAmount() == null && limit.getMaxCount() == null) {
+            return true;
+        }
+        long units = toUnits(amount);
+        long maxUnits = limit.getMaxAmount() == null ? Long.MAX_VALUE : toUnits(limit.getMaxAmount());
+        long maxCount = limit.getMaxCount() == null ? Long.MAX_VALUE : limit.getMaxCount();
+        long epoch = System.nanoTime() / bucketNanos;
+        return windows.computeIfAbsent(accountId, id -> new Window(bucketCount)).tryAdd(epoch, units, maxUnits, maxCount);
+    }
+
+    /**
+     * Method to take back an admitted transfer that was not applied after all
+     */
+    public void release(String accountId, BigDecimal amount) {
+        if (!enabled) {
+            return;
+        }
+        Window window = windows.get(accountId);
+        if (window != null) {
+            window.remove(System.nanoTime() / bucketNanos, toUnits(amount));
+        }
+    }
+
+    public VelocityLimit limitOf(String accountId) {
+        return accountLimits.getOrDefault(accountId, defaultLimit);
+    }
+
+    public void setLimit(String accountId, VelocityLimit limit) {
+        accountLimits.put(accountId, limit);
+    }
+
+    public int trackedAccounts() {
+        return windows.size();
+    }
+
+    void evictIdle() {
+        long epoch = System.nanoTime() / bucketNanos;
+        // A transfer racing the removal may be counted in the dropped window; for an account idle a whole
+        // window that is at most one transfer.
+        windows.values().removeIf(window -> window.isIdle(epoch));
+    }
+
+    @Override
+    public void close() {
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+    }
+
+    private static long toUnits(BigDecimal amount) {
+        BigInteger units = amount.movePointRight(AMOUNT_SCALE).setScale(0, RoundingMode.CEILING).toBigInteger();
+        return units.bitLength() < Long.SIZE ? units.longValue() : Long.MAX_VALUE;
+    }
+
+    private record Bucket(long epoch, long count, long units) {
+    }
+
+    /**
+     * Buckets indexed by epoch modulo their number, never changed once published.
+     *
+     * @param newestEpoch latest epoch a transfer was counted in
+     */
+    private record Ring(Bucket[] buckets, long newestEpoch) {
+    }
+
+    private static final class Window {
+
+        private final AtomicReference<Ring> ring;
+
+        Window(int bucketCount) {
+            this.ring = new AtomicReference<>(new Ring(new Bucket[bucketCount], Long.MIN_VALUE));
+        }
+
+        boolean tryAdd(long now, long units, long maxUnits, long maxCount) {
+            while (true) {
+                Ring current = ring.get();
+                // Concurrent callers may read the clock out of order; none counts in a bucket older than one used.
+                long epoch = Math.max(now, current.newestEpoch());
+                Bucket[] buckets = current.buckets();
+                long count = 1;
+                long total = units;
+                for (Bucket bucket : buckets) {
+                    if (bucket != null && bucket.epoch() > epoch - buckets.length) {
+                        count += bucket.count();
+                        total = saturatedAdd(total, bucket.units());
+                    }
+                }
+                if (count > maxCount || total > maxUnits) {
+                    return false;
+                }
+                int slot = Math.floorMod(epoch, buckets.length);
+                Bucket old = buckets[slot];
+                Bucket[] next = buckets.clone();
+                next[slot] = old != null && old.epoch() == epoch
+                        ? new Bucket(epoch, old.count() + 1, old.units() + units)
+                        : new Bucket(epoch, 1, units);
+                if (ring.compareAndSet(current, new Ring(next, epoch))) {
+                    return true;
+                }
+            }
+        }
+
+        void remove(long now, long units) {
+            // Only the bucket the transfer was most likely counted in; if it already rolled over, the
+            // transfer simply expires with it.
+            while (true) {
+                Ring current = ring.get();
+                long epoch = Math.max(now, current.newestEpoch());
+                Bucket[] buckets = current.buckets();
+                int slot = Math.floorMod(epoch, buckets.length);
+                Bucket old = buckets[slot];
+                if (old == null || old.epoch() != epoch || old.count() == 0) {
+                    return;
+                }
+                Bucket[] next = buckets.clone();
+                next[slot] = new Bucket(epoch, old.count() - 1, Math.max(0, old.units() - units));
+                if (ring.compareAndSet(current, new Ring(next, current.newestEpoch()))) {
+                    return;
+                }
+            }
+        }
+
+        boolean isIdle(long epoch) {
+            Bucket[] buckets = ring.get().buckets();
+            for (Bucket bucket : buckets) {
+                if (bucket != null && bucket.epoch() > epoch - buckets.length) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static long saturatedAdd(long a, long b) {
+            long sum = a + b;
+            return ((a ^ sum) & (b ^ sum)) < 0 ? Long.MAX_VALUE : sum;
+        }
+    }
+}
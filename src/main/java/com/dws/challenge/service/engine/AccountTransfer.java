@@ -0,0 +1,16 @@
+package com.dws.challenge.service.engine;
+
+import com.dws.challenge.domain.Account;
+
+import java.math.BigDecimal;
+
+/**
+ * A transfer whose accounts have already been resolved from the repository. {@code amount} is debited from
+ * the source account and {@code credit}, the amount converted to the destination currency, is credited.
+ */
+public record AccountTransfer(Account from, Account to, BigDecimal amount, BigDecimal credit) {
+
+    public AccountTransfer(Account from, Account to, BigDecimal amount) {
+        this(from, to, amount, amount);
+    }
+}
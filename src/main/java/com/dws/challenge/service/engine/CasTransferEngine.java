@@ -0,0 +1,22 @@
+package com.dws.challenge.service.engine;
+
+import com.dws.challenge.domain.Account;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Lock-free transfer engine. The debit and the credit are two independent CAS updates on the
+ * accounts, so a concurrent reader may briefly observe the amount as in flight between them,
+ * but a debit is never lost and money is always conserved once the transfer returns.
+ */
+@Component
+@ConditionalOnProperty(name = "transfer.engine", havingValue = "cas")
+public class CasTransferEngine implements TransferEngine {
+
+    @Override
+    public boolean transfer(Account from, Account to, BigDecimal debit, BigDecimal credit) {
+        return TransferEngine.move(from, to, debit, credit);
+    }
+}
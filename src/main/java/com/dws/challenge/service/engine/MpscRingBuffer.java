@@ -0,0 +1,70 @@
+package com.dws.challenge.service.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free ring for many producers and a single consumer. Producers claim a sequence with a CAS
+ * on the tail and publish into its slot; the consumer is the only writer of the head, so it needs no CAS.
+ */
+final class MpscRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+
+    private final int mask;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    private final AtomicLong head = new AtomicLong();
+
+    MpscRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Ring capacity must be greater than zero.");
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Method to publish an element from any thread
+     *
+     * @return false if the ring is full
+     */
+    boolean offer(E element) {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head.get() >= slots.length()) {
+                return false;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+        slots.set((int) (sequence & mask), element);
+        return true;
+    }
+
+    /**
+     * Method to take the next element, only ever called from the consumer thread
+     *
+     * @return null if nothing has been published yet
+     */
+    E poll() {
+        long sequence = head.get();
+        int index = (int) (sequence & mask);
+        E element = slots.get(index);
+        if (element == null) {
+            return null;
+        }
+        slots.lazySet(index, null);
+        head.lazySet(sequence + 1);
+        return element;
+    }
+
+    boolean isEmpty() {
+        return slots.get((int) (head.get() & mask)) == null;
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+}
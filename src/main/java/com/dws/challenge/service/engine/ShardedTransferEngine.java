@@ -0,0 +1,225 @@
+package com.dws.challenge.service.engine;
+
+import com.dws.challenge.domain.Account;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Transfer engine that hashes accounts to shards, each owned by a single writer thread fed through a
+ * lock-free {@link MpscRingBuffer}. Only the owning thread ever changes an account's balance, so a transfer
+ * inside one shard runs without locks or contention. A cross-shard transfer is applied in two phases:
+ * the source shard debits, and only if that succeeded the destination shard credits. Between the two
+ * phases the amount is in flight, as with {@link CasTransferEngine}, but it is never lost.
+ */
+@Component
+@ConditionalOnProperty(name = "transfer.engine", havingValue = "sharded")
+@Slf4j
+public class ShardedTransferEngine implements TransferEngine, AutoCloseable {
+
+    private static final int SPINS = 1 << 10;
+
+    private final Shard[] shards;
+
+    @Autowired
+    public ShardedTransferEngine(@Value("${transfer.engine.shards:8}") int shardCount,
+                                 @Value("${transfer.engine.ring-size:1024}") int ringSize) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be greater than zero.");
+        }
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, ringSize);
+        }
+        log.info("Started {} transfer shard(s) with {} slot ring(s)", shardCount, shards[0].ring.capacity());
+    }
+
+    @Override
+    public boolean transfer(Account from, Account to, BigDecimal debit, BigDecimal credit) {
+        Shard fromShard = shardOf(from);
+        Shard toShard = shardOf(to);
+        Command command = new Command();
+        if (fromShard == toShard) {
+            return command.run(fromShard, Command.TRANSFER, from, to, debit, credit);
+        }
+        if (!command.run(fromShard, Command.DEBIT, from, null, debit, null)) {
+            return false;
+        }
+        try {
+            return command.run(toShard, Command.CREDIT, to, null, credit, null);
+        } catch (RuntimeException e) {
+            // The destination refused the credit, so the source shard gets the debit back.
+            command.run(fromShard, Command.CREDIT, from, null, debit, null);
+            throw e;
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    int shardIndexOf(Account account) {
+        int h = account.getAccountId().hashCode();
+        return Math.floorMod(h ^ (h >>> 16), shards.length);
+    }
+
+    private Shard shardOf(Account account) {
+        return shards[shardIndexOf(account)];
+    }
+
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            shard.stop();
+        }
+    }
+
+    /**
+     * One phase of a transfer, handed to a shard and waited on by the calling thread. The caller spins
+     * briefly, since a shard usually answers within microseconds, and parks after that.
+     */
+    private static final class Command {
+
+        static final int TRANSFER = 0;
+        static final int DEBIT = 1;
+        static final int CREDIT = 2;
+
+        private final Thread caller = Thread.currentThread();
+
+        private int type;
+
+        private Account account;
+
+        private Account counterparty;
+
+        private BigDecimal amount;
+
+        private BigDecimal credit;
+
+        private boolean result;
+
+        // Thrown by the account on the shard thread, rethrown to the caller.
+        private RuntimeException failure;
+
+        private volatile boolean done;
+
+        private volatile boolean waiting;
+
+        boolean run(Shard shard, int type, Account account, Account counterparty, BigDecimal amount, BigDecimal credit) {
+            this.type = type;
+            this.account = account;
+            this.counterparty = counterparty;
+            this.amount = amount;
+            this.credit = credit;
+            this.failure = null;
+            this.done = false;
+            this.waiting = false;
+            shard.submit(this);
+            for (int i = 0; i < SPINS && !done; i++) {
+                Thread.onSpinWait();
+            }
+            if (!done) {
+                waiting = true;
+                while (!done) {
+                    LockSupport.park(this);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return result;
+        }
+
+        void execute() {
+            try {
+                result = switch (type) {
+                    case TRANSFER -> TransferEngine.move(account, counterparty, amount, credit);
+                    case DEBIT -> account.withdraw(amount);
+                    default -> {
+                        account.deposit(amount);
+                        yield true;
+                    }
+                };
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            done = true;
+            if (waiting) {
+                LockSupport.unpark(caller);
+            }
+        }
+    }
+
+    private static final class Shard implements Runnable {
+
+        private final MpscRingBuffer<Command> ring;
+
+        private final Thread writer;
+
+        private volatile boolean running = true;
+
+        private volatile boolean sleeping;
+
+        Shard(int index, int ringSize) {
+            this.ring = new MpscRingBuffer<>(ringSize);
+            this.writer = Thread.ofPlatform().name("transfer-shard-" + index).daemon().start(this);
+        }
+
+        void submit(Command command) {
+            if (!running) {
+                throw new IllegalStateException("Transfer engine has been shut down.");
+            }
+            while (!ring.offer(command)) {
+                if (!running) {
+                    throw new IllegalStateException("Transfer engine has been shut down.");
+                }
+                // Ring full: the shard is saturated, so the caller waits for a free slot.
+                Thread.yield();
+            }
+            if (sleeping) {
+                LockSupport.unpark(writer);
+            }
+        }
+
+        @Override
+        public void run() {
+            int idle = 0;
+            while (running) {
+                Command command = ring.poll();
+                if (command != null) {
+                    command.execute();
+                    idle = 0;
+                } else if (++idle < SPINS) {
+                    Thread.onSpinWait();
+                } else {
+                    sleeping = true;
+                    if (ring.isEmpty() && running) {
+                        LockSupport.park(this);
+                    }
+                    sleeping = false;
+                    idle = 0;
+                }
+            }
+            // Finish what was accepted before the stop, so no caller is left waiting.
+            Command command;
+            while ((command = ring.poll()) != null) {
+                command.execute();
+            }
+        }
+
+        void stop() {
+            running = false;
+            LockSupport.unpark(writer);
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.dws.challenge.service.engine;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.SplitAccount;
+import com.dws.challenge.metrics.TransferMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Transfer engine guarding accounts with a fixed array of {@link StampedLock} stripes.
+ * Stripes are always taken in ascending stripe order to avoid deadlocks, and a transfer whose
+ * accounts share a stripe only takes it once. {@link SplitAccount}s are not locked, so they cannot take part
+ * in an all-or-nothing batch: nothing would keep other transfers from draining one before a rollback.
+ */
+@Component
+@ConditionalOnProperty(name = "transfer.engine", havingValue = "striped", matchIfMissing = true)
+public class StripedLockTransferEngine implements TransferEngine {
+
+    /**
+     * Optimistic attempts of {@link #readBalances} before the stripes that keep changing are read locked.
+     */
+    static final int OPTIMISTIC_READS = 3;
+
+    private final StampedLock[] stripes;
+
+    private final int mask;
+
+    private final TransferMetrics transferMetrics;
+
+    public StripedLockTransferEngine(int stripeCount) {
+        this(stripeCount, TransferMetrics.NOOP);
+    }
+
+    @Autowired
+    public StripedLockTransferEngine(@Value("${transfer.engine.stripes:1024}") int stripeCount,
+                                     TransferMetrics transferMetrics) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Stripe count must be greater than zero.");
+        }
+        int size = Integer.highestOneBit(stripeCount - 1) << 1;
+        this.stripes = new StampedLock[Math.max(size, 1)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new StampedLock();
+        }
+        this.mask = stripes.length - 1;
+        this.transferMetrics = transferMetrics;
+    }
+
+    @Override
+    public boolean transfer(Account from, Account to, BigDecimal debit, BigDecimal credit) {
+        int fromStripe = lockedStripeOf(from);
+        int toStripe = lockedStripeOf(to);
+        int low = Math.min(fromStripe, toStripe);
+        int high = Math.max(fromStripe, toStripe);
+        if (high < 0) {
+            return TransferEngine.move(from, to, debit, credit);
+        }
+        StampedLock first = stripes[low >= 0 ? low : high];
+        StampedLock second = low >= 0 && low != high ? stripes[high] : null;
+
+        long started = System.nanoTime();
+        long firstStamp = first.writeLock();
+        long acquired = 0L;
+        try {
+            long secondStamp = second == null ? 0L : second.writeLock();
+            acquired = System.nanoTime();
+            try {
+                return TransferEngine.move(from, to, debit, credit);
+            } finally {
+                if (second != null) {
+                    second.unlockWrite(secondStamp);
+                }
+            }
+        } finally {
+            first.unlockWrite(firstStamp);
+            recordLockTimes(started, acquired);
+        }
+    }
+
+    @Override
+    public boolean[] transferGroup(List<AccountTransfer> transfers) {
+        boolean[] results = new boolean[transfers.size()];
+        int[] lockedStripes = sortedStripes(transfers);
+        long started = System.nanoTime();
+        long[] stamps = lockAll(lockedStripes);
+        long acquired = System.nanoTime();
+        try {
+            for (int i = 0; i < results.length; i++) {
+                AccountTransfer transfer = transfers.get(i);
+                results[i] = TransferEngine.move(transfer.from(), transfer.to(), transfer.amount(), transfer.credit());
+            }
+        } finally {
+            unlockAll(lockedStripes, stamps);
+            recordLockTimes(started, acquired);
+        }
+        return results;
+    }
+
+    @Override
+    public boolean supportsTransferAll() {
+        return true;
+    }
+
+    @Override
+    public int transferAll(List<AccountTransfer> transfers) {
+        for (AccountTransfer transfer : transfers) {
+            if (transfer.from() instanceof SplitAccount || transfer.to() instanceof SplitAccount) {
+                throw new IllegalArgumentException("Split accounts cannot take part in all-or-nothing batches.");
+            }
+        }
+        int[] lockedStripes = sortedStripes(transfers);
+        long started = System.nanoTime();
+        long[] stamps = lockAll(lockedStripes);
+        long acquired = System.nanoTime();
+        try {
+            for (int i = 0; i < transfers.size(); i++) {
+                AccountTransfer transfer = transfers.get(i);
+                boolean moved;
+                try {
+                    moved = TransferEngine.move(transfer.from(), transfer.to(), transfer.amount(), transfer.credit());
+                } catch (RuntimeException e) {
+                    rollBack(transfers, i);
+                    throw e;
+                }
+                if (!moved) {
+                    rollBack(transfers, i);
+                    return i;
+                }
+            }
+            return -1;
+        } finally {
+            unlockAll(lockedStripes, stamps);
+            recordLockTimes(started, acquired);
+        }
+    }
+
+    /**
+     * Optimistic reads first, so readers never block or slow down transfers. A read that a transfer overlapped
+     * is retried {@value #OPTIMISTIC_READS} times; after that only the stripes that keep changing are read
+     * locked, while the quiet ones stay optimistic, so a busy stripe cannot make the reader hold up transfers on
+     * every other stripe it covers. Split accounts are not covered by the stripes and are read on their own.
+     */
+    @Override
+    public BigDecimal[] readBalances(List<Account> accounts) {
+        int[] all = new int[accounts.size()];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = lockedStripeOf(accounts.get(i));
+        }
+        int[] readStripes = sorted(all);
+        boolean[] locked = new boolean[readStripes.length];
+        long[] stamps = new long[readStripes.length];
+        for (int attempt = 1; ; attempt++) {
+            // Ascending order like the writers, and optimistic stamps never wait, so this cannot deadlock.
+            for (int i = 0; i < readStripes.length; i++) {
+                StampedLock stripe = stripes[readStripes[i]];
+                stamps[i] = locked[i] ? stripe.readLock() : stripe.tryOptimisticRead();
+            }
+            BigDecimal[] balances;
+            try {
+                balances = TransferEngine.super.readBalances(accounts);
+            } finally {
+                for (int i = readStripes.length - 1; i >= 0; i--) {
+                    if (locked[i]) {
+                        stripes[readStripes[i]].unlockRead(stamps[i]);
+                    }
+                }
+            }
+            boolean valid = true;
+            for (int i = 0; i < readStripes.length; i++) {
+                if (!locked[i] && !stripes[readStripes[i]].validate(stamps[i])) {
+                    valid = false;
+                    // Locked from the next attempt on once the optimistic retries are used up.
+                    locked[i] = attempt >= OPTIMISTIC_READS;
+                }
+            }
+            if (valid) {
+                return balances;
+            }
+        }
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Accounts with a repository handle take the stripes in turn, so the first {@link #getStripeCount()}
+     * accounts never share one; others fall back to their id hash.
+     */
+    int stripeOf(Account account) {
+        int handle = account.getHandle();
+        if (handle >= 0) {
+            return handle & mask;
+        }
+        int h = account.getAccountId().hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Split accounts keep their own cells consistent, so they are never locked and cannot make a hot
+     * account's stripe the bottleneck.
+     */
+    private int lockedStripeOf(Account account) {
+        return account instanceof SplitAccount ? -1 : stripeOf(account);
+    }
+
+    // Called with every lock held, so nobody observes the partial batch.
+    private static void rollBack(List<AccountTransfer> transfers, int failed) {
+        for (int j = failed - 1; j >= 0; j--) {
+            AccountTransfer applied = transfers.get(j);
+            applied.to().deposit(applied.credit().negate());
+            applied.from().deposit(applied.amount());
+        }
+    }
+
+    private void recordLockTimes(long started, long acquired) {
+        if (acquired != 0L) {
+            transferMetrics.recordLockWait(acquired - started);
+            transferMetrics.recordLockHold(System.nanoTime() - acquired);
+        }
+    }
+
+    private int[] sortedStripes(List<AccountTransfer> transfers) {
+        int[] all = new int[transfers.size() * 2];
+        for (int i = 0; i < transfers.size(); i++) {
+            all[2 * i] = lockedStripeOf(transfers.get(i).from());
+            all[2 * i + 1] = lockedStripeOf(transfers.get(i).to());
+        }
+        return sorted(all);
+    }
+
+    private static int[] sorted(int[] stripes) {
+        return Arrays.stream(stripes).filter(stripe -> stripe >= 0).sorted().distinct().toArray();
+    }
+
+    private long[] lockAll(int[] sortedStripes) {
+        long[] stamps = new long[sortedStripes.length];
+        for (int i = 0; i < sortedStripes.length; i++) {
+            stamps[i] = stripes[sortedStripes[i]].writeLock();
+        }
+        return stamps;
+    }
+
+    private void unlockAll(int[] sortedStripes, long[] stamps) {
+        for (int i = sortedStripes.length - 1; i >= 0; i--) {
+            stripes[sortedStripes[i]].unlockWrite(stamps[i]);
+        }
+    }
+}
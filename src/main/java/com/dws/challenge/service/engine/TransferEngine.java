@@ -0,0 +1,106 @@
+package com.dws.challenge.service.engine;
+
+import com.dws.challenge.domain.Account;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Strategy used by {@link com.dws.challenge.service.AccountsService} to move money between two accounts.
+ * The implementation is selected with the {@code transfer.engine} property.
+ */
+public interface TransferEngine {
+
+    /**
+     * Method to move the amount from one account to the other
+     *
+     * @param from   source account
+     * @param to     destination account
+     * @param amount amount to move, already validated as positive
+     * @return false if the source account does not hold enough balance
+     */
+    default boolean transfer(Account from, Account to, BigDecimal amount) {
+        return transfer(from, to, amount, amount);
+    }
+
+    /**
+     * Method to move money between accounts held in different currencies
+     *
+     * @param from   source account
+     * @param to     destination account
+     * @param debit  amount taken from the source account, already validated as positive
+     * @param credit amount given to the destination account, in its currency
+     * @return false if the source account does not hold enough balance
+     */
+    boolean transfer(Account from, Account to, BigDecimal debit, BigDecimal credit);
+
+    /**
+     * Method to apply independent transfers that all touch the same pair of accounts. Lock-based
+     * engines take the pair's locks once for the whole group instead of once per transfer.
+     *
+     * @param transfers transfers between the same two accounts, in either direction
+     * @return per transfer, false if the source account did not hold enough balance
+     */
+    default boolean[] transferGroup(List<AccountTransfer> transfers) {
+        boolean[] results = new boolean[transfers.size()];
+        for (int i = 0; i < results.length; i++) {
+            AccountTransfer transfer = transfers.get(i);
+            results[i] = transfer(transfer.from(), transfer.to(), transfer.amount(), transfer.credit());
+        }
+        return results;
+    }
+
+    /**
+     * @return whether the engine implements {@link #transferAll}
+     */
+    default boolean supportsTransferAll() {
+        return false;
+    }
+
+    /**
+     * Method to apply all transfers or none of them, with no other transfer interleaving. Only called when
+     * {@link #supportsTransferAll()} is true.
+     *
+     * @param transfers transfers to apply in order
+     * @return index of the first transfer rejected for insufficient balance, or -1 if all were applied
+     */
+    default int transferAll(List<AccountTransfer> transfers) {
+        throw new IllegalStateException(getClass().getSimpleName() + " does not apply all-or-nothing batches.");
+    }
+
+    /**
+     * Debits one account and credits the other. A credit that throws, e.g. one overflowing a fixed-point balance,
+     * gives the debit back before the exception is passed on, so money never leaves the source without
+     * reaching the destination.
+     *
+     * @return false if the source account does not hold enough balance
+     */
+    static boolean move(Account from, Account to, BigDecimal debit, BigDecimal credit) {
+        if (!from.withdraw(debit)) {
+            return false;
+        }
+        try {
+            to.deposit(credit);
+        } catch (RuntimeException e) {
+            from.deposit(debit);
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * Method to read several balances at once without blocking transfers. Lock-based engines return a
+     * point-in-time view in which no transfer between the accounts is half applied; engines that move money
+     * in two independent steps can only read each balance on its own.
+     *
+     * @param accounts accounts to read
+     * @return balances in the order of the accounts
+     */
+    default BigDecimal[] readBalances(List<Account> accounts) {
+        BigDecimal[] balances = new BigDecimal[accounts.size()];
+        for (int i = 0; i < balances.length; i++) {
+            balances[i] = accounts.get(i).getBalance();
+        }
+        return balances;
+    }
+}
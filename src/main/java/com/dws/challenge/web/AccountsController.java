@@ -1,32 +1,73 @@
 package com.dws.challenge.web;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountBalance;
+import com.dws.challenge.domain.BalanceSnapshot;
+import com.dws.challenge.domain.BulkImportResponse;
+import com.dws.challenge.domain.VelocityLimit;
 import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.exception.FeatureDisabledException;
+import com.dws.challenge.ledger.TransactionLedger;
+import com.dws.challenge.service.AccountImportService;
 import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.VelocityLimiter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.List;
 
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/v1/accounts")
 @Slf4j
 public class AccountsController {
 
+  static final int MAX_PAGE_SIZE = 1000;
+
+  static final int MAX_ACCOUNT_IDS = 1000;
+
+  static final String TEXT_CSV_VALUE = "text/csv";
+
   private final AccountsService accountsService;
 
+  private final AccountImportService accountImportService;
+
+  private final VelocityLimiter velocityLimiter;
+
+  private final ObjectProvider<TransactionLedger> transactionLedger;
+
+  private final ObjectMapper objectMapper;
+
   @Autowired
-  public AccountsController(AccountsService accountsService) {
+  public AccountsController(AccountsService accountsService, AccountImportService accountImportService,
+                            VelocityLimiter velocityLimiter, ObjectProvider<TransactionLedger> transactionLedger,
+                            ObjectMapper objectMapper) {
     this.accountsService = accountsService;
+    this.accountImportService = accountImportService;
+    this.velocityLimiter = velocityLimiter;
+    this.transactionLedger = transactionLedger;
+    this.objectMapper = objectMapper;
   }
 
   @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
   public ResponseEntity<Object> createAccount(@RequestBody @Valid Account account) {
-    log.info("Creating account {}", account);
+    log.info("Creating account {}", account.getAccountId());
 
     try {
     this.accountsService.createAccount(account);
@@ -37,9 +78,101 @@ public class AccountsController {
     return new ResponseEntity<>(HttpStatus.CREATED);
   }
 
+  /**
+   * Creates accounts from an NDJSON ({@code application/x-ndjson}) or CSV ({@code text/csv}, columns
+   * {@code accountId,balance} with an optional header) body, reporting duplicate and invalid lines.
+   */
+  @PostMapping(path = "/bulk", consumes = {MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE})
+  public BulkImportResponse createAccounts(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                           InputStream body) throws IOException {
+    AccountImportService.Format format = contentType.isCompatibleWith(MediaType.APPLICATION_NDJSON)
+      ? AccountImportService.Format.NDJSON : AccountImportService.Format.CSV;
+    return this.accountImportService.importAccounts(body, format);
+  }
+
   @GetMapping(path = "/{accountId}")
-  public Account getAccount(@PathVariable String accountId) {
+  public AccountBalance getAccount(@PathVariable String accountId) {
     log.info("Retrieving account for id {}", accountId);
-    return this.accountsService.getAccount(accountId);
+    return this.accountsService.getBalance(accountId);
+  }
+
+  /**
+   * Reads several accounts as a single point-in-time view, e.g. {@code GET /v1/accounts?ids=Id-1,Id-2}.
+   */
+  @GetMapping(params = "ids")
+  public BalanceSnapshot getAccounts(@RequestParam List<String> ids) {
+    if (ids.isEmpty() || ids.size() > MAX_ACCOUNT_IDS) {
+      throw new IllegalArgumentException("Between 1 and " + MAX_ACCOUNT_IDS + " account ids must be given.");
+    }
+    return this.accountsService.getBalances(ids);
+  }
+
+  @GetMapping(path = "/{accountId}/velocity-limit")
+  public VelocityLimit getVelocityLimit(@PathVariable String accountId) {
+    return this.velocityLimiter.limitOf(accountId);
+  }
+
+  /**
+   * Overrides the velocity limit of one account; fields left null are not limited.
+   */
+  @PutMapping(path = "/{accountId}/velocity-limit", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public VelocityLimit setVelocityLimit(@PathVariable String accountId, @RequestBody @Valid VelocityLimit limit) {
+    log.info("Setting velocity limit of account {} to {}", accountId, limit);
+    this.velocityLimiter.setLimit(accountId, limit);
+    return limit;
+  }
+
+  /**
+   * Streams the account statement newest first. Pass the returned {@code nextCursor} as {@code cursor} to read
+   * the following page; it is null once the oldest entry has been returned.
+   */
+  @GetMapping(path = "/{accountId}/transactions", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> getTransactions(@PathVariable String accountId,
+                                                               @RequestParam(required = false) Long cursor,
+                                                               @RequestParam(defaultValue = "100") int limit) {
+    TransactionLedger ledger = transactionLedger.getIfAvailable();
+    if (ledger == null) {
+      throw new FeatureDisabledException("Transaction history is disabled.");
+    }
+    if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+      throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+    }
+    if (cursor != null && cursor < 0) {
+      throw new IllegalArgumentException("Cursor must not be negative.");
+    }
+    if (this.accountsService.getAccount(accountId) == null) {
+      throw new IllegalArgumentException("Account " + accountId + " not found.");
+    }
+
+    StreamingResponseBody body = outputStream -> {
+      try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+        generator.writeStartObject();
+        generator.writeStringField("accountId", accountId);
+        generator.writeArrayFieldStart("transactions");
+        long nextCursor = ledger.read(accountId, cursor == null ? -1 : cursor, limit, entry -> {
+          try {
+            generator.writeStartObject();
+            generator.writeNumberField("transferId", entry.transferId());
+            generator.writeStringField("timestamp", Instant.ofEpochMilli(entry.timestamp()).toString());
+            generator.writeStringField("type", entry.type().name());
+            generator.writeStringField("counterparty", entry.counterparty());
+            generator.writeNumberField("amount", entry.amount());
+            generator.writeEndObject();
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+        generator.writeEndArray();
+        if (nextCursor < 0) {
+          generator.writeNullField("nextCursor");
+        } else {
+          generator.writeNumberField("nextCursor", nextCursor);
+        }
+        generator.writeEndObject();
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+    };
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
   }
 }
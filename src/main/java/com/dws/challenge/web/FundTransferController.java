@@ -1,41 +1,106 @@
 package com.dws.challenge.web;
 
+import com.dws.challenge.domain.BatchTransferMode;
+import com.dws.challenge.domain.BatchTransferResponse;
 import com.dws.challenge.domain.FundTransferRequest;
 import com.dws.challenge.service.AccountsService;
-import jakarta.validation.Valid;
+import com.dws.challenge.service.IdempotencyCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/v1/transfer")
 @Slf4j
 public class FundTransferController {
 
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    // ResponseEntity is immutable, so every successful transfer can share one response.
+    private static final ResponseEntity<String> TRANSFER_SUCCESSFUL = ResponseEntity.ok("Transfer Successful");
+
+    private static final ResponseEntity<String> TRANSFER_FAILED = ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Transfer Failed");
+
     private final AccountsService accountsService;
 
+    private final IdempotencyCache idempotencyCache;
+
+    private final TransferRequestValidator transferRequestValidator;
+
+    private final int maxBatchSize;
+
+    private final int logEvery;
+
     @Autowired
-    public FundTransferController(AccountsService accountsService) {
+    public FundTransferController(AccountsService accountsService, IdempotencyCache idempotencyCache,
+                                  TransferRequestValidator transferRequestValidator,
+                                  @Value("${transfer.batch.max-size:10000}") int maxBatchSize,
+                                  @Value("${transfer.lean.enabled:false}") boolean lean,
+                                  @Value("${transfer.lean.log-every:1024}") int logEvery) {
         this.accountsService = accountsService;
+        this.idempotencyCache = idempotencyCache;
+        this.transferRequestValidator = transferRequestValidator;
+        this.maxBatchSize = maxBatchSize;
+        this.logEvery = lean ? Math.max(logEvery, 1) : 1;
     }
 
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<String> transferMoney(@RequestBody @Valid FundTransferRequest fundTransferRequest) {
-        log.info("Transfer amount from Account Id {}", fundTransferRequest.getAccountFrom());
-        log.info("Transfer amount to Account Id {}", fundTransferRequest.getAccountTo());
-        log.info("Amount to transfer between accounts {}", fundTransferRequest.getAmount());
-        boolean success = this.accountsService.transferMoney(fundTransferRequest.getAccountFrom(), fundTransferRequest.getAccountTo(), fundTransferRequest.getAmount());
-        if (success) {
-            return ResponseEntity.ok("Transfer Successful");
-        } else {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Transfer Failed");
+    public ResponseEntity<String> transferMoney(@RequestBody FundTransferRequest fundTransferRequest,
+                                                @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        transferRequestValidator.validate(fundTransferRequest);
+        // Lean mode logs a random sample of transfers; a shared counter would itself become a contention point.
+        if (log.isInfoEnabled() && (logEvery == 1 || ThreadLocalRandom.current().nextInt(logEvery) == 0)) {
+            log.info("Transfer from={} to={} amount={}", fundTransferRequest.getAccountFrom(),
+                    fundTransferRequest.getAccountTo(), fundTransferRequest.getAmount());
+        }
+        if (idempotencyKey == null) {
+            return transfer(fundTransferRequest);
+        }
+        return idempotencyCache.execute(idempotencyKey, fundTransferRequest, () -> transfer(fundTransferRequest));
+    }
+
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BatchTransferResponse> transferBatch(@RequestParam(defaultValue = "BEST_EFFORT") BatchTransferMode mode,
+                                                               @RequestBody List<FundTransferRequest> fundTransferRequests,
+                                                               @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        if (fundTransferRequests.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch must not contain more than " + maxBatchSize + " transfers.");
+        }
+        log.info("Batch transfer of {} transfer(s) in {} mode", fundTransferRequests.size(), mode);
+        if (idempotencyKey == null) {
+            return transferBatch(fundTransferRequests, mode);
+        }
+        return idempotencyCache.execute(idempotencyKey, List.of(mode, fundTransferRequests),
+                () -> transferBatch(fundTransferRequests, mode));
+    }
+
+    private ResponseEntity<String> transfer(FundTransferRequest fundTransferRequest) {
+        boolean success = this.accountsService.transferMoney(fundTransferRequest.getAccountFrom(), fundTransferRequest.getAccountTo(),
+                fundTransferRequest.getAmount(), fundTransferRequest.getCurrency());
+        return success ? TRANSFER_SUCCESSFUL : TRANSFER_FAILED;
+    }
+
+    private ResponseEntity<BatchTransferResponse> transferBatch(List<FundTransferRequest> fundTransferRequests,
+                                                                BatchTransferMode mode) {
+        BatchTransferResponse response = this.accountsService.transferBatch(fundTransferRequests, mode);
+        if (mode == BatchTransferMode.ATOMIC && response.getFailed() > 0) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         }
+        return ResponseEntity.ok(response);
     }
 }
@@ -0,0 +1,44 @@
+package com.dws.challenge.web;
+
+import com.dws.challenge.fx.FxRateProvider;
+import com.dws.challenge.fx.FxRateTable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/v1/fx/rates")
+@Slf4j
+public class FxRatesController {
+
+    private final FxRateProvider fxRateProvider;
+
+    @Autowired
+    public FxRatesController(FxRateProvider fxRateProvider) {
+        this.fxRateProvider = fxRateProvider;
+    }
+
+    @GetMapping
+    public FxRateTable getRates() {
+        return fxRateProvider.current();
+    }
+
+    /**
+     * Replaces every rate at once, standing in for a market data feed.
+     */
+    @PutMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public FxRateTable updateRates(@RequestBody Map<String, BigDecimal> rates) {
+        log.info("Replacing FX rates with {}", rates);
+        return fxRateProvider.update(rates);
+    }
+}
@@ -0,0 +1,54 @@
+package com.dws.challenge.web;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountBalance;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.service.AccountsService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Non-blocking counterpart of {@link AccountsController}.
+ */
+@RestController
+@RequestMapping("/v2/accounts")
+public class ReactiveAccountsController {
+
+    private final AccountsService accountsService;
+
+    private final Scheduler transferScheduler;
+
+    @Autowired
+    public ReactiveAccountsController(AccountsService accountsService, Scheduler transferScheduler) {
+        this.accountsService = accountsService;
+        this.transferScheduler = transferScheduler;
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Object>> createAccount(@RequestBody @Valid Account account) {
+        // Creation is journaled, so it runs off the event loop like a transfer.
+        return Mono.fromCallable(() -> {
+                    accountsService.createAccount(account);
+                    return new ResponseEntity<>(HttpStatus.CREATED);
+                })
+                .subscribeOn(transferScheduler)
+                .onErrorResume(DuplicateAccountIdException.class,
+                        ex -> Mono.just(new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST)));
+    }
+
+    @GetMapping(path = "/{accountId}")
+    public Mono<AccountBalance> getAccount(@PathVariable String accountId) {
+        return Mono.justOrEmpty(accountsService.getBalance(accountId));
+    }
+}
@@ -0,0 +1,45 @@
+package com.dws.challenge.web;
+
+import com.dws.challenge.domain.FundTransferRequest;
+import com.dws.challenge.service.AccountsService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Non-blocking counterpart of {@link FundTransferController}. The transfer itself runs on the bounded
+ * transfer scheduler, and a full scheduler surfaces as 503.
+ */
+@RestController
+@RequestMapping("/v2/transfer")
+public class ReactiveFundTransferController {
+
+    private final AccountsService accountsService;
+
+    private final Scheduler transferScheduler;
+
+    @Autowired
+    public ReactiveFundTransferController(AccountsService accountsService, Scheduler transferScheduler) {
+        this.accountsService = accountsService;
+        this.transferScheduler = transferScheduler;
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<String>> transferMoney(@RequestBody @Valid FundTransferRequest fundTransferRequest) {
+        return Mono.fromCallable(() -> accountsService.transferMoney(fundTransferRequest.getAccountFrom(),
+                        fundTransferRequest.getAccountTo(), fundTransferRequest.getAmount(),
+                        fundTransferRequest.getCurrency()))
+                .subscribeOn(transferScheduler)
+                .map(success -> success
+                        ? ResponseEntity.ok("Transfer Successful")
+                        : ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Transfer Failed"));
+    }
+}
@@ -0,0 +1,23 @@
+package com.dws.challenge.web;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+public class ReactiveTransferConfiguration {
+
+    /**
+     * Scheduler the {@code /v2} endpoints hand transfers to, so engine locks and journal commits never run on
+     * an event-loop thread. Once every worker is busy and its queue is full, further transfers are rejected
+     * and answered with 503 instead of piling up in memory.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler transferScheduler(@Value("${transfer.reactive.threads:0}") int threads,
+                                       @Value("${transfer.reactive.queue-capacity:10000}") int queueCapacity) {
+        int threadCap = threads > 0 ? threads : Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE;
+        return Schedulers.newBoundedElastic(threadCap, queueCapacity, "transfer");
+    }
+}
@@ -0,0 +1,68 @@
+package com.dws.challenge.web;
+
+import com.dws.challenge.domain.ScheduledTransfer;
+import com.dws.challenge.domain.ScheduledTransferRequest;
+import com.dws.challenge.schedule.ScheduledTransferService;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/v1/transfer/scheduled")
+@Slf4j
+public class ScheduledTransferController {
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private final ScheduledTransferService scheduledTransferService;
+
+    @Autowired
+    public ScheduledTransferController(ScheduledTransferService scheduledTransferService) {
+        this.scheduledTransferService = scheduledTransferService;
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ScheduledTransfer> schedule(@RequestBody @Valid ScheduledTransferRequest request) {
+        return new ResponseEntity<>(scheduledTransferService.schedule(request), HttpStatus.CREATED);
+    }
+
+    /**
+     * Lists pending transfers in id order, optionally only those of one account. Pass the last id returned as
+     * {@code after} to read the next page.
+     */
+    @GetMapping
+    public List<ScheduledTransfer> list(@RequestParam(required = false) String accountId,
+                                        @RequestParam(defaultValue = "0") long after,
+                                        @RequestParam(defaultValue = "100") int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        return scheduledTransferService.list(accountId, after, limit);
+    }
+
+    @GetMapping(path = "/{id}")
+    public ResponseEntity<ScheduledTransfer> get(@PathVariable long id) {
+        ScheduledTransfer transfer = scheduledTransferService.get(id);
+        return transfer == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(transfer);
+    }
+
+    @DeleteMapping(path = "/{id}")
+    public ResponseEntity<Void> cancel(@PathVariable long id) {
+        return scheduledTransferService.cancel(id) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+}
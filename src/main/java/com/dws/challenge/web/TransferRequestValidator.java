@@ -0,0 +1,96 @@
+package com.dws.challenge.web;
+
+import com.dws.challenge.domain.FundTransferRequest;
+import com.dws.challenge.exception.InvalidRequestException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Validates {@link FundTransferRequest}s for the transfer endpoint. By default the Bean Validation constraints
+ * on the request are evaluated; in lean mode the same rules are checked by hand, which skips the reflective
+ * constraint walk and allocates nothing for a valid request.
+ */
+@Component
+public class TransferRequestValidator {
+
+    static final String MUST_NOT_BE_EMPTY = "must not be empty";
+
+    static final String MUST_NOT_BE_NULL = "must not be null";
+
+    static final String AMOUNT_NOT_POSITIVE = "Amount must be greater than zero";
+
+    static final String CURRENCY_NOT_ISO = "Currency must be a three letter ISO code.";
+
+    private final Validator validator;
+
+    private final boolean lean;
+
+    @Autowired
+    public TransferRequestValidator(Validator validator, @Value("${transfer.lean.enabled:false}") boolean lean) {
+        this.validator = validator;
+        this.lean = lean;
+    }
+
+    public void validate(FundTransferRequest request) {
+        if (lean) {
+            validateLean(request);
+            return;
+        }
+        Set<ConstraintViolation<FundTransferRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            Map<String, String> fieldErrors = new LinkedHashMap<>();
+            violations.forEach(violation -> fieldErrors.put(violation.getPropertyPath().toString(), violation.getMessage()));
+            throw new InvalidRequestException(fieldErrors);
+        }
+    }
+
+    private static void validateLean(FundTransferRequest request) {
+        boolean fromValid = !isEmpty(request.getAccountFrom());
+        boolean toValid = !isEmpty(request.getAccountTo());
+        BigDecimal amount = request.getAmount();
+        boolean amountValid = amount != null && amount.compareTo(BigDecimal.ONE) >= 0;
+        boolean currencyValid = request.getCurrency() == null || isIsoCode(request.getCurrency());
+        if (fromValid && toValid && amountValid && currencyValid) {
+            return;
+        }
+        Map<String, String> fieldErrors = new LinkedHashMap<>();
+        if (!fromValid) {
+            fieldErrors.put("accountFrom", MUST_NOT_BE_EMPTY);
+        }
+        if (!toValid) {
+            fieldErrors.put("accountTo", MUST_NOT_BE_EMPTY);
+        }
+        if (!amountValid) {
+            fieldErrors.put("amount", amount == null ? MUST_NOT_BE_NULL : AMOUNT_NOT_POSITIVE);
+        }
+        if (!currencyValid) {
+            fieldErrors.put("currency", CURRENCY_NOT_ISO);
+        }
+        throw new InvalidRequestException(fieldErrors);
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    private static boolean isIsoCode(String value) {
+        if (value.length() != 3) {
+            return false;
+        }
+        for (int i = 0; i < 3; i++) {
+            char c = value.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,95 @@
+package com.dws.challenge.wire;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Frames of the binary transfer protocol served by {@link BinaryTransferServer}. Every frame is prefixed with its
+ * length as an {@code int}, not counting the prefix, and all numbers are big-endian.
+ * <p>
+ * A transfer request is {@code [long requestId][byte type][byte fromLength][from][byte toLength][to]
+ * [long unscaledAmount][byte scale][byte currencyLength][currency]}, account ids and currency in UTF-8, an empty
+ * currency meaning the currency of the source account. The response is {@code [long requestId][byte status]}.
+ * A client may send any number of requests without waiting; responses come back in request order on the same
+ * connection, the request id is only echoed to help the client match them.
+ */
+public final class BinaryTransferProtocol {
+
+    public static final byte TRANSFER = 1;
+
+    public static final byte SUCCESS = 0;
+
+    public static final byte INVALID_REQUEST = 1;
+
+    public static final byte ACCOUNT_NOT_FOUND = 2;
+
+    public static final byte INSUFFICIENT_BALANCE = 3;
+
+    public static final byte VELOCITY_LIMIT_EXCEEDED = 4;
+
+    public static final byte SERVER_ERROR = 5;
+
+    public static final int LENGTH_SIZE = Integer.BYTES;
+
+    public static final int RESPONSE_SIZE = Long.BYTES + Byte.BYTES;
+
+    public static final int MAX_FRAME_SIZE = 1024;
+
+    static final int MIN_REQUEST_SIZE = Long.BYTES + Byte.BYTES;
+
+    private static final int MAX_STRING_BYTES = 255;
+
+    private BinaryTransferProtocol() {
+    }
+
+    /**
+     * Method to append a transfer request frame
+     *
+     * @param currency UTF-8 currency code, or null for the currency of the source account
+     */
+    public static void writeTransfer(ByteBuffer out, long requestId, byte[] accountFrom, byte[] accountTo,
+                                     long unscaledAmount, int scale, byte[] currency) {
+        int currencyLength = currency == null ? 0 : currency.length;
+        if (accountFrom.length > MAX_STRING_BYTES || accountTo.length > MAX_STRING_BYTES || currencyLength > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("Account ids and currency must not exceed " + MAX_STRING_BYTES + " bytes.");
+        }
+        out.putInt(MIN_REQUEST_SIZE + 1 + accountFrom.length + 1 + accountTo.length + Long.BYTES + 1 + 1 + currencyLength);
+        out.putLong(requestId).put(TRANSFER);
+        out.put((byte) accountFrom.length).put(accountFrom);
+        out.put((byte) accountTo.length).put(accountTo);
+        out.putLong(unscaledAmount).put((byte) scale);
+        out.put((byte) currencyLength);
+        if (currency != null) {
+            out.put(currency);
+        }
+    }
+
+    static void writeResponse(ByteBuffer out, long requestId, byte status) {
+        out.putInt(RESPONSE_SIZE).putLong(requestId).put(status);
+    }
+
+    /**
+     * @return the string, or null if it is empty
+     */
+    static String readString(ByteBuffer in) {
+        int length = Byte.toUnsignedInt(in.get());
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static String statusName(byte status) {
+        return switch (status) {
+            case SUCCESS -> "SUCCESS";
+            case INVALID_REQUEST -> "INVALID_REQUEST";
+            case ACCOUNT_NOT_FOUND -> "ACCOUNT_NOT_FOUND";
+            case INSUFFICIENT_BALANCE -> "INSUFFICIENT_BALANCE";
+            case VELOCITY_LIMIT_EXCEEDED -> "VELOCITY_LIMIT_EXCEEDED";
+            case SERVER_ERROR -> "SERVER_ERROR";
+            default -> "UNKNOWN(" + status + ")";
+        };
+    }
+}
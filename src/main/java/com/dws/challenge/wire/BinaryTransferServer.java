@@ -0,0 +1,393 @@
+package com.dws.challenge.wire;
+
+import com.dws.challenge.exception.InsufficientBalanceException;
+import com.dws.challenge.exception.VelocityLimitExceededException;
+import com.dws.challenge.service.AccountsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TCP ingress for the {@link BinaryTransferProtocol}, next to the JSON API and calling the same
+ * {@link AccountsService#transferMoney}. An acceptor thread hands connections round-robin to
+ * {@code transfer.binary.io-threads} selector loops. A loop decodes every complete frame it has read and hands
+ * them as one batch to a virtual thread, which runs the transfers in order; a transfer waiting on a lock or a
+ * listener therefore never holds up the other connections of the loop. The loop then writes the responses into
+ * the connection's output buffer and flushes them with one write, so a client pipelining many requests gets its
+ * responses in batches. A connection has one batch running at a time, and while it runs, or while a client stops
+ * reading, the loop stops reading from that connection.
+ * <p>
+ * Input and output buffers are direct buffers from a {@link DirectBufferPool}, requests are decoded straight from
+ * the input buffer, and amounts are built from their unscaled value without parsing.
+ */
+@Component
+@ConditionalOnProperty(name = "transfer.binary.enabled", havingValue = "true")
+@Slf4j
+public class BinaryTransferServer implements AutoCloseable {
+
+    private static final int MAX_BATCH_SIZE = 1024;
+
+    private static final int RESPONSE_FRAME_SIZE = BinaryTransferProtocol.LENGTH_SIZE + BinaryTransferProtocol.RESPONSE_SIZE;
+
+    private final AccountsService accountsService;
+
+    private final ServerSocketChannel serverChannel;
+
+    private final DirectBufferPool bufferPool;
+
+    private final IoLoop[] loops;
+
+    private final ExecutorService workers = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("binary-transfer-worker-", 0).factory());
+
+    private final Thread acceptor;
+
+    private final LongAdder transfers = new LongAdder();
+
+    private volatile boolean running = true;
+
+    @Autowired
+    public BinaryTransferServer(AccountsService accountsService,
+                                @Value("${transfer.binary.port:18081}") int port,
+                                @Value("${transfer.binary.io-threads:2}") int ioThreads,
+                                @Value("${transfer.binary.buffer-size:65536}") int bufferSize) throws IOException {
+        if (accountsService.isReadOnly()) {
+            throw new IllegalStateException("The binary transfer server only takes writes, disable it on a replica.");
+        }
+        if (bufferSize < BinaryTransferProtocol.LENGTH_SIZE + BinaryTransferProtocol.MAX_FRAME_SIZE) {
+            throw new IllegalArgumentException("Buffer size must hold at least one frame.");
+        }
+        this.accountsService = accountsService;
+        this.bufferPool = new DirectBufferPool(bufferSize, 1024);
+        this.serverChannel = ServerSocketChannel.open().bind(new InetSocketAddress(port));
+        this.loops = new IoLoop[Math.max(ioThreads, 1)];
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new IoLoop(Selector.open());
+            Thread thread = new Thread(loops[i], "binary-transfer-io-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        this.acceptor = new Thread(this::acceptLoop, "binary-transfer-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("Binary transfer protocol listening on port {} with {} I/O thread(s)", getPort(), loops.length);
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public long getTransferCount() {
+        return transfers.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverChannel.close();
+        for (IoLoop loop : loops) {
+            loop.selector.wakeup();
+        }
+        // Batches already running finish; their connections are closed by then.
+        workers.shutdown();
+    }
+
+    private void acceptLoop() {
+        int next = 0;
+        while (running) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                loops[next].register(channel);
+                next = (next + 1) % loops.length;
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                log.warn("Failed to accept a binary transfer connection", e);
+            }
+        }
+    }
+
+    /**
+     * @return the decoded transfer, or null if the request is invalid
+     */
+    private static TransferRequest decodeTransfer(ByteBuffer in) {
+        String accountFrom = BinaryTransferProtocol.readString(in);
+        String accountTo = BinaryTransferProtocol.readString(in);
+        long unscaled = in.getLong();
+        int scale = in.get();
+        String currency = BinaryTransferProtocol.readString(in);
+        if (accountFrom == null || accountTo == null || unscaled <= 0 || !isCurrencyCode(currency)) {
+            return null;
+        }
+        return new TransferRequest(accountFrom, accountTo, BigDecimal.valueOf(unscaled, scale), currency);
+    }
+
+    private byte transfer(TransferRequest request) {
+        try {
+            accountsService.transferMoney(request.accountFrom(), request.accountTo(), request.amount(), request.currency());
+            transfers.increment();
+            return BinaryTransferProtocol.SUCCESS;
+        } catch (InsufficientBalanceException e) {
+            return BinaryTransferProtocol.INSUFFICIENT_BALANCE;
+        } catch (VelocityLimitExceededException e) {
+            return BinaryTransferProtocol.VELOCITY_LIMIT_EXCEEDED;
+        } catch (IllegalArgumentException e) {
+            // Only the rejected request pays for telling a missing account from a bad amount or currency.
+            return accountsService.getAccount(request.accountFrom()) == null
+                    || accountsService.getAccount(request.accountTo()) == null
+                    ? BinaryTransferProtocol.ACCOUNT_NOT_FOUND : BinaryTransferProtocol.INVALID_REQUEST;
+        } catch (RuntimeException e) {
+            log.warn("Binary transfer from={} to={} failed", request.accountFrom(), request.accountTo(), e);
+            return BinaryTransferProtocol.SERVER_ERROR;
+        }
+    }
+
+    private static boolean isCurrencyCode(String currency) {
+        return currency == null || currency.length() == 3
+                && currency.chars().allMatch(c -> c >= 'A' && c <= 'Z');
+    }
+
+    private final class IoLoop implements Runnable {
+
+        private final Selector selector;
+
+        private final Queue<SocketChannel> registrations = new ConcurrentLinkedQueue<>();
+
+        private final Queue<Connection> completions = new ConcurrentLinkedQueue<>();
+
+        IoLoop(Selector selector) {
+            this.selector = selector;
+        }
+
+        void register(SocketChannel channel) {
+            registrations.add(channel);
+            selector.wakeup();
+        }
+
+        void complete(Connection connection) {
+            completions.add(connection);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    selector.select();
+                    SocketChannel channel;
+                    while ((channel = registrations.poll()) != null) {
+                        Connection connection = new Connection(channel, this);
+                        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                    }
+                    Connection completed;
+                    while ((completed = completions.poll()) != null) {
+                        try {
+                            completed.onBatchDone();
+                        } catch (IOException | RuntimeException e) {
+                            log.debug("Closing binary transfer connection {}", completed.channel, e);
+                            completed.close();
+                        }
+                    }
+                    for (SelectionKey key : selector.selectedKeys()) {
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (key.isValid() && key.isWritable()) {
+                                connection.onWritable();
+                            }
+                            if (key.isValid() && key.isReadable()) {
+                                connection.onReadable();
+                            }
+                        } catch (IOException | RuntimeException e) {
+                            log.debug("Closing binary transfer connection {}", connection.channel, e);
+                            connection.close();
+                        }
+                    }
+                    selector.selectedKeys().clear();
+                }
+            } catch (IOException e) {
+                log.error("Binary transfer I/O loop failed", e);
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    ((Connection) key.attachment()).close();
+                }
+                try {
+                    selector.close();
+                } catch (IOException e) {
+                    log.warn("Failed to close selector", e);
+                }
+            }
+        }
+    }
+
+    private final class Connection {
+
+        private final SocketChannel channel;
+
+        private final IoLoop loop;
+
+        private final ByteBuffer in = bufferPool.acquire();
+
+        // Kept in write mode: position is the end of the responses not yet written.
+        private final ByteBuffer out = bufferPool.acquire();
+
+        // The running batch: written by the loop before it is handed over, statuses by the worker.
+        private final long[] requestIds = new long[MAX_BATCH_SIZE];
+
+        private final TransferRequest[] requests = new TransferRequest[MAX_BATCH_SIZE];
+
+        private final byte[] statuses = new byte[MAX_BATCH_SIZE];
+
+        private int batchSize;
+
+        private boolean running;
+
+        private SelectionKey key;
+
+        private boolean closed;
+
+        Connection(SocketChannel channel, IoLoop loop) {
+            this.channel = channel;
+            this.loop = loop;
+        }
+
+        void onReadable() throws IOException {
+            if (channel.read(in) < 0) {
+                close();
+                return;
+            }
+            process();
+        }
+
+        void onWritable() throws IOException {
+            flush();
+            if (out.position() == 0) {
+                process();
+            }
+        }
+
+        void onBatchDone() throws IOException {
+            if (closed) {
+                return;
+            }
+            for (int i = 0; i < batchSize; i++) {
+                BinaryTransferProtocol.writeResponse(out, requestIds[i], statuses[i]);
+                requests[i] = null;
+            }
+            running = false;
+            process();
+        }
+
+        private void process() throws IOException {
+            flush();
+            if (running) {
+                key.interestOps(out.position() > 0 ? SelectionKey.OP_WRITE : 0);
+                return;
+            }
+            int room = Math.min(out.remaining() / RESPONSE_FRAME_SIZE, MAX_BATCH_SIZE);
+            int count = 0;
+            boolean invalidLength = false;
+            in.flip();
+            while (count < room && in.remaining() >= BinaryTransferProtocol.LENGTH_SIZE) {
+                int length = in.getInt(in.position());
+                if (length < BinaryTransferProtocol.MIN_REQUEST_SIZE || length > BinaryTransferProtocol.MAX_FRAME_SIZE) {
+                    invalidLength = true;
+                    break;
+                }
+                if (in.remaining() < BinaryTransferProtocol.LENGTH_SIZE + length) {
+                    break;
+                }
+                int frameEnd = in.position() + BinaryTransferProtocol.LENGTH_SIZE + length;
+                int limit = in.limit();
+                in.position(in.position() + BinaryTransferProtocol.LENGTH_SIZE).limit(frameEnd);
+                requestIds[count] = in.getLong();
+                try {
+                    requests[count] = in.get() == BinaryTransferProtocol.TRANSFER ? decodeTransfer(in) : null;
+                } catch (BufferUnderflowException e) {
+                    requests[count] = null;
+                }
+                statuses[count] = requests[count] == null
+                        ? BinaryTransferProtocol.INVALID_REQUEST : BinaryTransferProtocol.SERVER_ERROR;
+                count++;
+                in.limit(limit).position(frameEnd);
+            }
+            in.compact();
+            if (count > 0) {
+                batchSize = count;
+                running = true;
+                // Stop reading until the batch is answered; the frames behind it wait in the input buffer.
+                key.interestOps(out.position() > 0 ? SelectionKey.OP_WRITE : 0);
+                workers.execute(this::runBatch);
+                return;
+            }
+            if (invalidLength) {
+                // The stream cannot be resynchronised; everything before it is answered, drop the connection.
+                throw new IOException("Invalid frame length");
+            }
+            // Backpressure: stop reading while responses are waiting for the client to read them.
+            key.interestOps(out.position() > 0 ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+
+        // Runs on a worker thread.
+        private void runBatch() {
+            try {
+                for (int i = 0; i < batchSize; i++) {
+                    if (requests[i] != null) {
+                        statuses[i] = transfer(requests[i]);
+                    }
+                }
+            } finally {
+                loop.complete(this);
+            }
+        }
+
+        private void flush() throws IOException {
+            if (out.position() == 0) {
+                return;
+            }
+            out.flip();
+            channel.write(out);
+            out.compact();
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Failed to close binary transfer connection", e);
+            }
+            bufferPool.release(in);
+            bufferPool.release(out);
+        }
+    }
+
+    private record TransferRequest(String accountFrom, String accountTo, BigDecimal amount, String currency) {
+    }
+}
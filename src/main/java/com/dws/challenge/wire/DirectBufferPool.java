@@ -0,0 +1,48 @@
+package com.dws.challenge.wire;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed size direct buffers reused across connections, so a connection costs no allocation and no native
+ * memory beyond what the pool already holds. Up to {@code maxPooled} released buffers are kept; the rest are
+ * left to the garbage collector.
+ */
+final class DirectBufferPool {
+
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    private final int bufferSize;
+
+    private final int maxPooled;
+
+    DirectBufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        pooled.decrementAndGet();
+        return buffer;
+    }
+
+    void release(ByteBuffer buffer) {
+        if (pooled.incrementAndGet() <= maxPooled) {
+            buffers.offer(buffer.clear());
+        } else {
+            pooled.decrementAndGet();
+        }
+    }
+
+    int pooled() {
+        return pooled.get();
+    }
+}
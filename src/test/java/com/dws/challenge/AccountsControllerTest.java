@@ -1,9 +1,12 @@
 package com.dws.challenge;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
 
@@ -20,10 +23,11 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.context.WebApplicationContext;
 
 @ExtendWith(SpringExtension.class)
-@SpringBootTest
+@SpringBootTest(properties = "ledger.enabled=true")
 @WebAppConfiguration
 class AccountsControllerTest {
 
@@ -102,4 +106,107 @@ class AccountsControllerTest {
       .andExpect(
         content().string("{\"accountId\":\"" + uniqueAccountId + "\",\"balance\":123.45}"));
   }
+
+  @Test
+  void getTransactionsPagesNewestFirst() throws Exception {
+    this.accountsService.createAccount(new Account("Id-1", new BigDecimal("100")));
+    this.accountsService.createAccount(new Account("Id-2", BigDecimal.ZERO));
+    this.accountsService.transferMoney("Id-1", "Id-2", new BigDecimal("10"));
+    this.accountsService.transferMoney("Id-1", "Id-2", new BigDecimal("20"));
+
+    MvcResult firstPage = this.mockMvc.perform(get("/v1/accounts/Id-1/transactions?limit=2"))
+      .andExpect(request().asyncStarted()).andReturn();
+    this.mockMvc.perform(asyncDispatch(firstPage))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.accountId").value("Id-1"))
+      .andExpect(jsonPath("$.transactions.length()").value(2))
+      .andExpect(jsonPath("$.transactions[0].type").value("DEBIT"))
+      .andExpect(jsonPath("$.transactions[0].counterparty").value("Id-2"))
+      .andExpect(jsonPath("$.transactions[0].amount").value(20))
+      .andExpect(jsonPath("$.transactions[1].amount").value(10))
+      .andExpect(jsonPath("$.nextCursor").value(1));
+
+    MvcResult lastPage = this.mockMvc.perform(get("/v1/accounts/Id-1/transactions?limit=2&cursor=1"))
+      .andExpect(request().asyncStarted()).andReturn();
+    this.mockMvc.perform(asyncDispatch(lastPage))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.transactions.length()").value(1))
+      .andExpect(jsonPath("$.transactions[0].type").value("OPENING"))
+      .andExpect(jsonPath("$.transactions[0].amount").value(100))
+      .andExpect(jsonPath("$.nextCursor").isEmpty());
+  }
+
+  @Test
+  void getTransactionsUnknownAccount() throws Exception {
+    this.mockMvc.perform(get("/v1/accounts/Id-404/transactions"))
+      .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void getTransactionsStartsOverWhenIdIsReused() throws Exception {
+    this.accountsService.createAccount(new Account("Id-1", new BigDecimal("100")));
+    this.accountsService.createAccount(new Account("Id-2", BigDecimal.ZERO));
+    this.accountsService.transferMoney("Id-1", "Id-2", new BigDecimal("10"));
+    accountsService.getAccountsRepository().clearAccounts();
+    this.accountsService.createAccount(new Account("Id-1", new BigDecimal("5")));
+
+    MvcResult result = this.mockMvc.perform(get("/v1/accounts/Id-1/transactions"))
+      .andExpect(request().asyncStarted()).andReturn();
+    this.mockMvc.perform(asyncDispatch(result))
+      .andExpect(jsonPath("$.transactions.length()").value(1))
+      .andExpect(jsonPath("$.transactions[0].amount").value(5));
+  }
+
+  @Test
+  void createAccountsFromNdjson() throws Exception {
+    this.accountsService.createAccount(new Account("Id-2", BigDecimal.ZERO));
+
+    this.mockMvc.perform(post("/v1/accounts/bulk").contentType(MediaType.APPLICATION_NDJSON)
+        .content("{\"accountId\":\"Id-1\",\"balance\":100}\n"
+          + "{\"accountId\":\"Id-2\",\"balance\":5}\n"
+          + "\n"
+          + "{\"accountId\":\"Id-3\",\"balance\":-1}\n"
+          + "{not json\n"
+          + "{\"accountId\":\"Id-4\",\"balance\":1.5}\n"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.created").value(2))
+      .andExpect(jsonPath("$.duplicates").value(1))
+      .andExpect(jsonPath("$.invalid").value(2))
+      .andExpect(jsonPath("$.errors[0].line").value(4))
+      .andExpect(jsonPath("$.errors[0].reason").value("INVALID"))
+      .andExpect(jsonPath("$.errors[0].accountId").value("Id-3"))
+      .andExpect(jsonPath("$.errors[1].line").value(5))
+      .andExpect(jsonPath("$.errors[2].line").value(2))
+      .andExpect(jsonPath("$.errors[2].reason").value("DUPLICATE"))
+      .andExpect(jsonPath("$.errorsTruncated").value(false));
+
+    assertThat(accountsService.getAccount("Id-4").getBalance()).isEqualByComparingTo("1.5");
+    assertThat(accountsService.getAccount("Id-2").getBalance()).isEqualByComparingTo("0");
+  }
+
+  @Test
+  void createAccountsFromCsv() throws Exception {
+    this.mockMvc.perform(post("/v1/accounts/bulk").contentType("text/csv")
+        .content("accountId,balance\nId-1,100\nId-2,abc\n,5\nId-1,7\n"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.created").value(1))
+      .andExpect(jsonPath("$.duplicates").value(1))
+      .andExpect(jsonPath("$.invalid").value(2))
+      .andExpect(jsonPath("$.errors[0].line").value(3))
+      .andExpect(jsonPath("$.errors[1].line").value(4))
+      .andExpect(jsonPath("$.errors[2].line").value(5));
+
+    assertThat(accountsService.getAccount("Id-1").getBalance()).isEqualByComparingTo("100");
+  }
+
+  @Test
+  void getAccountsReadsSeveralBalances() throws Exception {
+    this.accountsService.createAccount(new Account("Id-1", new BigDecimal("100")));
+    this.accountsService.createAccount(new Account("Id-2", new BigDecimal("2.50")));
+
+    this.mockMvc.perform(get("/v1/accounts?ids=Id-2,Id-404,Id-1"))
+      .andExpect(status().isOk())
+      .andExpect(content().string("{\"accounts\":[{\"accountId\":\"Id-2\",\"balance\":2.50},"
+        + "{\"accountId\":\"Id-1\",\"balance\":100}],\"missing\":[\"Id-404\"]}"));
+  }
 }
@@ -0,0 +1,89 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import org.junit.jupiter.api.Test;
+
+class AccountsRepositoryInMemoryTest {
+
+  private final AccountsRepositoryInMemory repository = new AccountsRepositoryInMemory();
+
+  @Test
+  void accountsGetDenseHandlesInCreationOrder() {
+    List<Account> batch = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      batch.add(new Account("Id-" + i, BigDecimal.TEN));
+    }
+    batch.add(new Account("Id-5", BigDecimal.ONE));
+    boolean[] created = repository.createAccounts(batch);
+
+    for (int i = 0; i < 10_000; i++) {
+      assertThat(created[i]).isTrue();
+      Account account = repository.getAccount(new String("Id-" + i));
+      assertThat(account).isSameAs(batch.get(i));
+      assertThat(account.getHandle()).isEqualTo(i);
+    }
+    assertThat(created[10_000]).isFalse();
+    assertThat(batch.get(10_000).getHandle()).isEqualTo(-1);
+    assertThat(repository.getAccount("Id-10000")).isNull();
+  }
+
+  @Test
+  void duplicateIdIsRejectedAndClearRestartsHandles() {
+    repository.createAccount(new Account("Id-1"));
+    assertThatThrownBy(() -> repository.createAccount(new Account("Id-1")))
+        .isInstanceOf(DuplicateAccountIdException.class);
+
+    repository.clearAccounts();
+    assertThat(repository.getAccount("Id-1")).isNull();
+    Account account = new Account("Id-2");
+    repository.createAccount(account);
+    assertThat(account.getHandle()).isZero();
+  }
+
+  @Test
+  void lookupsDuringInsertsAndResizesSeeEveryCreatedAccount() throws Exception {
+    int accounts = 200_000;
+    AtomicBoolean done = new AtomicBoolean();
+    try (ExecutorService readers = Executors.newFixedThreadPool(4)) {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int r = 0; r < 4; r++) {
+        futures.add(readers.submit(() -> {
+          while (!done.get()) {
+            // Ids are created in order, so every id below the newest one found must be there too.
+            int newest = -1;
+            for (int i = 0; i < accounts && repository.getAccount("Id-" + i) != null; i++) {
+              newest = i;
+            }
+            for (int i = 0; i <= newest; i++) {
+              Account account = repository.getAccount("Id-" + i);
+              assertThat(account).isNotNull();
+              assertThat(account.getAccountId()).isEqualTo("Id-" + i);
+            }
+          }
+          return null;
+        }));
+      }
+      for (int i = 0; i < accounts; i++) {
+        repository.createAccount(new Account("Id-" + i));
+      }
+      done.set(true);
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    }
+    assertThat(repository.getAccount("Id-" + (accounts - 1)).getHandle()).isEqualTo(accounts - 1);
+  }
+}
@@ -66,6 +66,19 @@ class AccountsServiceTest {
         Assertions.assertEquals(0, this.accountsService.getAccount("Id-011").getBalance().compareTo(BigDecimal.valueOf(600)));
     }
 
+    @Test
+    void transferMoneyAcrossCurrencies() {
+        this.accountsService.createAccount(new Account("Id-fx-eur", new BigDecimal(1000)));
+        this.accountsService.createAccount(new Account("Id-fx-usd", new BigDecimal(100), "USD"));
+
+        this.accountsService.transferMoney("Id-fx-eur", "Id-fx-usd", BigDecimal.valueOf(100));
+        this.accountsService.transferMoney("Id-fx-eur", "Id-fx-usd", BigDecimal.valueOf(54), "USD");
+
+        assertThat(this.accountsService.getAccount("Id-fx-eur").getBalance()).isEqualByComparingTo("850");
+        assertThat(this.accountsService.getAccount("Id-fx-usd").getBalance()).isEqualByComparingTo("262");
+        assertThat(this.accountsService.getBalance("Id-fx-usd").getCurrency()).isEqualTo("USD");
+    }
+
     @Test
     void transferMoneyNegativeAmount() {
         Account accountFrom = new Account("Id-111");
@@ -0,0 +1,112 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.service.AsyncNotificationService;
+import com.dws.challenge.service.AsyncNotificationService.OverflowPolicy;
+import com.dws.challenge.service.NotificationService;
+import org.junit.jupiter.api.Test;
+
+class AsyncNotificationServiceTest {
+
+  private final List<String> deliveries = new CopyOnWriteArrayList<>();
+
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  // Blocks the dispatcher on the first delivery so the queue can be filled deterministically.
+  private final NotificationService slowDelegate = (account, description) -> {
+    try {
+      release.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    deliveries.add(account.getAccountId() + ": " + description);
+  };
+
+  @Test
+  void coalescesQueuedNotificationsPerAccount() throws Exception {
+    Account first = new Account("Id-1", BigDecimal.TEN);
+    Account second = new Account("Id-2", BigDecimal.TEN);
+    try (AsyncNotificationService service = new AsyncNotificationService(slowDelegate, 16, OverflowPolicy.BLOCK, 16, Thread::new)) {
+      service.notifyAboutTransfer(first, "warm-up");
+      awaitQueueDrained(service);
+
+      service.notifyAboutTransfer(first, "a");
+      service.notifyAboutTransfer(second, "b");
+      service.notifyAboutTransfer(first, "c");
+      release.countDown();
+
+      awaitDelivered(service, 4);
+    }
+    assertThat(deliveries).containsExactly(
+        "Id-1: warm-up",
+        "Id-1: a" + System.lineSeparator() + "c",
+        "Id-2: b");
+  }
+
+  @Test
+  void dropPolicyDiscardsWhenQueueIsFull() throws Exception {
+    Account account = new Account("Id-1", BigDecimal.TEN);
+    try (AsyncNotificationService service = new AsyncNotificationService(slowDelegate, 1, OverflowPolicy.DROP, 1, Thread::new)) {
+      service.notifyAboutTransfer(account, "in-flight");
+      awaitQueueDrained(service);
+
+      service.notifyAboutTransfer(account, "queued");
+      service.notifyAboutTransfer(account, "dropped");
+
+      assertThat(service.getDroppedCount()).isEqualTo(1);
+      assertThat(service.getQueueDepth()).isEqualTo(1);
+      release.countDown();
+    }
+    assertThat(deliveries).containsExactly("Id-1: in-flight", "Id-1: queued");
+  }
+
+  @Test
+  void spillPolicyDeliversOnCallerWhenQueueIsFull() throws Exception {
+    Account account = new Account("Id-1", BigDecimal.TEN);
+    release.countDown();
+    List<String> callerThreads = new CopyOnWriteArrayList<>();
+    CountDownLatch blockDispatcher = new CountDownLatch(1);
+    NotificationService delegate = (acc, description) -> {
+      if (description.equals("in-flight")) {
+        try {
+          blockDispatcher.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      callerThreads.add(description + "@" + Thread.currentThread().getName());
+    };
+    try (AsyncNotificationService service = new AsyncNotificationService(delegate, 1, OverflowPolicy.SPILL, 1, Thread::new)) {
+      service.notifyAboutTransfer(account, "in-flight");
+      awaitQueueDrained(service);
+      service.notifyAboutTransfer(account, "queued");
+      service.notifyAboutTransfer(account, "spilled");
+
+      assertThat(service.getSpilledCount()).isEqualTo(1);
+      blockDispatcher.countDown();
+    }
+    assertThat(callerThreads).contains("spilled@" + Thread.currentThread().getName());
+  }
+
+  private static void awaitQueueDrained(AsyncNotificationService service) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (service.getQueueDepth() > 0 && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+  }
+
+  private static void awaitDelivered(AsyncNotificationService service, long count) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (service.getDeliveredCount() < count && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+  }
+}
@@ -0,0 +1,185 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.TransferListener;
+import com.dws.challenge.service.engine.StripedLockTransferEngine;
+import com.dws.challenge.wire.BinaryTransferProtocol;
+import com.dws.challenge.wire.BinaryTransferServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BinaryTransferServerTest {
+
+  private AccountsService accountsService;
+
+  private BinaryTransferServer server;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    accountsService = AccountsService.builder()
+        .accountsRepository(new AccountsRepositoryInMemory())
+        .transferEngine(new StripedLockTransferEngine(16))
+        .notificationService((account, description) -> {
+        })
+        .build();
+    accountsService.createAccount(new Account("Id-1", new BigDecimal(1000)));
+    accountsService.createAccount(new Account("Id-2", new BigDecimal(100)));
+    server = new BinaryTransferServer(accountsService, 0, 2, 4096);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    server.close();
+  }
+
+  @Test
+  void pipelinedTransfersAreAnsweredInOrder() throws IOException {
+    int transfers = 2_000;
+    ByteBuffer out = ByteBuffer.allocate(256 * 1024);
+    for (int i = 0; i < transfers; i++) {
+      transfer(out, i, "Id-1", "Id-2", 25, 2, null);
+    }
+    transfer(out, transfers, "Id-1", "Missing", 1, 0, null);
+    transfer(out, transfers + 1, "Id-2", "Id-1", 1_000_000, 0, null);
+    transfer(out, transfers + 2, "Id-2", "Id-1", 0, 0, null);
+    transfer(out, transfers + 3, "Id-2", "Id-1", 1, 0, "usd");
+    transfer(out, transfers + 4, "Id-2", "Id-1", 10, 0, "EUR");
+
+    try (SocketChannel channel = connect()) {
+      write(channel, out);
+      ByteBuffer responses = read(channel, transfers + 5);
+      for (int i = 0; i < transfers; i++) {
+        assertResponse(responses, i, BinaryTransferProtocol.SUCCESS);
+      }
+      assertResponse(responses, transfers, BinaryTransferProtocol.ACCOUNT_NOT_FOUND);
+      assertResponse(responses, transfers + 1, BinaryTransferProtocol.INSUFFICIENT_BALANCE);
+      assertResponse(responses, transfers + 2, BinaryTransferProtocol.INVALID_REQUEST);
+      assertResponse(responses, transfers + 3, BinaryTransferProtocol.INVALID_REQUEST);
+      assertResponse(responses, transfers + 4, BinaryTransferProtocol.SUCCESS);
+    }
+
+    assertThat(accountsService.getAccount("Id-1").getBalance()).isEqualByComparingTo("510");
+    assertThat(accountsService.getAccount("Id-2").getBalance()).isEqualByComparingTo("590");
+    assertThat(server.getTransferCount()).isEqualTo(transfers + 1);
+  }
+
+  @Test
+  void frameSplitAcrossWritesIsReassembled() throws Exception {
+    ByteBuffer out = ByteBuffer.allocate(1024);
+    transfer(out, 42, "Id-1", "Id-2", 5, 0, null);
+    out.flip();
+    try (SocketChannel channel = connect()) {
+      while (out.hasRemaining()) {
+        ByteBuffer piece = out.slice(out.position(), Math.min(3, out.remaining()));
+        out.position(out.position() + piece.remaining());
+        channel.write(piece);
+        Thread.sleep(1);
+      }
+      assertResponse(read(channel, 1), 42, BinaryTransferProtocol.SUCCESS);
+    }
+    assertThat(accountsService.getAccount("Id-2").getBalance()).isEqualByComparingTo("105");
+  }
+
+  @Test
+  void truncatedFrameIsRejectedAndInvalidLengthClosesTheConnection() throws IOException {
+    ByteBuffer out = ByteBuffer.allocate(1024);
+    // A frame whose account id claims more bytes than the frame holds.
+    out.putInt(BinaryTransferProtocol.RESPONSE_SIZE + 1).putLong(7).put(BinaryTransferProtocol.TRANSFER).put((byte) 20);
+    out.putInt(BinaryTransferProtocol.MAX_FRAME_SIZE + 1);
+    try (SocketChannel channel = connect()) {
+      write(channel, out);
+      assertResponse(read(channel, 1), 7, BinaryTransferProtocol.INVALID_REQUEST);
+      assertThat(channel.read(ByteBuffer.allocate(16))).isEqualTo(-1);
+    }
+  }
+
+  @Test
+  void slowTransferDoesNotHoldUpOtherConnectionsOfTheLoop() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    AccountsService slowService = AccountsService.builder()
+        .accountsRepository(new AccountsRepositoryInMemory())
+        .transferEngine(new StripedLockTransferEngine(16))
+        .notificationService((account, description) -> {
+        })
+        .transferListeners(List.of(new TransferListener() {
+          @Override
+          public void onTransfer(Account from, Account to, BigDecimal amount) {
+            if (from.getAccountId().equals("Id-slow")) {
+              try {
+                release.await(10, TimeUnit.SECONDS);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            }
+          }
+        }))
+        .build();
+    slowService.createAccount(new Account("Id-slow", new BigDecimal(100)));
+    slowService.createAccount(new Account("Id-1", new BigDecimal(100)));
+    slowService.createAccount(new Account("Id-2", new BigDecimal(100)));
+    // One I/O thread, so both connections share a loop.
+    try (BinaryTransferServer singleLoop = new BinaryTransferServer(slowService, 0, 1, 4096);
+         SocketChannel slow = SocketChannel.open(new InetSocketAddress("localhost", singleLoop.getPort()));
+         SocketChannel fast = SocketChannel.open(new InetSocketAddress("localhost", singleLoop.getPort()))) {
+      ByteBuffer out = ByteBuffer.allocate(1024);
+      transfer(out, 1, "Id-slow", "Id-1", 5, 0, null);
+      write(slow, out);
+      out.clear();
+      transfer(out, 2, "Id-1", "Id-2", 5, 0, null);
+      write(fast, out);
+
+      assertResponse(read(fast, 1), 2, BinaryTransferProtocol.SUCCESS);
+      release.countDown();
+      assertResponse(read(slow, 1), 1, BinaryTransferProtocol.SUCCESS);
+    } finally {
+      release.countDown();
+    }
+  }
+
+  private SocketChannel connect() throws IOException {
+    return SocketChannel.open(new InetSocketAddress("localhost", server.getPort()));
+  }
+
+  private static void transfer(ByteBuffer out, long requestId, String from, String to, long unscaled, int scale,
+      String currency) {
+    BinaryTransferProtocol.writeTransfer(out, requestId, from.getBytes(StandardCharsets.UTF_8),
+        to.getBytes(StandardCharsets.UTF_8), unscaled, scale,
+        currency == null ? null : currency.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static void write(SocketChannel channel, ByteBuffer out) throws IOException {
+    out.flip();
+    while (out.hasRemaining()) {
+      channel.write(out);
+    }
+  }
+
+  private static ByteBuffer read(SocketChannel channel, int responses) throws IOException {
+    ByteBuffer in = ByteBuffer.allocate(responses * (BinaryTransferProtocol.LENGTH_SIZE + BinaryTransferProtocol.RESPONSE_SIZE));
+    while (in.hasRemaining()) {
+      assertThat(channel.read(in)).isNotNegative();
+    }
+    return in.flip();
+  }
+
+  private static void assertResponse(ByteBuffer responses, long requestId, byte status) {
+    assertThat(responses.getInt()).isEqualTo(BinaryTransferProtocol.RESPONSE_SIZE);
+    assertThat(responses.getLong()).isEqualTo(requestId);
+    assertThat(BinaryTransferProtocol.statusName(responses.get())).isEqualTo(BinaryTransferProtocol.statusName(status));
+  }
+}
@@ -0,0 +1,111 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.FixedPointAccount;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountFactory;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.engine.CasTransferEngine;
+import com.dws.challenge.service.engine.ShardedTransferEngine;
+import com.dws.challenge.service.engine.StripedLockTransferEngine;
+import com.dws.challenge.service.engine.TransferEngine;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+class FixedPointAccountTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  void keepsAccountJsonShape() throws Exception {
+    FixedPointAccount account = objectMapper.readValue("{\"accountId\":\"Id-123\",\"balance\":123.45}", FixedPointAccount.class);
+
+    assertThat(account.getBalanceMinorUnits()).isEqualTo(12345L);
+    assertThat(objectMapper.writeValueAsString(account)).isEqualTo("{\"accountId\":\"Id-123\",\"balance\":123.45}");
+  }
+
+  @Test
+  void depositAndWithdrawInMinorUnits() {
+    FixedPointAccount account = new FixedPointAccount("Id-123", new BigDecimal("10.00"), 2);
+
+    account.deposit(new BigDecimal("0.55"));
+    assertThat(account.withdraw(1055L)).isFalse();
+    assertThat(account.withdraw(1000L)).isTrue();
+
+    assertThat(account.getBalance()).isEqualByComparingTo("0.55");
+  }
+
+  @Test
+  void rejectsAmountsBeyondCurrencyScale() {
+    assertThatThrownBy(() -> new FixedPointAccount("Id-123", new BigDecimal("1.001"), 2))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void detectsOverflow() {
+    FixedPointAccount account = new FixedPointAccount("Id-123", Long.MAX_VALUE - 1, 2);
+
+    assertThatThrownBy(() -> account.deposit(2L)).isInstanceOf(ArithmeticException.class);
+    assertThat(account.getBalanceMinorUnits()).isEqualTo(Long.MAX_VALUE - 1);
+  }
+
+  @Test
+  void transfersRunOnFixedPointAccountsWhenEnabled() {
+    AccountsService accountsService = AccountsService.builder()
+        .accountsRepository(new AccountsRepositoryInMemory())
+        .transferEngine(new StripedLockTransferEngine(16))
+        .notificationService((account, description) -> {
+        })
+        .accountFactory(new AccountFactory(List.of(), 1, true, "EUR"))
+        .build();
+    accountsService.createAccount(new Account("Id-1", new BigDecimal("100")));
+    accountsService.createAccount(new Account("Id-2", new BigDecimal("0.125")));
+    assertThat(accountsService.getAccount("Id-1")).isInstanceOf(FixedPointAccount.class);
+    assertThat(((FixedPointAccount) accountsService.getAccount("Id-2")).getScale()).isEqualTo(3);
+
+    assertThat(accountsService.transferMoney("Id-1", "Id-2", new BigDecimal("10.50"))).isTrue();
+    assertThatThrownBy(() -> accountsService.transferMoney("Id-2", "Id-1", new BigDecimal("0.001")))
+        .isInstanceOf(IllegalArgumentException.class);
+
+    assertThat(accountsService.getAccount("Id-1").getBalance()).isEqualByComparingTo("89.50");
+    assertThat(accountsService.getAccount("Id-2").getBalance()).isEqualByComparingTo("10.625");
+  }
+
+  @Test
+  void refusesCreditsThatWouldOverflowBeforeDebiting() {
+    AccountsService accountsService = AccountsService.builder()
+        .accountsRepository(new AccountsRepositoryInMemory())
+        .transferEngine(new StripedLockTransferEngine(16))
+        .notificationService((account, description) -> {
+        })
+        .build();
+    accountsService.createAccount(new Account("Id-big", new BigDecimal("1e30")));
+    accountsService.createAccount(new FixedPointAccount("Id-fixed", Long.MAX_VALUE - 100, 2));
+
+    assertThatThrownBy(() -> accountsService.transferMoney("Id-big", "Id-fixed", new BigDecimal("1e20")))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> accountsService.transferMoney("Id-big", "Id-fixed", new BigDecimal("2.00")))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThat(accountsService.getAccount("Id-big").getBalance()).isEqualByComparingTo("1e30");
+    assertThat(accountsService.transferMoney("Id-big", "Id-fixed", new BigDecimal("0.50"))).isTrue();
+  }
+
+  @Test
+  void enginesGiveTheDebitBackWhenTheCreditThrows() {
+    for (TransferEngine engine : List.of(new StripedLockTransferEngine(16), new CasTransferEngine(),
+        new ShardedTransferEngine(2, 64))) {
+      Account from = new Account("Id-big", new BigDecimal(1000));
+      FixedPointAccount to = new FixedPointAccount("Id-fixed", Long.MAX_VALUE - 1, 2);
+
+      assertThatThrownBy(() -> engine.transfer(from, to, BigDecimal.TEN)).isInstanceOf(ArithmeticException.class);
+      assertThat(from.getBalance()).isEqualByComparingTo("1000");
+      assertThat(to.getBalanceMinorUnits()).isEqualTo(Long.MAX_VALUE - 1);
+    }
+  }
+}
@@ -21,6 +21,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
 
@@ -109,4 +110,109 @@ class FundTransferControllerTest {
     Account accountTo = accountsService.getAccount("Id-222");
     assertThat(accountTo.getBalance()).isEqualByComparingTo("1100");
   }
+
+  @Test
+  void transferBatchBestEffortReportsEachTransfer() throws Exception {
+    this.mockMvc.perform(post("/v1/transfer/batch").contentType(MediaType.APPLICATION_JSON)
+            .content("[{\"accountFrom\":\"Id-111\",\"accountTo\":\"Id-222\",\"amount\":300},"
+                    + "{\"accountFrom\":\"Id-222\",\"accountTo\":\"Id-111\",\"amount\":5000},"
+                    + "{\"accountFrom\":\"Id-999\",\"accountTo\":\"Id-111\",\"amount\":10},"
+                    + "{\"accountFrom\":\"Id-111\",\"accountTo\":\"Id-222\",\"amount\":200}]"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.succeeded").value(2))
+            .andExpect(jsonPath("$.failed").value(2))
+            .andExpect(jsonPath("$.results[0].status").value("SUCCESS"))
+            .andExpect(jsonPath("$.results[1].status").value("INSUFFICIENT_BALANCE"))
+            .andExpect(jsonPath("$.results[2].status").value("ACCOUNT_NOT_FOUND"))
+            .andExpect(jsonPath("$.results[3].status").value("SUCCESS"));
+
+    assertThat(accountsService.getAccount("Id-111").getBalance()).isEqualByComparingTo("500");
+    assertThat(accountsService.getAccount("Id-222").getBalance()).isEqualByComparingTo("1000");
+  }
+
+  @Test
+  void transferBatchBestEffortKeepsRequestOrderAcrossAccountPairs() throws Exception {
+    this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"accountId\":\"Id-333\",\"balance\":0}")).andExpect(status().isCreated());
+
+    // The third transfer is only covered once the second one has credited Id-222.
+    this.mockMvc.perform(post("/v1/transfer/batch").contentType(MediaType.APPLICATION_JSON)
+            .content("[{\"accountFrom\":\"Id-222\",\"accountTo\":\"Id-333\",\"amount\":400},"
+                    + "{\"accountFrom\":\"Id-111\",\"accountTo\":\"Id-222\",\"amount\":300},"
+                    + "{\"accountFrom\":\"Id-222\",\"accountTo\":\"Id-333\",\"amount\":350}]"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.succeeded").value(3));
+
+    assertThat(accountsService.getAccount("Id-222").getBalance()).isEqualByComparingTo("50");
+    assertThat(accountsService.getAccount("Id-333").getBalance()).isEqualByComparingTo("750");
+  }
+
+  @Test
+  void transferBatchAtomicAppliesAllTransfers() throws Exception {
+    this.mockMvc.perform(post("/v1/transfer/batch?mode=ATOMIC").contentType(MediaType.APPLICATION_JSON)
+            .content("[{\"accountFrom\":\"Id-111\",\"accountTo\":\"Id-222\",\"amount\":900},"
+                    + "{\"accountFrom\":\"Id-222\",\"accountTo\":\"Id-111\",\"amount\":1200}]"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.succeeded").value(2));
+
+    assertThat(accountsService.getAccount("Id-111").getBalance()).isEqualByComparingTo("1300");
+    assertThat(accountsService.getAccount("Id-222").getBalance()).isEqualByComparingTo("200");
+  }
+
+  @Test
+  void transferBatchAtomicRollsBackOnInsufficientBalance() throws Exception {
+    this.mockMvc.perform(post("/v1/transfer/batch?mode=ATOMIC").contentType(MediaType.APPLICATION_JSON)
+            .content("[{\"accountFrom\":\"Id-111\",\"accountTo\":\"Id-222\",\"amount\":300},"
+                    + "{\"accountFrom\":\"Id-111\",\"accountTo\":\"Id-222\",\"amount\":800}]"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.results[0].status").value("NOT_EXECUTED"))
+            .andExpect(jsonPath("$.results[1].status").value("INSUFFICIENT_BALANCE"));
+
+    assertThat(accountsService.getAccount("Id-111").getBalance()).isEqualByComparingTo("1000");
+    assertThat(accountsService.getAccount("Id-222").getBalance()).isEqualByComparingTo("500");
+  }
+
+  @Test
+  void transferWithIdempotencyKeyIsAppliedOnce() throws Exception {
+    String idempotencyKey = "key-" + System.nanoTime();
+    for (int i = 0; i < 3; i++) {
+      MvcResult mvcResult = this.mockMvc.perform(post("/v1/transfer").contentType(MediaType.APPLICATION_JSON)
+              .header("Idempotency-Key", idempotencyKey)
+              .content("{\"accountFrom\":\"Id-111\",\"accountTo\":\"Id-222\",\"amount\":300}")).andExpect(status().isOk()).andReturn();
+      Assertions.assertEquals("Transfer Successful", mvcResult.getResponse().getContentAsString());
+    }
+
+    assertThat(accountsService.getAccount("Id-111").getBalance()).isEqualByComparingTo("700");
+    assertThat(accountsService.getAccount("Id-222").getBalance()).isEqualByComparingTo("800");
+  }
+
+  @Test
+  void transferWithIdempotencyKeyReplaysFailure() throws Exception {
+    String idempotencyKey = "key-" + System.nanoTime();
+    this.mockMvc.perform(post("/v1/transfer").contentType(MediaType.APPLICATION_JSON)
+            .header("Idempotency-Key", idempotencyKey)
+            .content("{\"accountFrom\":\"Id-222\",\"accountTo\":\"Id-111\",\"amount\":600}")).andExpect(status().isBadRequest());
+
+    // The balance now covers the amount, but the retry still gets the original outcome.
+    accountsService.getAccount("Id-222").deposit(new BigDecimal(1000));
+    MvcResult mvcResult = this.mockMvc.perform(post("/v1/transfer").contentType(MediaType.APPLICATION_JSON)
+            .header("Idempotency-Key", idempotencyKey)
+            .content("{\"accountFrom\":\"Id-222\",\"accountTo\":\"Id-111\",\"amount\":600}")).andExpect(status().isBadRequest()).andReturn();
+    Assertions.assertEquals("Insufficient balance in the source account.", mvcResult.getResponse().getContentAsString());
+    assertThat(accountsService.getAccount("Id-222").getBalance()).isEqualByComparingTo("1500");
+  }
+
+  @Test
+  void transferWithReusedIdempotencyKeyIsRejected() throws Exception {
+    String idempotencyKey = "key-" + System.nanoTime();
+    this.mockMvc.perform(post("/v1/transfer").contentType(MediaType.APPLICATION_JSON)
+            .header("Idempotency-Key", idempotencyKey)
+            .content("{\"accountFrom\":\"Id-111\",\"accountTo\":\"Id-222\",\"amount\":300}")).andExpect(status().isOk());
+
+    this.mockMvc.perform(post("/v1/transfer").contentType(MediaType.APPLICATION_JSON)
+            .header("Idempotency-Key", idempotencyKey)
+            .content("{\"accountFrom\":\"Id-111\",\"accountTo\":\"Id-222\",\"amount\":100}")).andExpect(status().isUnprocessableEntity());
+
+    assertThat(accountsService.getAccount("Id-111").getBalance()).isEqualByComparingTo("700");
+  }
 }
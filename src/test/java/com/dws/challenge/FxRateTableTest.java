@@ -0,0 +1,90 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.dws.challenge.fx.FxRateProvider;
+import com.dws.challenge.fx.FxRateTable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FxRateTableTest {
+
+  @TempDir
+  Path directory;
+
+  private final FxRateTable table = FxRateTable.of("EUR",
+      Map.of("USD", new BigDecimal("1.08"), "JPY", new BigDecimal("162")));
+
+  @Test
+  void convertsThroughCrossRatesToTheTargetMinorUnit() {
+    assertThat(table.convert(new BigDecimal("100"), "EUR", "USD")).isEqualTo(new BigDecimal("108.00"));
+    assertThat(table.convert(new BigDecimal("108"), "USD", "EUR")).isEqualTo(new BigDecimal("100.00"));
+    assertThat(table.convert(new BigDecimal("10.01"), "USD", "JPY")).isEqualTo(new BigDecimal("1502"));
+    assertThat(table.convert(new BigDecimal("1"), null, "USD")).isEqualTo(new BigDecimal("1.08"));
+  }
+
+  @Test
+  void leavesSameCurrencyAmountsUntouched() {
+    BigDecimal amount = new BigDecimal("10.005");
+
+    assertThat(table.convert(amount, "USD", "USD")).isSameAs(amount);
+    assertThat(table.convert(amount, null, "EUR")).isSameAs(amount);
+    assertThat(table.rate("EUR", "EUR")).isEqualTo(BigDecimal.ONE);
+  }
+
+  @Test
+  void rejectsUnknownCurrenciesAndInvalidRates() {
+    assertThatThrownBy(() -> table.convert(BigDecimal.ONE, "EUR", "GBP"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("No exchange rate from EUR to GBP.");
+    assertThat(table.rate("GBP", "EUR")).isNull();
+    assertThatThrownBy(() -> FxRateTable.of("EUR", Map.of("USD", BigDecimal.ZERO)))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> FxRateTable.of("EUR", Map.of("usd", BigDecimal.ONE)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void providerSwapsWholeTables() throws Exception {
+    Path file = directory.resolve("rates.properties");
+    Files.writeString(file, "USD=1.10\n");
+    try (FxRateProvider provider = new FxRateProvider("EUR", List.of("GBP=0.85"), file.toString(), 0)) {
+      FxRateTable loaded = provider.current();
+      assertThat(loaded.getRates()).containsOnlyKeys("EUR", "USD");
+
+      provider.update(Map.of("GBP", new BigDecimal("0.90")));
+
+      assertThat(provider.current().convert(BigDecimal.TEN, "EUR", "GBP")).isEqualTo(new BigDecimal("9.00"));
+      assertThat(loaded.convert(BigDecimal.TEN, "EUR", "USD")).isEqualTo(new BigDecimal("11.00"));
+      assertThatThrownBy(() -> provider.update(Map.of("GBP", new BigDecimal("-1"))))
+          .isInstanceOf(IllegalArgumentException.class);
+      assertThat(provider.current().supports("GBP")).isTrue();
+    }
+  }
+
+  @Test
+  void providerReloadsTheRatesFileWhenItChanges() throws Exception {
+    Path file = directory.resolve("rates.properties");
+    Files.writeString(file, "USD=1.10\n");
+    try (FxRateProvider provider = new FxRateProvider("EUR", List.of(), file.toString(), 1)) {
+      Files.writeString(file, "USD=1.20\n");
+      Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (provider.current().rate("EUR", "USD").compareTo(new BigDecimal("1.20")) != 0
+          && System.nanoTime() < deadline) {
+        Thread.sleep(50);
+      }
+      assertThat(provider.current().rate("EUR", "USD")).isEqualByComparingTo("1.20");
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.dws.challenge.service.IdempotencyCache;
+import org.junit.jupiter.api.Test;
+
+class IdempotencyCacheTest {
+
+  @Test
+  void concurrentRetriesRunTheActionOnce() throws Exception {
+    IdempotencyCache cache = new IdempotencyCache(600, 100);
+    AtomicInteger executions = new AtomicInteger();
+    CountDownLatch running = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<String> original = executor.submit(() -> cache.execute("key", "request", () -> {
+        executions.incrementAndGet();
+        running.countDown();
+        await(release);
+        return "done";
+      }));
+      running.await(5, TimeUnit.SECONDS);
+      Future<String> retry = executor.submit(() -> cache.execute("key", "request", () -> {
+        executions.incrementAndGet();
+        return "again";
+      }));
+      release.countDown();
+
+      assertThat(original.get(5, TimeUnit.SECONDS)).isEqualTo("done");
+      assertThat(retry.get(5, TimeUnit.SECONDS)).isEqualTo("done");
+      assertThat(executions).hasValue(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void evictsOldestKeysBeyondCapacity() {
+    IdempotencyCache cache = new IdempotencyCache(600, 2);
+    cache.execute("first", "request", () -> 1);
+    cache.execute("second", "request", () -> 2);
+    cache.execute("third", "request", () -> 3);
+
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.execute("first", "request", () -> 4)).isEqualTo(4);
+    assertThat(cache.execute("third", "request", () -> 5)).isEqualTo(3);
+  }
+
+  @Test
+  void expiresKeysAfterTheRetryWindow() {
+    IdempotencyCache cache = new IdempotencyCache(0, 100);
+    cache.execute("key", "request", () -> 1);
+
+    assertThat(cache.execute("key", "request", () -> 2)).isEqualTo(2);
+  }
+
+  @Test
+  void errorReleasesWaitingRetriesAndForgetsTheKey() throws Exception {
+    IdempotencyCache cache = new IdempotencyCache(600, 100);
+    CountDownLatch running = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<String> original = executor.submit(() -> cache.execute("key", "request", () -> {
+        running.countDown();
+        await(release);
+        throw new AssertionError("listener failed");
+      }));
+      running.await(5, TimeUnit.SECONDS);
+      Future<String> retry = executor.submit(() -> cache.execute("key", "request", () -> "again"));
+      release.countDown();
+
+      assertThatThrownBy(() -> original.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(AssertionError.class);
+      // The waiting retry is released either with the error or, if it arrived after it, by running again,
+      // in which case its outcome is the one kept for the key.
+      String kept = "later";
+      try {
+        kept = retry.get(5, TimeUnit.SECONDS);
+        assertThat(kept).isEqualTo("again");
+      } catch (ExecutionException e) {
+        assertThat(e).hasCauseInstanceOf(AssertionError.class);
+      }
+      assertThat(cache.execute("key", "request", () -> "later")).isEqualTo(kept);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package com.dws.challenge;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CountDownLatch;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.exception.GlobalExceptionHandler;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.NotificationService;
+import com.dws.challenge.service.engine.StripedLockTransferEngine;
+import com.dws.challenge.web.ReactiveAccountsController;
+import com.dws.challenge.web.ReactiveFundTransferController;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+class ReactiveFundTransferControllerTest {
+
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  private Scheduler scheduler;
+
+  private AccountsService accountsService;
+
+  private WebTestClient webTestClient;
+
+  @BeforeEach
+  void setUp() {
+    scheduler = Schedulers.newBoundedElastic(1, 1, "transfer-test");
+    accountsService = AccountsService.builder()
+        .accountsRepository(new AccountsRepositoryInMemory())
+        .transferEngine(new StripedLockTransferEngine(16))
+        .notificationService(Mockito.mock(NotificationService.class))
+        .build();
+    webTestClient = WebTestClient.bindToController(new ReactiveFundTransferController(accountsService, scheduler),
+            new ReactiveAccountsController(accountsService, scheduler))
+        .controllerAdvice(new GlobalExceptionHandler())
+        .build();
+  }
+
+  @AfterEach
+  void tearDown() {
+    release.countDown();
+    scheduler.dispose();
+  }
+
+  @Test
+  void createAccountAndTransfer() {
+    createAccount("Id-1", "100");
+    createAccount("Id-2", "0");
+
+    transfer("Id-1", "Id-2", "40").expectStatus().isOk().expectBody(String.class).isEqualTo("Transfer Successful");
+
+    webTestClient.get().uri("/v2/accounts/Id-2").exchange()
+        .expectStatus().isOk()
+        .expectBody().jsonPath("$.balance").isEqualTo(40);
+  }
+
+  @Test
+  void mapsServiceErrorsLikeTheServletApi() {
+    createAccount("Id-1", "100");
+    createAccount("Id-2", "0");
+
+    transfer("Id-2", "Id-1", "40").expectStatus().isBadRequest()
+        .expectBody(String.class).isEqualTo("Insufficient balance in the source account.");
+    transfer("Id-1", "Id-404", "40").expectStatus().isBadRequest()
+        .expectBody(String.class).isEqualTo("One or both account(s) not found.");
+    webTestClient.post().uri("/v2/accounts").contentType(MediaType.APPLICATION_JSON)
+        .bodyValue("{\"accountId\":\"Id-1\",\"balance\":1}").exchange()
+        .expectStatus().isBadRequest();
+  }
+
+  @Test
+  void rejectsTransfersWhenSchedulerIsFull() throws Exception {
+    createAccount("Id-1", "100");
+    createAccount("Id-2", "0");
+    CountDownLatch started = new CountDownLatch(1);
+    scheduler.schedule(() -> {
+      started.countDown();
+      awaitRelease();
+    });
+    started.await();
+    scheduler.schedule(this::awaitRelease);
+
+    transfer("Id-1", "Id-2", "40").expectStatus().isEqualTo(503);
+  }
+
+  private void createAccount(String accountId, String balance) {
+    accountsService.createAccount(new Account(accountId, new BigDecimal(balance)));
+  }
+
+  private WebTestClient.ResponseSpec transfer(String from, String to, String amount) {
+    return webTestClient.post().uri("/v2/transfer").contentType(MediaType.APPLICATION_JSON)
+        .bodyValue("{\"accountFrom\":\"" + from + "\",\"accountTo\":\"" + to + "\",\"amount\":" + amount + "}")
+        .exchange();
+  }
+
+  private void awaitRelease() {
+    try {
+      release.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
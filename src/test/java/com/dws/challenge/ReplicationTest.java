@@ -0,0 +1,280 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BatchTransferMode;
+import com.dws.challenge.domain.FundTransferRequest;
+import com.dws.challenge.domain.ScheduledTransferRequest;
+import com.dws.challenge.domain.SplitAccount;
+import com.dws.challenge.exception.InsufficientBalanceException;
+import com.dws.challenge.exception.ReadOnlyReplicaException;
+import com.dws.challenge.replication.ChangeStreamPublisher;
+import com.dws.challenge.replication.ChangeStreamReplica;
+import com.dws.challenge.replication.ReplicaWebConfiguration;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.TieredAccountsRepository;
+import com.dws.challenge.schedule.ScheduledTransferService;
+import com.dws.challenge.service.AccountFactory;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.engine.StripedLockTransferEngine;
+import com.dws.challenge.wire.BinaryTransferServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.context.WebApplicationContext;
+
+@SpringBootTest(properties = {"replication.role=replica", "replication.heartbeat-millis=50",
+    "replication.max-staleness-millis=500"})
+@WebAppConfiguration
+class ReplicationTest {
+
+  private static final int ACCOUNTS = 50;
+
+  // The primary the Spring context under test replicates.
+  private static ChangeStreamPublisher contextPrimary;
+
+  private static AccountsRepository contextPrimaryAccounts;
+
+  @TempDir
+  Path directory;
+
+  @Autowired
+  private WebApplicationContext webApplicationContext;
+
+  @DynamicPropertySource
+  static void replicationProperties(DynamicPropertyRegistry registry) throws IOException {
+    contextPrimaryAccounts = new AccountsRepositoryInMemory();
+    contextPrimary = new ChangeStreamPublisher(contextPrimaryAccounts, 0, null, 10, 50, 256);
+    registry.add("replication.port", contextPrimary::getPort);
+  }
+
+  @AfterAll
+  static void closePrimary() throws IOException {
+    contextPrimary.close();
+  }
+
+  @Test
+  void socketReplicaConvergesAndReportsStaleness() throws Exception {
+    AccountsRepository primaryRepository = new AccountsRepositoryInMemory();
+    try (ChangeStreamPublisher publisher = new ChangeStreamPublisher(primaryRepository, 0, null, 10, 50, 256)) {
+      AccountsService primary = primary(primaryRepository, publisher, ACCOUNTS);
+      transfers(primary, 2_000);
+      AccountsRepository replicaRepository = new AccountsRepositoryInMemory();
+      // Joins after the first transfers, so it starts from a snapshot of the primary's balances.
+      try (ChangeStreamReplica replica = new ChangeStreamReplica(replicaRepository, AccountFactory.NONE, "localhost", publisher.getPort(), null, 50)) {
+        transfers(primary, 2_000);
+        awaitReplicated(primary, replicaRepository);
+        assertThat(publisher.getSubscriberCount()).isEqualTo(1);
+        await(() -> replica.getStalenessMillis() >= 0 && replica.getStalenessMillis() < 500);
+
+        publisher.close();
+        await(() -> replica.getStalenessMillis() > 300);
+      }
+    }
+  }
+
+  @Test
+  void replicaThatStopsReadingIsDisconnectedWithoutHoldingBackOthers() throws Exception {
+    AccountsRepository primaryRepository = new AccountsRepositoryInMemory();
+    try (ChangeStreamPublisher publisher = new ChangeStreamPublisher(primaryRepository, 0, null, 10, 50, 4)) {
+      AccountsService primary = primary(primaryRepository, publisher, ACCOUNTS);
+      // A snapshot of several megabytes, far more than socket buffers hold.
+      List<Account> dormant = new ArrayList<>();
+      for (int i = 0; i < 200_000; i++) {
+        dormant.add(new Account("Dormant-" + i, new BigDecimal("1000.25")));
+      }
+      primary.createAccounts(dormant);
+      try (Socket stuck = new Socket()) {
+        stuck.setReceiveBufferSize(4096);
+        stuck.connect(new InetSocketAddress("localhost", publisher.getPort()));
+        await(() -> publisher.getSubscriberCount() == 1);
+
+        AccountsRepository replicaRepository = new AccountsRepositoryInMemory();
+        try (ChangeStreamReplica replica = new ChangeStreamReplica(replicaRepository, AccountFactory.NONE, "localhost", publisher.getPort(), null, 50)) {
+          transfers(primary, 2_000);
+          awaitReplicated(primary, replicaRepository);
+          assertThat(replicaRepository.getAccount("Dormant-0").getBalance()).isEqualByComparingTo("1000.25");
+          await(() -> publisher.getSubscriberCount() == 1);
+        }
+      }
+    }
+  }
+
+  @Test
+  void fileReplicaFollowsTheFileAcrossPrimaryRestarts() throws Exception {
+    Path file = directory.resolve("changes.stream");
+    AccountsRepository replicaRepository = new AccountsRepositoryInMemory();
+    try (ChangeStreamReplica replica = new ChangeStreamReplica(replicaRepository, AccountFactory.NONE, null, 0, file, 50)) {
+      AccountsRepository primaryRepository = new AccountsRepositoryInMemory();
+      try (ChangeStreamPublisher publisher = new ChangeStreamPublisher(primaryRepository, -1, file, 10, 50, 256)) {
+        AccountsService primary = primary(primaryRepository, publisher, ACCOUNTS);
+        transfers(primary, 2_000);
+        awaitReplicated(primary, replicaRepository);
+      }
+
+      AccountsRepository restartedRepository = new AccountsRepositoryInMemory();
+      try (ChangeStreamPublisher restarted = new ChangeStreamPublisher(restartedRepository, -1, file, 10, 50, 256)) {
+        AccountsService primary = primary(restartedRepository, restarted, 0);
+        primary.createAccount(new Account("Id-0", new BigDecimal("7.5")));
+        await(() -> replicaRepository.getAccount("Id-0").getBalance().compareTo(new BigDecimal("7.5")) == 0);
+      }
+    }
+  }
+
+  @Test
+  void replicaPinsTieredAccountsAndCreatesThemThroughTheFactory() throws Exception {
+    Path file = directory.resolve("changes.stream");
+    // Two hot slots and a sweep every millisecond, so most updates land on accounts being moved in or out.
+    TieredAccountsRepository replicaRepository = new TieredAccountsRepository(2, 128, 1);
+    AccountFactory accountFactory = AccountFactory.hotAccounts(List.of("Id-0"), 4);
+    AccountsRepository primaryRepository = new AccountsRepositoryInMemory();
+    try (ChangeStreamReplica replica = new ChangeStreamReplica(replicaRepository, accountFactory, null, 0, file, 50);
+         ChangeStreamPublisher publisher = new ChangeStreamPublisher(primaryRepository, -1, file, 10, 50, 256)) {
+      AccountsService primary = primary(primaryRepository, publisher, ACCOUNTS);
+      transfers(primary, 4_000);
+      awaitReplicated(primary, replicaRepository);
+      assertThat(replicaRepository.getAccount("Id-0")).isInstanceOf(SplitAccount.class);
+    } finally {
+      replicaRepository.close();
+    }
+  }
+
+  @Test
+  void replicaServesOnlyBalanceReadsWithinTheStalenessBound() throws Exception {
+    MockMvc mockMvc = webAppContextSetup(webApplicationContext).build();
+    AccountsService primary = primary(contextPrimaryAccounts, contextPrimary, 0);
+    primary.createAccount(new Account("Replicated-1", new BigDecimal(250)));
+
+    await(() -> webApplicationContext.getBean(AccountsService.class).getAccount("Replicated-1") != null);
+    mockMvc.perform(get("/v1/accounts/Replicated-1"))
+        .andExpect(status().isOk())
+        .andExpect(header().exists(ReplicaWebConfiguration.STALENESS_HEADER))
+        .andExpect(jsonPath("$.balance").value(250));
+    mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+        .content("{\"accountId\":\"Id-123\",\"balance\":1000}")).andExpect(status().isMethodNotAllowed());
+    mockMvc.perform(post("/v1/transfer").contentType(MediaType.APPLICATION_JSON)
+        .content("{\"accountFrom\":\"Replicated-1\",\"accountTo\":\"Id-123\",\"amount\":1}"))
+        .andExpect(status().isMethodNotAllowed());
+    mockMvc.perform(get("/v1/accounts/Replicated-1/transactions")).andExpect(status().isMethodNotAllowed());
+    mockMvc.perform(post("/v2/accounts").contentType(MediaType.APPLICATION_JSON)
+        .content("{\"accountId\":\"Id-123\",\"balance\":1000}")).andExpect(status().isMethodNotAllowed());
+    mockMvc.perform(post("/v2/transfer").contentType(MediaType.APPLICATION_JSON)
+        .content("{\"accountFrom\":\"Replicated-1\",\"accountTo\":\"Replicated-1\",\"amount\":1}"))
+        .andExpect(status().isMethodNotAllowed());
+
+    contextPrimary.close();
+    await(() -> {
+      try {
+        return mockMvc.perform(get("/v1/accounts/Replicated-1")).andReturn().getResponse().getStatus() == 503;
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    });
+  }
+
+  @Test
+  void replicaRefusesWritesBelowTheWebLayer() {
+    AccountsService replica = webApplicationContext.getBean(AccountsService.class);
+    ScheduledTransferService scheduler = webApplicationContext.getBean(ScheduledTransferService.class);
+
+    assertThat(replica.isReadOnly()).isTrue();
+    assertThatThrownBy(() -> replica.createAccount(new Account("Id-123", BigDecimal.TEN)))
+        .isInstanceOf(ReadOnlyReplicaException.class);
+    assertThatThrownBy(() -> replica.transferMoney("Id-1", "Id-2", BigDecimal.ONE))
+        .isInstanceOf(ReadOnlyReplicaException.class);
+    assertThatThrownBy(() -> replica.transferBatch(List.of(new FundTransferRequest("Id-1", "Id-2", BigDecimal.ONE)),
+        BatchTransferMode.BEST_EFFORT)).isInstanceOf(ReadOnlyReplicaException.class);
+    assertThatThrownBy(() -> scheduler.schedule(new ScheduledTransferRequest("Id-1", "Id-2", BigDecimal.ONE, null,
+        Instant.now(), null, null))).isInstanceOf(ReadOnlyReplicaException.class);
+    assertThatThrownBy(() -> new BinaryTransferServer(replica, 0, 1, 4096)).isInstanceOf(IllegalStateException.class);
+  }
+
+  private static AccountsService primary(AccountsRepository repository, ChangeStreamPublisher publisher, int accounts) {
+    AccountsService primary = AccountsService.builder()
+        .accountsRepository(repository)
+        .transferEngine(new StripedLockTransferEngine(16))
+        .notificationService((account, description) -> {
+        })
+        .transferListeners(List.of(publisher))
+        .build();
+    for (int i = 0; i < accounts; i++) {
+      primary.createAccount(new Account("Id-" + i, new BigDecimal(1000)));
+    }
+    return primary;
+  }
+
+  private static void transfers(AccountsService primary, int count) throws Exception {
+    try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        futures.add(executor.submit(() -> {
+          ThreadLocalRandom random = ThreadLocalRandom.current();
+          for (int i = 0; i < count / 4; i++) {
+            int from = random.nextInt(ACCOUNTS);
+            int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+            try {
+              primary.transferMoney("Id-" + from, "Id-" + to, new BigDecimal(random.nextInt(1, 100)));
+            } catch (InsufficientBalanceException e) {
+              // Part of the random load.
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    }
+  }
+
+  private static void awaitReplicated(AccountsService primary, AccountsRepository replica) throws InterruptedException {
+    await(() -> {
+      for (int i = 0; i < ACCOUNTS; i++) {
+        Account account = replica.getAccount("Id-" + i);
+        if (account == null || account.getBalance().compareTo(primary.getAccount("Id-" + i).getBalance()) != 0) {
+          return false;
+        }
+      }
+      return true;
+    });
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!condition.getAsBoolean()) {
+      assertThat(System.nanoTime()).as("condition not met within 10s").isLessThan(deadline);
+      Thread.sleep(10);
+    }
+  }
+}
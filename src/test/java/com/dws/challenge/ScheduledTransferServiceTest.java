@@ -0,0 +1,181 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.ScheduledTransfer;
+import com.dws.challenge.domain.ScheduledTransferRequest;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.schedule.ScheduledTransferStore;
+import com.dws.challenge.schedule.TimingWheel;
+import com.dws.challenge.schedule.ScheduledTransferService;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.engine.StripedLockTransferEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ScheduledTransferServiceTest {
+
+  private static final long TICK = 1000;
+
+  @TempDir
+  Path directory;
+
+  private AccountsService accountsService;
+
+  private long now;
+
+  @BeforeEach
+  void setUp() {
+    accountsService = AccountsService.builder()
+        .accountsRepository(new AccountsRepositoryInMemory())
+        .transferEngine(new StripedLockTransferEngine(16))
+        .notificationService((account, description) -> {
+        })
+        .build();
+    accountsService.createAccount(new Account("Id-1", new BigDecimal(1000)));
+    accountsService.createAccount(new Account("Id-2", new BigDecimal(100)));
+    now = System.currentTimeMillis();
+  }
+
+  @Test
+  void wheelExpiresEveryEntryAtItsTickAcrossLevels() {
+    TimingWheel wheel = new TimingWheel(0, 16);
+    Random random = new Random(7);
+    Map<Long, Long> deadlines = new HashMap<>();
+    List<Integer> handles = new ArrayList<>();
+    for (long id = 0; id < 5_000; id++) {
+      long deadline = 1 + random.nextInt(1 << 18);
+      deadlines.put(id, deadline);
+      handles.add(wheel.schedule(id, deadline));
+    }
+    for (int i = 0; i < 100; i++) {
+      deadlines.remove(wheel.cancel(handles.get(i)));
+    }
+
+    Map<Long, Long> fired = new HashMap<>();
+    for (long tick = 1; tick <= 1 << 18; tick += 1 + random.nextInt(300)) {
+      long at = tick;
+      wheel.advanceTo(tick, id -> fired.put(id, at));
+      assertThat(wheel.getCurrentTick()).isEqualTo(tick);
+    }
+    wheel.advanceTo(1 << 18, id -> fired.put(id, (long) (1 << 18)));
+
+    assertThat(fired.keySet()).isEqualTo(deadlines.keySet());
+    assertThat(wheel.size()).isZero();
+    // Advanced in random steps, so an entry fires on the first step at or after its deadline.
+    deadlines.forEach((id, deadline) -> assertThat(fired.get(id)).isGreaterThanOrEqualTo(deadline));
+  }
+
+  @Test
+  void runsOneOffTransferOnceItIsDue() throws Exception {
+    try (ScheduledTransferService scheduler = new ScheduledTransferService(accountsService, (ScheduledTransferStore) null, TICK, 100)) {
+      ScheduledTransfer scheduled = scheduler.schedule(request(now + 5 * TICK, null, null));
+
+      assertThat(scheduler.fireDue(now + 4 * TICK)).isZero();
+      assertThat(scheduler.get(scheduled.getId())).isEqualTo(scheduled);
+      assertThat(scheduler.fireDue(now + 6 * TICK)).isEqualTo(1);
+
+      assertThat(accountsService.getAccount("Id-1").getBalance()).isEqualByComparingTo("990");
+      assertThat(accountsService.getAccount("Id-2").getBalance()).isEqualByComparingTo("110");
+      assertThat(scheduler.get(scheduled.getId())).isNull();
+      assertThat(scheduler.fireDue(now + 60 * TICK)).isZero();
+    }
+  }
+
+  @Test
+  void runsRecurringTransferForItsExecutionsAndCollapsesMissedRuns() throws Exception {
+    try (ScheduledTransferService scheduler = new ScheduledTransferService(accountsService, (ScheduledTransferStore) null, TICK, 100)) {
+      ScheduledTransfer scheduled = scheduler.schedule(request(now + TICK, 10L, 3));
+
+      assertThat(scheduler.fireDue(now + 2 * TICK)).isEqualTo(1);
+      assertThat(scheduler.get(scheduled.getId()).getRemainingExecutions()).isEqualTo(2);
+      // Down for three intervals: one catch-up run, then back on the original rhythm.
+      assertThat(scheduler.fireDue(now + 35 * TICK)).isEqualTo(1);
+      assertThat(scheduler.get(scheduled.getId()).getNextExecution()).isEqualTo(Instant.ofEpochMilli(now + 41 * TICK));
+      assertThat(scheduler.fireDue(now + 42 * TICK)).isEqualTo(1);
+
+      assertThat(scheduler.get(scheduled.getId())).isNull();
+      assertThat(accountsService.getAccount("Id-2").getBalance()).isEqualByComparingTo("130");
+      assertThat(scheduler.getExecutedCount()).isEqualTo(3);
+    }
+  }
+
+  @Test
+  void reportsFailedRunsAndRejectsUnknownAccounts() throws Exception {
+    try (ScheduledTransferService scheduler = new ScheduledTransferService(accountsService, (ScheduledTransferStore) null, TICK, 1)) {
+      scheduler.schedule(new ScheduledTransferRequest("Id-2", "Id-1", new BigDecimal(500), null,
+          Instant.ofEpochMilli(now), null, null));
+      scheduler.schedule(request(now, null, null));
+
+      assertThat(scheduler.fireDue(now + TICK)).isEqualTo(2);
+      assertThat(scheduler.getExecutedCount()).isEqualTo(1);
+      assertThat(scheduler.getFailedCount()).isEqualTo(1);
+      assertThat(scheduler.getPendingCount()).isZero();
+
+      assertThatThrownBy(() -> scheduler.schedule(new ScheduledTransferRequest("Id-1", "Id-404", BigDecimal.ONE, null,
+          Instant.ofEpochMilli(now), null, null))).isInstanceOf(IllegalArgumentException.class);
+    }
+  }
+
+  @Test
+  void keepsPendingTransfersAcrossRestarts() throws Exception {
+    long recurring;
+    long cancelled;
+    try (ScheduledTransferService scheduler = new ScheduledTransferService(accountsService, new ScheduledTransferStore(directory), TICK, 100)) {
+      recurring = scheduler.schedule(request(now + TICK, 60L, null)).getId();
+      cancelled = scheduler.schedule(request(now + 10 * TICK, null, null)).getId();
+      scheduler.schedule(request(now + TICK, null, null));
+      assertThat(scheduler.cancel(cancelled)).isTrue();
+      assertThat(scheduler.fireDue(now + 2 * TICK)).isEqualTo(2);
+    }
+
+    try (ScheduledTransferService scheduler = new ScheduledTransferService(accountsService, new ScheduledTransferStore(directory), TICK, 100)) {
+      assertThat(scheduler.list(null, 0, 100)).singleElement().satisfies(transfer -> {
+        assertThat(transfer.getId()).isEqualTo(recurring);
+        assertThat(transfer.getNextExecution()).isEqualTo(Instant.ofEpochMilli(now + 61 * TICK));
+        assertThat(transfer.getRemainingExecutions()).isNull();
+      });
+      assertThat(scheduler.list("Id-404", 0, 100)).isEmpty();
+      assertThat(scheduler.schedule(request(now, null, null)).getId()).isGreaterThan(cancelled + 1);
+    }
+  }
+
+  @Test
+  void compactsTheStoreWhileRunning() throws Exception {
+    Path log = directory.resolve("scheduled-transfers.log");
+    try (ScheduledTransferService scheduler = new ScheduledTransferService(accountsService, new ScheduledTransferStore(directory, 1000), TICK, 100)) {
+      long kept = scheduler.schedule(request(now + 100 * TICK, null, null)).getId();
+      long largest = 0;
+      for (int i = 0; i < 2_000; i++) {
+        scheduler.cancel(scheduler.schedule(request(now + 100 * TICK, null, null)).getId());
+        largest = Math.max(largest, Files.size(log));
+      }
+      // 4,000 records were appended, but the log was rewritten to the one pending transfer along the way.
+      assertThat(Files.size(log)).isLessThan(largest / 2);
+      assertThat(scheduler.get(kept)).isNotNull();
+    }
+
+    try (ScheduledTransferService scheduler = new ScheduledTransferService(accountsService, new ScheduledTransferStore(directory), TICK, 100)) {
+      assertThat(scheduler.getPendingCount()).isEqualTo(1);
+      assertThat(scheduler.schedule(request(now, null, null)).getId()).isEqualTo(2_002);
+    }
+  }
+
+  private ScheduledTransferRequest request(long executeAt, Long intervalSeconds, Integer executions) {
+    return new ScheduledTransferRequest("Id-1", "Id-2", BigDecimal.TEN, null, Instant.ofEpochMilli(executeAt),
+        intervalSeconds, executions);
+  }
+}
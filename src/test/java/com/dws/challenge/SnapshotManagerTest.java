@@ -0,0 +1,129 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.SplitAccount;
+import com.dws.challenge.journal.FsyncPolicy;
+import com.dws.challenge.journal.RecoveryReport;
+import com.dws.challenge.journal.SnapshotManager;
+import com.dws.challenge.journal.SnapshotStore;
+import com.dws.challenge.journal.TransactionJournal;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SnapshotManagerTest {
+
+  @TempDir
+  Path directory;
+
+  private final Account first = new Account("Id-1", new BigDecimal(1000));
+
+  private final Account second = new Account("Id-2", new BigDecimal("50.25"));
+
+  private final Account third = new Account("Id-3", BigDecimal.ZERO);
+
+  @Test
+  void recoversFromSnapshotAndJournalTail() throws IOException {
+    try (TransactionJournal journal = openJournal(); SnapshotManager snapshots = openSnapshots(journal)) {
+      journal.onAccountCreated(first, first.getBalance());
+      journal.onAccountCreated(second, second.getBalance());
+      journal.onTransfer(first, second, new BigDecimal(100));
+      assertThat(snapshots.snapshot()).isPresent();
+
+      journal.onAccountCreated(third, third.getBalance());
+      journal.onTransfer(second, third, new BigDecimal("0.25"));
+      assertThat(snapshots.snapshot()).isPresent();
+      assertThat(snapshots.snapshot()).isEmpty();
+
+      journal.onTransfer(first, third, new BigDecimal(10));
+    }
+
+    AccountsRepository repository = new AccountsRepositoryInMemory();
+    try (TransactionJournal journal = openJournal(); SnapshotManager snapshots = openSnapshots(journal)) {
+      RecoveryReport report = snapshots.recover(repository, AccountFactory.NONE);
+      assertThat(report.snapshotSequence()).isEqualTo(5);
+      assertThat(report.snapshotAccounts()).isEqualTo(3);
+      assertThat(report.replayedRecords()).isEqualTo(1);
+    }
+    assertThat(repository.getAccount("Id-1").getBalance()).isEqualByComparingTo("890");
+    assertThat(repository.getAccount("Id-2").getBalance()).isEqualByComparingTo("150");
+    assertThat(repository.getAccount("Id-3").getBalance()).isEqualByComparingTo("10.25");
+  }
+
+  @Test
+  void fallsBackToOlderSnapshotWhenNewestIsDamaged() throws IOException {
+    try (TransactionJournal journal = openJournal(); SnapshotManager snapshots = openSnapshots(journal)) {
+      journal.onAccountCreated(first, first.getBalance());
+      journal.onAccountCreated(second, second.getBalance());
+      snapshots.snapshot();
+      journal.onTransfer(first, second, new BigDecimal(100));
+      Path newest = snapshots.snapshot().orElseThrow();
+      byte[] bytes = Files.readAllBytes(newest);
+      bytes[bytes.length - 1] ^= 0x7F;
+      Files.write(newest, bytes);
+    }
+
+    AccountsRepository repository = new AccountsRepositoryInMemory();
+    try (TransactionJournal journal = openJournal(); SnapshotManager snapshots = openSnapshots(journal)) {
+      assertThat(snapshots.recover(repository, AccountFactory.NONE).snapshotSequence()).isEqualTo(2);
+    }
+    assertThat(repository.getAccount("Id-1").getBalance()).isEqualByComparingTo("900");
+    assertThat(repository.getAccount("Id-2").getBalance()).isEqualByComparingTo("150.25");
+  }
+
+  @Test
+  void recoversHotAccountsAsSplitAccounts() throws IOException {
+    try (TransactionJournal journal = openJournal(); SnapshotManager snapshots = openSnapshots(journal)) {
+      journal.onAccountCreated(first, first.getBalance());
+      journal.onAccountCreated(second, second.getBalance());
+      snapshots.snapshot();
+      journal.onAccountCreated(third, third.getBalance());
+      journal.onTransfer(first, third, new BigDecimal(100));
+    }
+
+    AccountsRepository repository = new AccountsRepositoryInMemory();
+    AccountFactory accountFactory = AccountFactory.hotAccounts(List.of("Id-1", "Id-3"), 4);
+    try (TransactionJournal journal = openJournal(); SnapshotManager snapshots = openSnapshots(journal)) {
+      snapshots.recover(repository, accountFactory);
+    }
+    // Id-1 comes from the snapshot, Id-3 from the journal tail.
+    assertThat(repository.getAccount("Id-1")).isInstanceOf(SplitAccount.class);
+    assertThat(repository.getAccount("Id-1").getBalance()).isEqualByComparingTo("900");
+    assertThat(repository.getAccount("Id-2")).isNotInstanceOf(SplitAccount.class);
+    assertThat(repository.getAccount("Id-3")).isInstanceOf(SplitAccount.class);
+    assertThat(repository.getAccount("Id-3").getBalance()).isEqualByComparingTo("100");
+  }
+
+  @Test
+  void prunesSegmentsCoveredBySnapshots() throws IOException {
+    try (TransactionJournal journal = openJournal(); SnapshotManager snapshots = openSnapshots(journal)) {
+      journal.onAccountCreated(first, first.getBalance());
+      journal.onAccountCreated(second, second.getBalance());
+      for (int i = 0; i < 3; i++) {
+        journal.onTransfer(first, second, BigDecimal.ONE);
+        snapshots.snapshot();
+      }
+      assertThat(journal.segments()).extracting(segment -> segment.getFileName().toString())
+          .doesNotContain("journal-00000000000000000001.log", "journal-00000000000000000004.log")
+          .contains("journal-00000000000000000005.log");
+    }
+  }
+
+  private TransactionJournal openJournal() throws IOException {
+    return new TransactionJournal(directory, 4096, FsyncPolicy.NONE, 0);
+  }
+
+  private SnapshotManager openSnapshots(TransactionJournal journal) throws IOException {
+    return new SnapshotManager(journal, new SnapshotStore(directory.resolve("snapshots")));
+  }
+}
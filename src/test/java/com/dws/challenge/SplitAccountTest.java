@@ -0,0 +1,157 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BatchTransferMode;
+import com.dws.challenge.domain.BatchTransferResponse;
+import com.dws.challenge.domain.FundTransferRequest;
+import com.dws.challenge.domain.SplitAccount;
+import com.dws.challenge.domain.TransferStatus;
+import com.dws.challenge.exception.InsufficientBalanceException;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountFactory;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.NotificationService;
+import com.dws.challenge.service.engine.StripedLockTransferEngine;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class SplitAccountTest {
+
+  @Test
+  void debitConsolidatesCellsWhenLocalCellIsShort() throws Exception {
+    SplitAccount account = new SplitAccount("Id-hot", BigDecimal.ZERO, 4);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      futures.add(executor.submit(() -> account.deposit(new BigDecimal("25"))));
+    }
+    for (Future<?> future : futures) {
+      future.get(30, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    assertThat(account.withdraw(new BigDecimal("100"))).isFalse();
+    assertThat(account.withdraw(new BigDecimal("99"))).isTrue();
+    assertThat(account.getBalance()).isEqualByComparingTo("1");
+  }
+
+  @Test
+  void balanceReadsNeverSeeAConsolidationHalfway() throws Exception {
+    SplitAccount account = new SplitAccount("Id-hot", new BigDecimal("1000"), 8);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    CountDownLatch done = new CountDownLatch(1);
+    // Every debit is too large, so each one drains the cells and puts the whole balance back.
+    Future<?> consolidating = executor.submit(() -> {
+      try {
+        for (int i = 0; i < 20_000; i++) {
+          account.withdraw(new BigDecimal("5000"));
+        }
+      } finally {
+        done.countDown();
+      }
+    });
+    Future<Integer> reads = executor.submit(() -> {
+      int count = 0;
+      while (done.getCount() > 0) {
+        assertThat(account.getBalance()).isEqualByComparingTo("1000");
+        count++;
+      }
+      return count;
+    });
+    consolidating.get(30, TimeUnit.SECONDS);
+    assertThat(reads.get(30, TimeUnit.SECONDS)).isPositive();
+    executor.shutdown();
+  }
+
+  @Test
+  void keepsAccountJsonShape() throws Exception {
+    SplitAccount account = new SplitAccount("Id-hot", new BigDecimal("12.50"), 8);
+
+    assertThat(new ObjectMapper().writeValueAsString(account)).isEqualTo("{\"accountId\":\"Id-hot\",\"balance\":12.50}");
+  }
+
+  @Test
+  void hotAccountStaysExactUnderConcurrentTransfers() throws Exception {
+    AccountsService accountsService = AccountsService.builder()
+        .accountsRepository(new AccountsRepositoryInMemory())
+        .transferEngine(new StripedLockTransferEngine(16))
+        .notificationService(Mockito.mock(NotificationService.class))
+        .accountFactory(AccountFactory.hotAccounts(List.of("Id-hot"), 8))
+        .build();
+    accountsService.createAccount(new Account("Id-hot", new BigDecimal("1000")));
+    for (int i = 0; i < 8; i++) {
+      accountsService.createAccount(new Account("Id-" + i, new BigDecimal("1000")));
+    }
+    assertThat(accountsService.getAccount("Id-hot")).isInstanceOf(SplitAccount.class);
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      futures.add(executor.submit(() -> {
+        start.await();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 5_000; i++) {
+          String other = "Id-" + random.nextInt(8);
+          BigDecimal amount = BigDecimal.valueOf(random.nextInt(1, 50));
+          try {
+            if (random.nextBoolean()) {
+              accountsService.transferMoney("Id-hot", other, amount);
+            } else {
+              accountsService.transferMoney(other, "Id-hot", amount);
+            }
+          } catch (InsufficientBalanceException expected) {
+            // the hot account or the other side ran dry for a moment
+          }
+        }
+        return null;
+      }));
+    }
+    start.countDown();
+    for (Future<?> future : futures) {
+      future.get(30, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    BigDecimal total = accountsService.getAccount("Id-hot").getBalance();
+    for (int i = 0; i < 8; i++) {
+      total = total.add(accountsService.getAccount("Id-" + i).getBalance());
+    }
+    assertThat(total).isEqualByComparingTo("9000");
+    assertThat(accountsService.getAccount("Id-hot").getBalance().signum()).isPositive();
+  }
+
+  @Test
+  void atomicBatchTouchingAHotAccountIsRejected() {
+    AccountsService accountsService = AccountsService.builder()
+        .accountsRepository(new AccountsRepositoryInMemory())
+        .transferEngine(new StripedLockTransferEngine(16))
+        .notificationService(Mockito.mock(NotificationService.class))
+        .accountFactory(AccountFactory.hotAccounts(List.of("Id-hot"), 8))
+        .build();
+    accountsService.createAccount(new Account("Id-hot", new BigDecimal("100")));
+    accountsService.createAccount(new Account("Id-1", new BigDecimal("100")));
+
+    BatchTransferResponse response = accountsService.transferBatch(List.of(
+        new FundTransferRequest("Id-1", "Id-hot", BigDecimal.TEN),
+        new FundTransferRequest("Id-hot", "Id-1", BigDecimal.ONE)), BatchTransferMode.ATOMIC);
+
+    assertThat(response.getResults().get(0).getStatus()).isEqualTo(TransferStatus.INVALID_REQUEST);
+    assertThat(response.getResults().get(1).getStatus()).isEqualTo(TransferStatus.NOT_EXECUTED);
+    assertThat(accountsService.getAccount("Id-hot").getBalance()).isEqualByComparingTo("100");
+    assertThat(accountsService.getAccount("Id-1").getBalance()).isEqualByComparingTo("100");
+  }
+}
@@ -0,0 +1,172 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.FixedPointAccount;
+import com.dws.challenge.domain.SplitAccount;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.repository.TieredAccountsRepository;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.engine.StripedLockTransferEngine;
+import org.junit.jupiter.api.Test;
+
+class TieredAccountsRepositoryTest {
+
+  @Test
+  void bulkAccountsStartColdAndArePromotedOnAccess() {
+    TieredAccountsRepository repository = new TieredAccountsRepository(10, 16);
+    boolean[] created = repository.createAccounts(List.of(
+        new Account("Id-1", new BigDecimal("12.34")),
+        new Account("Id-2", new BigDecimal("-5"), "USD"),
+        new Account("Id-1", BigDecimal.ONE)));
+
+    assertThat(created).containsExactly(true, true, false);
+    assertThat(repository.getColdCount()).isEqualTo(2);
+    assertThat(repository.getHotCount()).isZero();
+
+    Account promoted = repository.getAccount("Id-2");
+    assertThat(promoted.getBalance()).isEqualTo(new BigDecimal("-5"));
+    assertThat(promoted.getCurrency()).isEqualTo("USD");
+    assertThat(repository.getAccount("Id-2")).isSameAs(promoted);
+    assertThat(repository.getColdCount()).isEqualTo(1);
+    assertThat(repository.getAccount("Id-404")).isNull();
+  }
+
+  @Test
+  void rejectsDuplicatesAcrossTiers() {
+    TieredAccountsRepository repository = new TieredAccountsRepository(10, 16);
+    repository.createAccounts(List.of(new Account("Id-1", BigDecimal.TEN)));
+
+    assertThatThrownBy(() -> repository.createAccount(new Account("Id-1", BigDecimal.ONE)))
+        .isInstanceOf(DuplicateAccountIdException.class);
+  }
+
+  @Test
+  void demotesLeastRecentlyUsedAccountsAndKeepsBalances() {
+    TieredAccountsRepository repository = new TieredAccountsRepository(1, 16);
+    repository.createAccount(new Account("Id-0", BigDecimal.ZERO));
+    repository.createAccount(new Account("Id-1", BigDecimal.ONE));
+    repository.createAccounts(List.of(new Account("Id-2", new BigDecimal("2.50"))));
+
+    assertThat(repository.demoteIdle()).isEqualTo(1);
+    assertThat(repository.getColdCount()).isEqualTo(2);
+
+    // The account left hot has not been used since the sweep, the promoted one just has.
+    repository.getAccount("Id-2");
+    assertThat(repository.demoteIdle()).isEqualTo(1);
+    long promotions = repository.getPromotionCount();
+    assertThat(repository.getAccount("Id-2").getBalance()).isEqualTo(new BigDecimal("2.50"));
+    assertThat(repository.getPromotionCount()).isEqualTo(promotions);
+
+    assertThat(repository.getAccount("Id-0").getBalance()).isEqualByComparingTo(BigDecimal.ZERO);
+    assertThat(repository.getAccount("Id-1").getBalance()).isEqualByComparingTo(BigDecimal.ONE);
+    assertThat(repository.getPromotionCount()).isEqualTo(promotions + 2);
+    assertThat(repository.getDemotionCount()).isEqualTo(2);
+  }
+
+  @Test
+  void neverDemotesPinnedOrUnfitAccounts() {
+    TieredAccountsRepository repository = new TieredAccountsRepository(0, 16);
+    Account pinned = new Account("Id-1", BigDecimal.TEN);
+    repository.createAccount(pinned);
+    repository.createAccount(new SplitAccount("Id-2", BigDecimal.TEN, 4));
+    repository.createAccount(new Account("Id-3", new BigDecimal("1e30").setScale(0)));
+    repository.createAccount(new Account("Id-" + "x".repeat(50), BigDecimal.TEN));
+    assertThat(repository.acquireAccount("Id-1")).isSameAs(pinned);
+
+    repository.demoteIdle();
+    repository.demoteIdle();
+
+    assertThat(repository.getHotCount()).isEqualTo(4);
+    repository.releaseAccount(pinned);
+    repository.demoteIdle();
+    assertThat(repository.getColdCount()).isEqualTo(1);
+  }
+
+  @Test
+  void fixedPointAccountsKeepTheirTypeAndScaleInTheColdTier() {
+    TieredAccountsRepository repository = new TieredAccountsRepository(0, 16);
+    repository.createAccounts(List.of(new FixedPointAccount("Id-1", "JPY", 1234L, 0)));
+    repository.createAccount(new FixedPointAccount("Id-2", new BigDecimal("12.345"), "EUR", 3));
+    repository.getAccount("Id-2").deposit(new BigDecimal("0.005"));
+
+    assertThat(repository.demoteIdle()).isEqualTo(1);
+    assertThat(repository.getColdCount()).isEqualTo(2);
+
+    FixedPointAccount yen = (FixedPointAccount) repository.getAccount("Id-1");
+    assertThat(yen.getBalanceMinorUnits()).isEqualTo(1234L);
+    assertThat(yen.getScale()).isZero();
+    assertThat(yen.getCurrency()).isEqualTo("JPY");
+    FixedPointAccount euro = (FixedPointAccount) repository.getAccount("Id-2");
+    assertThat(euro.getBalanceMinorUnits()).isEqualTo(12350L);
+    assertThat(euro.getScale()).isEqualTo(3);
+  }
+
+  @Test
+  void concurrentTransfersConserveMoneyWhileAccountsMoveBetweenTiers() throws Exception {
+    int accounts = 64;
+    TieredAccountsRepository repository = new TieredAccountsRepository(8, 16);
+    List<Account> opening = new ArrayList<>();
+    for (int i = 0; i < accounts; i++) {
+      opening.add(new Account("Id-" + i, new BigDecimal(1000)));
+    }
+    repository.createAccounts(opening);
+    AccountsService accountsService = AccountsService.builder()
+        .accountsRepository(repository)
+        .transferEngine(new StripedLockTransferEngine(64))
+        .notificationService((account, description) -> {
+        })
+        .build();
+
+    AtomicBoolean running = new AtomicBoolean(true);
+    ExecutorService executor = Executors.newFixedThreadPool(5);
+    try {
+      Future<?> sweeper = executor.submit(() -> {
+        while (running.get()) {
+          repository.demoteIdle();
+        }
+      });
+      List<Future<?>> workers = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        workers.add(executor.submit(() -> {
+          ThreadLocalRandom random = ThreadLocalRandom.current();
+          for (int i = 0; i < 20_000; i++) {
+            int from = random.nextInt(accounts);
+            int to = (from + 1 + random.nextInt(accounts - 1)) % accounts;
+            try {
+              accountsService.transferMoney("Id-" + from, "Id-" + to, BigDecimal.ONE);
+            } catch (RuntimeException insufficientBalance) {
+              // Expected once an account runs dry.
+            }
+          }
+        }));
+      }
+      for (Future<?> worker : workers) {
+        worker.get(60, TimeUnit.SECONDS);
+      }
+      running.set(false);
+      sweeper.get(10, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    BigDecimal total = BigDecimal.ZERO;
+    for (int i = 0; i < accounts; i++) {
+      total = total.add(repository.getAccount("Id-" + i).getBalance());
+    }
+    assertThat(total).isEqualByComparingTo(new BigDecimal(1000L * accounts));
+    assertThat(repository.getDemotionCount()).isPositive();
+  }
+}
@@ -0,0 +1,177 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.exception.InsufficientBalanceException;
+import com.dws.challenge.journal.AccountStateReplayer;
+import com.dws.challenge.journal.FsyncPolicy;
+import com.dws.challenge.journal.TransactionJournal;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountFactory;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.engine.StripedLockTransferEngine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TransactionJournalTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void replaysCreationsAndTransfersAfterRestart() throws IOException {
+    Account from = new Account("Id-1", new BigDecimal("1000.50"));
+    Account to = new Account("Id-2", new BigDecimal(300));
+    try (TransactionJournal journal = new TransactionJournal(directory, 4096, FsyncPolicy.GROUP, 100)) {
+      journal.onAccountCreated(from, from.getBalance());
+      journal.onAccountCreated(to, to.getBalance());
+      journal.onTransfer(from, to, new BigDecimal("0.50"));
+      journal.onTransfer(to, from, new BigDecimal(100));
+      assertThat(journal.getDurableSequence()).isEqualTo(4);
+    }
+
+    AccountsRepository repository = new AccountsRepositoryInMemory();
+    try (TransactionJournal journal = new TransactionJournal(directory, 4096, FsyncPolicy.GROUP, 100)) {
+      journal.replay(0L, new AccountStateReplayer(repository, AccountFactory.NONE));
+      assertThat(journal.getLastSequence()).isEqualTo(4);
+
+      journal.onTransfer(from, to, BigDecimal.ONE);
+      assertThat(journal.getLastSequence()).isEqualTo(5);
+    }
+    assertThat(repository.getAccount("Id-1").getBalance()).isEqualByComparingTo("1100");
+    assertThat(repository.getAccount("Id-2").getBalance()).isEqualByComparingTo("200.50");
+  }
+
+  @Test
+  void replaysCurrenciesAndConvertedAmounts() throws IOException {
+    Account from = new Account("Id-1", new BigDecimal(1000));
+    Account to = new Account("Id-2", new BigDecimal(10), "USD");
+    try (TransactionJournal journal = new TransactionJournal(directory, 4096, FsyncPolicy.GROUP, 100)) {
+      journal.onAccountCreated(from, from.getBalance());
+      journal.onAccountCreated(to, to.getBalance());
+      journal.onTransfer(from, to, new BigDecimal(100), new BigDecimal("108.00"));
+    }
+
+    AccountsRepository repository = new AccountsRepositoryInMemory();
+    try (TransactionJournal journal = new TransactionJournal(directory, 4096, FsyncPolicy.GROUP, 100)) {
+      journal.replay(0L, new AccountStateReplayer(repository, AccountFactory.NONE));
+    }
+    assertThat(repository.getAccount("Id-1").getBalance()).isEqualByComparingTo("900");
+    assertThat(repository.getAccount("Id-1").getCurrency()).isNull();
+    assertThat(repository.getAccount("Id-2").getBalance()).isEqualByComparingTo("118");
+    assertThat(repository.getAccount("Id-2").getCurrency()).isEqualTo("USD");
+  }
+
+  @Test
+  void rollsOverToNewSegments() throws IOException {
+    Account from = new Account("Id-1", new BigDecimal(1_000_000));
+    Account to = new Account("Id-2", BigDecimal.ZERO);
+    try (TransactionJournal journal = new TransactionJournal(directory, 256, FsyncPolicy.INTERVAL, 100)) {
+      journal.onAccountCreated(from, from.getBalance());
+      journal.onAccountCreated(to, to.getBalance());
+      for (int i = 0; i < 100; i++) {
+        journal.onTransfer(from, to, BigDecimal.TEN);
+      }
+      assertThat(journal.segments()).hasSizeGreaterThan(1);
+    }
+
+    AccountsRepository repository = new AccountsRepositoryInMemory();
+    try (TransactionJournal journal = new TransactionJournal(directory, 256, FsyncPolicy.INTERVAL, 100)) {
+      assertThat(journal.replay(0L, new AccountStateReplayer(repository, AccountFactory.NONE))).isEqualTo(102);
+    }
+    assertThat(repository.getAccount("Id-1").getBalance()).isEqualByComparingTo("999000");
+    assertThat(repository.getAccount("Id-2").getBalance()).isEqualByComparingTo("1000");
+  }
+
+  @Test
+  void rejectsIntervalFsyncWithoutWindow() {
+    assertThatThrownBy(() -> new TransactionJournal(directory, 4096, FsyncPolicy.INTERVAL, 0))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new TransactionJournal(directory, 4096, FsyncPolicy.GROUP, -1))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void ignoresTornRecordAtTheTail() throws IOException {
+    Account from = new Account("Id-1", new BigDecimal(100));
+    Account to = new Account("Id-2", BigDecimal.ZERO);
+    Path segment;
+    try (TransactionJournal journal = new TransactionJournal(directory, 4096, FsyncPolicy.NONE, 0)) {
+      journal.onAccountCreated(from, from.getBalance());
+      journal.onAccountCreated(to, to.getBalance());
+      journal.onTransfer(from, to, BigDecimal.TEN);
+      List<Path> segments = journal.segments();
+      segment = segments.get(segments.size() - 1);
+    }
+    // Corrupt the last byte of the transfer record's checksum, as a crash mid-write would.
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      ByteBuffer buffer = ByteBuffer.allocate(4096);
+      channel.read(buffer, 0);
+      int position = 0;
+      int lastRecordEnd = 0;
+      while (buffer.getInt(position) != 0) {
+        lastRecordEnd = position + Integer.BYTES + buffer.getInt(position);
+        position = lastRecordEnd;
+      }
+      channel.write(ByteBuffer.wrap(new byte[] {(byte) ~buffer.get(lastRecordEnd - 1)}), lastRecordEnd - 1);
+    }
+
+    AccountsRepository repository = new AccountsRepositoryInMemory();
+    try (TransactionJournal journal = new TransactionJournal(directory, 4096, FsyncPolicy.NONE, 0)) {
+      assertThat(journal.replay(0L, new AccountStateReplayer(repository, AccountFactory.NONE))).isEqualTo(2);
+      assertThat(journal.getLastSequence()).isEqualTo(2);
+    }
+    assertThat(repository.getAccount("Id-1").getBalance()).isEqualByComparingTo("100");
+  }
+
+  @Test
+  void refusesTransfersItCannotJournalBeforeAnyBalanceChanges() throws IOException {
+    try (TransactionJournal journal = new TransactionJournal(directory, 256, FsyncPolicy.NONE, 0)) {
+      AccountsService accountsService = AccountsService.builder()
+          .accountsRepository(new AccountsRepositoryInMemory())
+          .transferEngine(new StripedLockTransferEngine(16))
+          .notificationService((account, description) -> {
+          })
+          .transferListeners(List.of(journal))
+          .build();
+      // Each creation record fits a segment, a transfer record naming both ids does not.
+      String longFrom = "F".repeat(120);
+      String longTo = "T".repeat(120);
+      accountsService.createAccount(new Account(longFrom, new BigDecimal(100)));
+      accountsService.createAccount(new Account(longTo, BigDecimal.ZERO));
+      accountsService.createAccount(new Account("Id-1", new BigDecimal(100)));
+      accountsService.createAccount(new Account("Id-2", BigDecimal.ZERO));
+
+      assertThatThrownBy(() -> accountsService.transferMoney(longFrom, longTo, BigDecimal.TEN))
+          .isInstanceOf(IllegalArgumentException.class);
+      assertThat(accountsService.getAccount(longFrom).getBalance()).isEqualByComparingTo("100");
+      assertThat(accountsService.getAccount(longTo).getBalance()).isEqualByComparingTo("0");
+
+      // Room reserved for rejected transfers is given back, or the segment would soon be all reservations.
+      for (int i = 0; i < 100; i++) {
+        assertThatThrownBy(() -> accountsService.transferMoney("Id-2", "Id-1", BigDecimal.ONE))
+            .isInstanceOf(InsufficientBalanceException.class);
+      }
+      assertThat(accountsService.transferMoney("Id-1", "Id-2", BigDecimal.TEN)).isTrue();
+      assertThat(journal.getLastSequence()).isEqualTo(5);
+    }
+
+    AccountsRepository repository = new AccountsRepositoryInMemory();
+    try (TransactionJournal journal = new TransactionJournal(directory, 256, FsyncPolicy.NONE, 0)) {
+      assertThat(journal.replay(0L, new AccountStateReplayer(repository, AccountFactory.NONE))).isEqualTo(5);
+    }
+    assertThat(repository.getAccount("F".repeat(120)).getBalance()).isEqualByComparingTo("100");
+    assertThat(repository.getAccount("Id-2").getBalance()).isEqualByComparingTo("10");
+  }
+}
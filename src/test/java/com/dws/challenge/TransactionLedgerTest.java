@@ -0,0 +1,109 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.ledger.LedgerEntry;
+import com.dws.challenge.ledger.LedgerEntryType;
+import com.dws.challenge.ledger.TransactionLedger;
+import org.junit.jupiter.api.Test;
+
+class TransactionLedgerTest {
+
+  private final TransactionLedger ledger = new TransactionLedger(10_000);
+
+  @Test
+  void pagesAcrossChunks() {
+    Account from = new Account("Id-1", new BigDecimal("1000"));
+    Account to = new Account("Id-2", BigDecimal.ZERO);
+    ledger.onAccountCreated(from, from.getBalance());
+    for (int i = 1; i <= 300; i++) {
+      ledger.onTransfer(from, to, BigDecimal.valueOf(i));
+    }
+
+    List<LedgerEntry> entries = new ArrayList<>();
+    long cursor = -1;
+    do {
+      cursor = ledger.read(from.getAccountId(), cursor, 70, entries::add);
+    } while (cursor >= 0);
+
+    assertThat(entries).hasSize(301);
+    assertThat(entries.get(0).amount()).isEqualByComparingTo("300");
+    assertThat(entries.get(0).type()).isEqualTo(LedgerEntryType.DEBIT);
+    assertThat(entries.get(300).type()).isEqualTo(LedgerEntryType.OPENING);
+    assertThat(entries).extracting(LedgerEntry::position).isSortedAccordingTo((a, b) -> Long.compare(b, a));
+  }
+
+  @Test
+  void keepsEveryConcurrentAppend() throws Exception {
+    Account hot = new Account("Id-0", BigDecimal.ZERO);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      Account other = new Account("Id-" + (t + 1), BigDecimal.ZERO);
+      futures.add(executor.submit(() -> {
+        for (int i = 0; i < 1_000; i++) {
+          ledger.onTransfer(other, hot, BigDecimal.ONE);
+        }
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get(30, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    List<LedgerEntry> entries = new ArrayList<>();
+    assertThat(ledger.read(hot.getAccountId(), -1, 10_000, entries::add)).isEqualTo(-1);
+    assertThat(entries).hasSize(8_000).allSatisfy(entry -> assertThat(entry.type()).isEqualTo(LedgerEntryType.CREDIT));
+  }
+
+  @Test
+  void keepsOnlyTheNewestEntriesOfAnAccount() {
+    TransactionLedger bounded = new TransactionLedger(200);
+    Account from = new Account("Id-1", new BigDecimal("1000"));
+    Account to = new Account("Id-2", BigDecimal.ZERO);
+    bounded.onAccountCreated(from, from.getBalance());
+    for (int i = 1; i <= 1_000; i++) {
+      bounded.onTransfer(from, to, BigDecimal.valueOf(i));
+    }
+
+    List<LedgerEntry> entries = new ArrayList<>();
+    long cursor = -1;
+    do {
+      cursor = bounded.read(from.getAccountId(), cursor, 70, entries::add);
+    } while (cursor >= 0);
+
+    // Whole chunks are evicted, so the cap rounded up to whole chunks plus a partly filled one are kept.
+    assertThat(entries.size()).isBetween(200, 3 * 128);
+    assertThat(entries.get(0).amount()).isEqualByComparingTo("1000");
+    assertThat(entries.get(0).position()).isEqualTo(1_000);
+    assertThat(entries.get(entries.size() - 1).position()).isEqualTo(1_001 - entries.size());
+    assertThat(entries).extracting(LedgerEntry::transferId).doesNotHaveDuplicates();
+  }
+
+  @Test
+  void keepsTransfersThatRaceTheOpeningAndStartOverForAReusedId() {
+    Account first = new Account("Id-1", BigDecimal.TEN);
+    Account other = new Account("Id-2", BigDecimal.TEN);
+    // The transfer listener ran before the creation listener.
+    ledger.onTransfer(other, first, BigDecimal.ONE);
+    ledger.onAccountCreated(first, BigDecimal.TEN);
+
+    List<LedgerEntry> entries = new ArrayList<>();
+    ledger.read("Id-1", -1, 10, entries::add);
+    assertThat(entries).extracting(LedgerEntry::type).containsExactly(LedgerEntryType.OPENING, LedgerEntryType.CREDIT);
+
+    ledger.onAccountCreated(new Account("Id-1", BigDecimal.ONE), BigDecimal.ONE);
+    entries.clear();
+    ledger.read("Id-1", -1, 10, entries::add);
+    assertThat(entries).extracting(LedgerEntry::type).containsExactly(LedgerEntryType.OPENING);
+  }
+}
@@ -0,0 +1,201 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BatchTransferMode;
+import com.dws.challenge.domain.FundTransferRequest;
+import com.dws.challenge.exception.FeatureDisabledException;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.engine.CasTransferEngine;
+import com.dws.challenge.service.engine.ShardedTransferEngine;
+import com.dws.challenge.service.engine.StripedLockTransferEngine;
+import com.dws.challenge.service.engine.TransferEngine;
+import org.junit.jupiter.api.Test;
+
+class TransferEngineTest {
+
+  @Test
+  void stripedEngineTransfersAndRejectsInsufficientBalance() {
+    assertSingleTransfer(new StripedLockTransferEngine(16));
+  }
+
+  @Test
+  void casEngineTransfersAndRejectsInsufficientBalance() {
+    assertSingleTransfer(new CasTransferEngine());
+  }
+
+  @Test
+  void shardedEngineTransfersAndRejectsInsufficientBalance() {
+    try (ShardedTransferEngine engine = new ShardedTransferEngine(1, 16)) {
+      assertSingleTransfer(engine);
+    }
+    try (ShardedTransferEngine engine = new ShardedTransferEngine(64, 16)) {
+      assertSingleTransfer(engine);
+    }
+  }
+
+  @Test
+  void stripedEngineRoundsStripesToPowerOfTwo() {
+    assertThat(new StripedLockTransferEngine(1000).getStripeCount()).isEqualTo(1024);
+    assertThat(new StripedLockTransferEngine(1).getStripeCount()).isEqualTo(1);
+  }
+
+  @Test
+  void stripedEngineConservesMoneyUnderHotAccountContention() throws Exception {
+    assertConservesMoney(new StripedLockTransferEngine(4));
+  }
+
+  @Test
+  void casEngineConservesMoneyUnderHotAccountContention() throws Exception {
+    assertConservesMoney(new CasTransferEngine());
+  }
+
+  @Test
+  void shardedEngineConservesMoneyUnderHotAccountContention() throws Exception {
+    // A tiny ring also exercises callers waiting for a free slot.
+    try (ShardedTransferEngine engine = new ShardedTransferEngine(4, 2)) {
+      assertConservesMoney(engine);
+    }
+  }
+
+  @Test
+  void stripedEngineReadsPointInTimeBalances() throws Exception {
+    StripedLockTransferEngine engine = new StripedLockTransferEngine(4);
+    List<Account> accounts = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      accounts.add(new Account("Id-" + i, new BigDecimal(1000)));
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      futures.add(executor.submit(() -> {
+        start.await();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 20_000; i++) {
+          int from = random.nextInt(accounts.size());
+          int to = (from + 1 + random.nextInt(accounts.size() - 1)) % accounts.size();
+          engine.transfer(accounts.get(from), accounts.get(to), BigDecimal.valueOf(random.nextInt(1, 50)));
+        }
+        return null;
+      }));
+    }
+    start.countDown();
+    while (!futures.stream().allMatch(Future::isDone)) {
+      BigDecimal total = Arrays.stream(engine.readBalances(accounts)).reduce(BigDecimal.ZERO, BigDecimal::add);
+      assertThat(total).isEqualByComparingTo("8000");
+    }
+    for (Future<?> future : futures) {
+      future.get(30, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+  }
+
+  @Test
+  void stripedEngineReadsPointInTimeBalancesWhileOnlySomeStripesAreBusy() throws Exception {
+    StripedLockTransferEngine engine = new StripedLockTransferEngine(64);
+    List<Account> accounts = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      accounts.add(new Account("Id-" + i, new BigDecimal(1000)));
+    }
+    // Only the first two accounts move money, so their stripes end up read locked and the rest stay optimistic.
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < 2; t++) {
+      Account from = accounts.get(t);
+      Account to = accounts.get(1 - t);
+      futures.add(executor.submit(() -> {
+        for (int i = 0; i < 50_000; i++) {
+          engine.transfer(from, to, BigDecimal.ONE);
+        }
+        return null;
+      }));
+    }
+    while (!futures.stream().allMatch(Future::isDone)) {
+      BigDecimal total = Arrays.stream(engine.readBalances(accounts)).reduce(BigDecimal.ZERO, BigDecimal::add);
+      assertThat(total).isEqualByComparingTo("8000");
+    }
+    for (Future<?> future : futures) {
+      future.get(30, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+  }
+
+  @Test
+  void atomicBatchIsRefusedBeforeAnythingRunsOnEnginesWithoutTransferAll() {
+    AccountsService accountsService = AccountsService.builder()
+        .accountsRepository(new AccountsRepositoryInMemory())
+        .transferEngine(new CasTransferEngine())
+        .notificationService((account, description) -> {
+        })
+        .build();
+    accountsService.createAccount(new Account("Id-1", new BigDecimal(100)));
+    accountsService.createAccount(new Account("Id-2", BigDecimal.ZERO));
+
+    assertThatThrownBy(() -> accountsService.transferBatch(
+        List.of(new FundTransferRequest("Id-1", "Id-2", BigDecimal.TEN)), BatchTransferMode.ATOMIC))
+        .isInstanceOf(FeatureDisabledException.class);
+    assertThat(accountsService.getAccount("Id-1").getBalance()).isEqualByComparingTo("100");
+  }
+
+  private void assertSingleTransfer(TransferEngine engine) {
+    Account from = new Account("Id-1", new BigDecimal(1000));
+    Account to = new Account("Id-2", new BigDecimal(300));
+
+    assertThat(engine.transfer(from, to, new BigDecimal(400))).isTrue();
+    assertThat(engine.transfer(from, to, new BigDecimal(600))).isFalse();
+
+    assertThat(from.getBalance()).isEqualByComparingTo("600");
+    assertThat(to.getBalance()).isEqualByComparingTo("700");
+  }
+
+  private void assertConservesMoney(TransferEngine engine) throws Exception {
+    // Account 0 plays the hot merchant account and sits on every transfer.
+    List<Account> accounts = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      accounts.add(new Account("Id-" + i, new BigDecimal(1000)));
+    }
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      futures.add(executor.submit(() -> {
+        start.await();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 5_000; i++) {
+          Account other = accounts.get(1 + random.nextInt(accounts.size() - 1));
+          if (random.nextBoolean()) {
+            engine.transfer(accounts.get(0), other, BigDecimal.valueOf(random.nextInt(1, 50)));
+          } else {
+            engine.transfer(other, accounts.get(0), BigDecimal.valueOf(random.nextInt(1, 50)));
+          }
+        }
+        return null;
+      }));
+    }
+    start.countDown();
+    for (Future<?> future : futures) {
+      future.get(30, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    BigDecimal total = accounts.stream().map(Account::getBalance).reduce(BigDecimal.ZERO, BigDecimal::add);
+    assertThat(total).isEqualByComparingTo("8000");
+    assertThat(accounts).allSatisfy(account -> assertThat(account.getBalance().signum()).isPositive());
+  }
+}
@@ -0,0 +1,66 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.exception.InsufficientBalanceException;
+import com.dws.challenge.metrics.TransferMetrics;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.NotificationService;
+import com.dws.challenge.service.engine.StripedLockTransferEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class TransferMetricsTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  private AccountsService accountsService;
+
+  @BeforeEach
+  void setUp() {
+    TransferMetrics transferMetrics = new TransferMetrics(registry);
+    accountsService = AccountsService.builder()
+        .accountsRepository(new AccountsRepositoryInMemory())
+        .transferEngine(new StripedLockTransferEngine(16, transferMetrics))
+        .notificationService(Mockito.mock(NotificationService.class))
+        .transferMetrics(transferMetrics)
+        .build();
+    accountsService.createAccount(new Account("Id-1", new BigDecimal("100")));
+    accountsService.createAccount(new Account("Id-2", BigDecimal.ZERO));
+  }
+
+  @Test
+  void recordsTransfersByOutcome() {
+    accountsService.transferMoney("Id-1", "Id-2", new BigDecimal("10"));
+    assertThatThrownBy(() -> accountsService.transferMoney("Id-2", "Id-1", new BigDecimal("50")))
+        .isInstanceOf(InsufficientBalanceException.class);
+    assertThatThrownBy(() -> accountsService.transferMoney("Id-1", "Id-404", new BigDecimal("10")))
+        .isInstanceOf(IllegalArgumentException.class);
+
+    assertThat(transferCount("success")).isEqualTo(1);
+    assertThat(transferCount("insufficient_balance")).isEqualTo(1);
+    assertThat(transferCount("account_not_found")).isEqualTo(1);
+    assertThat(transferCount("invalid_request")).isZero();
+  }
+
+  @Test
+  void recordsLockRepositoryAndNotificationTimings() {
+    accountsService.transferMoney("Id-1", "Id-2", new BigDecimal("10"));
+
+    assertThat(registry.get("transfer.lock.wait").timer().count()).isEqualTo(1);
+    assertThat(registry.get("transfer.lock.hold").timer().count()).isEqualTo(1);
+    assertThat(registry.get("repository.lookup").timer().count()).isEqualTo(2);
+    assertThat(registry.get("notification.latency").timer().count()).isEqualTo(1);
+  }
+
+  private long transferCount(String outcome) {
+    return registry.get("transfer.requests").tag("outcome", outcome).timer().count();
+  }
+}
@@ -0,0 +1,82 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import com.dws.challenge.domain.FundTransferRequest;
+import com.dws.challenge.exception.BusinessException;
+import com.dws.challenge.exception.BusinessExceptionConfiguration;
+import com.dws.challenge.exception.InsufficientBalanceException;
+import com.dws.challenge.exception.InvalidRequestException;
+import com.dws.challenge.web.TransferRequestValidator;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+class TransferRequestValidatorTest {
+
+  private final ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory();
+
+  private final TransferRequestValidator beanValidator = new TransferRequestValidator(validatorFactory.getValidator(), false);
+
+  private final TransferRequestValidator leanValidator = new TransferRequestValidator(validatorFactory.getValidator(), true);
+
+  @AfterEach
+  void closeFactory() {
+    validatorFactory.close();
+  }
+
+  @Test
+  void leanValidatorAcceptsWhatBeanValidationAccepts() {
+    FundTransferRequest request = new FundTransferRequest("Id-1", "Id-2", new BigDecimal("1.50"));
+
+    assertThatCode(() -> beanValidator.validate(request)).doesNotThrowAnyException();
+    assertThatCode(() -> leanValidator.validate(request)).doesNotThrowAnyException();
+  }
+
+  @Test
+  void leanValidatorReportsTheSameFieldErrors() {
+    assertSameErrors(new FundTransferRequest("", "Id-2", BigDecimal.TEN));
+    assertSameErrors(new FundTransferRequest("Id-1", "", BigDecimal.TEN));
+    assertSameErrors(new FundTransferRequest("Id-1", "Id-2", new BigDecimal("-110")));
+    assertSameErrors(new FundTransferRequest("Id-1", "Id-2", new BigDecimal("0.5")));
+    assertSameErrors(new FundTransferRequest("Id-1", "Id-2", null));
+    assertSameErrors(new FundTransferRequest("", "", BigDecimal.ZERO));
+  }
+
+  @Test
+  void businessExceptionsLeaveOutStackTracesOnlyInLeanMode() {
+    assertThat(new InsufficientBalanceException("Insufficient balance").getStackTrace()).isNotEmpty();
+    BusinessException.setStackTraces(false);
+    try {
+      assertThat(new InsufficientBalanceException("Insufficient balance").getStackTrace()).isEmpty();
+    } finally {
+      BusinessException.setStackTraces(true);
+    }
+  }
+
+  @Test
+  void leanModeIsAppliedForTheLifetimeOfTheContext() {
+    new ApplicationContextRunner()
+        .withPropertyValues("transfer.lean.enabled=true")
+        .withUserConfiguration(BusinessExceptionConfiguration.class)
+        .run(context -> assertThat(new InsufficientBalanceException("Insufficient balance").getStackTrace()).isEmpty());
+
+    assertThat(new InsufficientBalanceException("Insufficient balance").getStackTrace()).isNotEmpty();
+  }
+
+  private void assertSameErrors(FundTransferRequest request) {
+    Map<String, String> expected = errors(beanValidator, request);
+    assertThat(errors(leanValidator, request)).isEqualTo(expected);
+  }
+
+  private static Map<String, String> errors(TransferRequestValidator validator, FundTransferRequest request) {
+    return catchThrowableOfType(() -> validator.validate(request), InvalidRequestException.class).getFieldErrors();
+  }
+}
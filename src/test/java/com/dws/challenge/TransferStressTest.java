@@ -0,0 +1,405 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountBalance;
+import com.dws.challenge.exception.InsufficientBalanceException;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.TieredAccountsRepository;
+import com.dws.challenge.service.AccountFactory;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.engine.CasTransferEngine;
+import com.dws.challenge.service.engine.ShardedTransferEngine;
+import com.dws.challenge.service.engine.StripedLockTransferEngine;
+import com.dws.challenge.service.engine.TransferEngine;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Concurrency stress harness for {@link AccountsService}, run with {@code ./gradlew stressTest} rather than
+ * {@code test}. The workload of every thread is drawn from a seeded random, so a failing run can be replayed
+ * with the same transfers ({@code -PstressSeed}); only the interleaving differs between runs.
+ * <p>
+ * Each scenario checks, per engine and repository:
+ * <ul>
+ *   <li>simulation: money is conserved, every balance stays above zero and every account ends at its opening
+ *   balance plus the transfers reported as applied (no lost updates), with no deadlock within the timeout;</li>
+ *   <li>linearizability: a balance read falls between the transfers completed before it started and those
+ *   started before it ended, and never goes back in time;</li>
+ *   <li>outcomes: like a jcstress test, two racing actors may only end in the outcomes of some serial order.</li>
+ * </ul>
+ * Throughput and latency percentiles are printed; {@code -PstressMinOpsPerSec} and {@code -PstressMaxP99Micros}
+ * turn them into a regression gate.
+ */
+@Tag("stress")
+class TransferStressTest {
+
+  private static final long SEED = Long.getLong("stress.seed", 42);
+
+  private static final int THREADS = Integer.getInteger("stress.threads", 8);
+
+  private static final int TRANSFERS_PER_THREAD = Integer.getInteger("stress.transfers", 25_000);
+
+  private static final long MIN_OPS_PER_SEC = Long.getLong("stress.min-ops-per-sec", 0);
+
+  private static final long MAX_P99_MICROS = Long.getLong("stress.max-p99-micros", 0);
+
+  private static final int HOT_ACCOUNTS = 4;
+
+  private static final int COLD_ACCOUNTS = 1_000;
+
+  private static final long OPENING_BALANCE = 10_000;
+
+  private static final long TIMEOUT_SECONDS = 120;
+
+  @Test
+  void stripedEngineSimulation() throws Exception {
+    simulate("striped", new StripedLockTransferEngine(64), new AccountsRepositoryInMemory());
+  }
+
+  @Test
+  void casEngineSimulation() throws Exception {
+    simulate("cas", new CasTransferEngine(), new AccountsRepositoryInMemory());
+  }
+
+  @Test
+  void shardedEngineSimulation() throws Exception {
+    try (ShardedTransferEngine engine = new ShardedTransferEngine(4, 1024)) {
+      simulate("sharded", engine, new AccountsRepositoryInMemory());
+    }
+  }
+
+  @Test
+  void stripedEngineSimulationOnTieredRepository() throws Exception {
+    // A hot tier much smaller than the working set keeps accounts moving on and off the heap.
+    try (TieredAccountsRepository repository = new TieredAccountsRepository(64, 1024, 1)) {
+      simulate("striped/tiered", new StripedLockTransferEngine(64), repository);
+    }
+  }
+
+  @Test
+  void stripedEngineReadsAreLinearizable() throws Exception {
+    assertLinearizableReads(new StripedLockTransferEngine(64));
+  }
+
+  @Test
+  void casEngineReadsAreLinearizable() throws Exception {
+    assertLinearizableReads(new CasTransferEngine());
+  }
+
+  @Test
+  void shardedEngineReadsAreLinearizable() throws Exception {
+    try (ShardedTransferEngine engine = new ShardedTransferEngine(4, 1024)) {
+      assertLinearizableReads(engine);
+    }
+  }
+
+  @Test
+  void stripedEngineRacingActorsOnlyEndInSerialOutcomes() throws Exception {
+    assertSerialOutcomes(new StripedLockTransferEngine(64), true);
+  }
+
+  @Test
+  void casEngineRacingActorsOnlyEndInSerialOutcomes() throws Exception {
+    assertSerialOutcomes(new CasTransferEngine(), false);
+  }
+
+  @Test
+  void shardedEngineRacingActorsOnlyEndInSerialOutcomes() throws Exception {
+    try (ShardedTransferEngine engine = new ShardedTransferEngine(4, 1024)) {
+      assertSerialOutcomes(engine, false);
+    }
+  }
+
+  /**
+   * Random transfers where half the traffic touches a few hot (split) accounts and the rest spreads over
+   * cold ones.
+   */
+  private void simulate(String name, TransferEngine engine, AccountsRepository repository) throws Exception {
+    List<String> hotIds = new ArrayList<>();
+    List<String> ids = new ArrayList<>();
+    for (int i = 0; i < HOT_ACCOUNTS; i++) {
+      hotIds.add("Hot-" + i);
+    }
+    ids.addAll(hotIds);
+    for (int i = 0; i < COLD_ACCOUNTS; i++) {
+      ids.add("Cold-" + i);
+    }
+    AccountsService accountsService = accountsService(repository, engine, AccountFactory.hotAccounts(hotIds, 8));
+    for (String id : ids) {
+      accountsService.createAccount(new Account(id, BigDecimal.valueOf(OPENING_BALANCE)));
+    }
+
+    long[][] deltas = new long[THREADS][ids.size()];
+    long[][] latencies = new long[THREADS][TRANSFERS_PER_THREAD];
+    CyclicBarrier start = new CyclicBarrier(THREADS + 1);
+    List<Callable<Void>> workers = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      long[] delta = deltas[t];
+      long[] latency = latencies[t];
+      SplittableRandom random = new SplittableRandom(SEED + t);
+      workers.add(() -> {
+        start.await();
+        for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+          int from = pick(random, ids.size());
+          int to = pick(random, ids.size());
+          if (to == from) {
+            to = (from + 1) % ids.size();
+          }
+          long amount = random.nextLong(1, 500);
+          long started = System.nanoTime();
+          try {
+            accountsService.transferMoney(ids.get(from), ids.get(to), BigDecimal.valueOf(amount));
+            delta[from] -= amount;
+            delta[to] += amount;
+          } catch (InsufficientBalanceException e) {
+            // Rejected transfers change nothing.
+          }
+          latency[i] = System.nanoTime() - started;
+        }
+        return null;
+      });
+    }
+    long elapsed = run(workers, start);
+
+    BigDecimal total = BigDecimal.ZERO;
+    for (int a = 0; a < ids.size(); a++) {
+      long expected = OPENING_BALANCE;
+      for (long[] delta : deltas) {
+        expected += delta[a];
+      }
+      BigDecimal balance = accountsService.getAccount(ids.get(a)).getBalance();
+      assertThat(balance).as("balance of %s (seed %d)", ids.get(a), SEED).isEqualByComparingTo(BigDecimal.valueOf(expected));
+      assertThat(balance.signum()).as("sign of %s (seed %d)", ids.get(a), SEED).isPositive();
+      total = total.add(balance);
+    }
+    assertThat(total).isEqualByComparingTo(BigDecimal.valueOf(OPENING_BALANCE * ids.size()));
+    report(name, latencies, elapsed);
+  }
+
+  /**
+   * One account only ever pays out, so its balance is a counter that goes down by one per completed
+   * transfer. It opens with one more than it pays, as a debit may not empty an account. A read is linearizable if it lies between the transfers completed before the read started and
+   * those started before it returned.
+   */
+  private void assertLinearizableReads(TransferEngine engine) throws Exception {
+    long opening = (long) THREADS * TRANSFERS_PER_THREAD + 1;
+    AccountsService accountsService = accountsService(new AccountsRepositoryInMemory(), engine,
+        AccountFactory.hotAccounts(List.of("Payer"), 8));
+    accountsService.createAccount(new Account("Payer", BigDecimal.valueOf(opening)));
+    for (int t = 0; t < THREADS; t++) {
+      accountsService.createAccount(new Account("Payee-" + t, BigDecimal.ZERO));
+    }
+
+    AtomicLong started = new AtomicLong();
+    AtomicLong completed = new AtomicLong();
+    AtomicBoolean running = new AtomicBoolean(true);
+    CyclicBarrier start = new CyclicBarrier(THREADS + 2);
+    List<Callable<Void>> workers = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      String payee = "Payee-" + t;
+      workers.add(() -> {
+        start.await();
+        for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+          started.incrementAndGet();
+          accountsService.transferMoney("Payer", payee, BigDecimal.ONE);
+          completed.incrementAndGet();
+        }
+        return null;
+      });
+    }
+    workers.add(() -> {
+      start.await();
+      long previous = opening;
+      while (running.get()) {
+        long before = completed.get();
+        long balance = accountsService.getBalance("Payer").getBalance().longValueExact();
+        long after = started.get();
+        assertThat(balance).as("read between %d completed and %d started transfers", before, after)
+            .isBetween(opening - after, opening - before);
+        assertThat(balance).as("read went back in time").isLessThanOrEqualTo(previous);
+        previous = balance;
+      }
+      return null;
+    });
+
+    ExecutorService executor = Executors.newFixedThreadPool(workers.size());
+    try {
+      List<Future<Void>> futures = new ArrayList<>();
+      for (Callable<Void> worker : workers) {
+        futures.add(executor.submit(worker));
+      }
+      start.await();
+      for (Future<Void> future : futures.subList(0, THREADS)) {
+        await(future);
+      }
+      running.set(false);
+      await(futures.get(THREADS));
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(accountsService.getBalance("Payer").getBalance()).isEqualByComparingTo(BigDecimal.ONE);
+  }
+
+  /**
+   * Two actors race on a fresh pair of accounts each round: A pays 1 to B while B pays 1 to A, with A
+   * starting at 2 and B at 1. A debit may not empty an account, so in any serial order A's transfer succeeds
+   * and the only legal outcomes are both succeeding (A=2, B=1) or B's failing (A=1, B=2). A third actor reads
+   * both balances at once; engines with a point-in-time read must always see a total of 3.
+   */
+  private void assertSerialOutcomes(TransferEngine engine, boolean pointInTimeReads) throws Exception {
+    int rounds = Math.max(TRANSFERS_PER_THREAD / 5, 1_000);
+    AccountsService accountsService = accountsService(new AccountsRepositoryInMemory(), engine, AccountFactory.NONE);
+    for (int r = 0; r < rounds; r++) {
+      accountsService.createAccount(new Account("A-" + r, BigDecimal.TWO));
+      accountsService.createAccount(new Account("B-" + r, BigDecimal.ONE));
+    }
+    boolean[] first = new boolean[rounds];
+    boolean[] second = new boolean[rounds];
+    BigDecimal[] observed = new BigDecimal[rounds];
+    CyclicBarrier round = new CyclicBarrier(3);
+    List<Callable<Void>> actors = List.of(
+        () -> {
+          for (int r = 0; r < rounds; r++) {
+            round.await();
+            first[r] = tryTransfer(accountsService, "A-" + r, "B-" + r);
+          }
+          return null;
+        },
+        () -> {
+          for (int r = 0; r < rounds; r++) {
+            round.await();
+            second[r] = tryTransfer(accountsService, "B-" + r, "A-" + r);
+          }
+          return null;
+        },
+        () -> {
+          for (int r = 0; r < rounds; r++) {
+            round.await();
+            observed[r] = accountsService.getBalances(List.of("A-" + r, "B-" + r)).getAccounts().stream()
+                .map(AccountBalance::getBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+          }
+          return null;
+        });
+    run(actors, null);
+
+    Map<String, Integer> outcomes = new TreeMap<>();
+    for (int r = 0; r < rounds; r++) {
+      String outcome = first[r] + ", " + second[r] + ", A=" + accountsService.getAccount("A-" + r).getBalance().toPlainString()
+          + ", B=" + accountsService.getAccount("B-" + r).getBalance().toPlainString();
+      outcomes.merge(outcome, 1, Integer::sum);
+      if (pointInTimeReads) {
+        assertThat(observed[r]).as("point-in-time total in round %d", r).isEqualByComparingTo("3");
+      }
+    }
+    System.out.printf("%s outcomes over %d rounds: %s%n", engine.getClass().getSimpleName(), rounds, outcomes);
+    assertThat(outcomes.keySet()).isSubsetOf("true, true, A=2, B=1", "true, false, A=1, B=2");
+  }
+
+  private static AccountsService accountsService(AccountsRepository repository, TransferEngine engine,
+                                                 AccountFactory accountFactory) {
+    return AccountsService.builder()
+        .accountsRepository(repository)
+        .transferEngine(engine)
+        .notificationService((account, description) -> {
+        })
+        .accountFactory(accountFactory)
+        .build();
+  }
+
+  private static boolean tryTransfer(AccountsService accountsService, String from, String to) {
+    try {
+      return accountsService.transferMoney(from, to, BigDecimal.ONE);
+    } catch (InsufficientBalanceException e) {
+      return false;
+    }
+  }
+
+  // Half the picks land on the hot accounts.
+  private static int pick(SplittableRandom random, int accounts) {
+    return random.nextBoolean() ? random.nextInt(HOT_ACCOUNTS) : random.nextInt(accounts);
+  }
+
+  /**
+   * Runs the workers to completion, releasing them together through the barrier if given.
+   *
+   * @return wall clock nanos from the release until the last worker finished
+   */
+  private static long run(List<Callable<Void>> workers, CyclicBarrier start) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(workers.size());
+    try {
+      List<Future<Void>> futures = new ArrayList<>();
+      for (Callable<Void> worker : workers) {
+        futures.add(executor.submit(worker));
+      }
+      if (start != null) {
+        start.await();
+      }
+      long started = System.nanoTime();
+      for (Future<Void> future : futures) {
+        await(future);
+      }
+      return System.nanoTime() - started;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void await(Future<Void> future) throws Exception {
+    try {
+      future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (TimeoutException e) {
+      long[] deadlocked = ManagementFactory.getThreadMXBean().findDeadlockedThreads();
+      if (deadlocked != null) {
+        StringBuilder dump = new StringBuilder();
+        for (ThreadInfo info : ManagementFactory.getThreadMXBean().getThreadInfo(deadlocked, true, true)) {
+          dump.append(info);
+        }
+        fail("Deadlock (seed %d):%n%s", SEED, dump);
+      }
+      fail("No progress within %d seconds (seed %d)", TIMEOUT_SECONDS, SEED);
+    }
+  }
+
+  private static void report(String name, long[][] latencies, long elapsedNanos) {
+    long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+    long opsPerSec = all.length * 1_000_000_000L / Math.max(elapsedNanos, 1);
+    long p99Micros = percentile(all, 0.99) / 1_000;
+    System.out.printf("%s: %d transfers on %d threads, %d ops/s, p50 %d us, p99 %d us, p99.9 %d us, max %d us%n",
+        name, all.length, latencies.length, opsPerSec, percentile(all, 0.5) / 1_000, p99Micros,
+        percentile(all, 0.999) / 1_000, all[all.length - 1] / 1_000);
+    if (MIN_OPS_PER_SEC > 0) {
+      assertThat(opsPerSec).as("%s throughput", name).isGreaterThanOrEqualTo(MIN_OPS_PER_SEC);
+    }
+    if (MAX_P99_MICROS > 0) {
+      assertThat(p99Micros).as("%s p99 latency", name).isLessThanOrEqualTo(MAX_P99_MICROS);
+    }
+  }
+
+  private static long percentile(long[] sorted, double quantile) {
+    return sorted[Math.min((int) Math.ceil(quantile * sorted.length) - 1, sorted.length - 1)];
+  }
+}
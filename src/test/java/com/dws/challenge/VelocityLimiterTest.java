@@ -0,0 +1,135 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.dws.challenge.domain.VelocityLimit;
+import com.dws.challenge.service.VelocityLimiter;
+import org.junit.jupiter.api.Test;
+
+class VelocityLimiterTest {
+
+  @Test
+  void rejectsTransfersBeyondTheAmountLimit() {
+    try (VelocityLimiter limiter = new VelocityLimiter(true, 60, 10, new BigDecimal("100"), 0)) {
+      assertThat(limiter.tryAcquire("Id-1", new BigDecimal("60"))).isTrue();
+      assertThat(limiter.tryAcquire("Id-1", new BigDecimal("40.01"))).isFalse();
+      assertThat(limiter.tryAcquire("Id-1", new BigDecimal("40"))).isTrue();
+      assertThat(limiter.tryAcquire("Id-2", new BigDecimal("100"))).isTrue();
+    }
+  }
+
+  @Test
+  void perAccountLimitOverridesTheDefault() {
+    try (VelocityLimiter limiter = new VelocityLimiter(true, 60, 10, null, 0)) {
+      limiter.setLimit("Id-1", new VelocityLimit(null, 2));
+
+      assertThat(limiter.tryAcquire("Id-1", BigDecimal.ONE)).isTrue();
+      assertThat(limiter.tryAcquire("Id-1", BigDecimal.ONE)).isTrue();
+      assertThat(limiter.tryAcquire("Id-1", BigDecimal.ONE)).isFalse();
+      assertThat(limiter.tryAcquire("Id-2", new BigDecimal("1000000"))).isTrue();
+      assertThat(limiter.limitOf("Id-2")).isEqualTo(VelocityLimit.UNLIMITED);
+    }
+  }
+
+  @Test
+  void releasedTransfersNoLongerCount() {
+    try (VelocityLimiter limiter = new VelocityLimiter(true, 60, 10, null, 1)) {
+      assertThat(limiter.tryAcquire("Id-1", BigDecimal.TEN)).isTrue();
+      limiter.release("Id-1", BigDecimal.TEN);
+
+      assertThat(limiter.tryAcquire("Id-1", BigDecimal.TEN)).isTrue();
+    }
+  }
+
+  @Test
+  void concurrentTransfersNeverOvershootTheLimit() throws Exception {
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    try (VelocityLimiter limiter = new VelocityLimiter(true, 60, 10, null, 500)) {
+      List<Future<Integer>> admitted = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        admitted.add(executor.submit(() -> {
+          start.await();
+          int count = 0;
+          for (int i = 0; i < 200; i++) {
+            count += limiter.tryAcquire("Id-1", BigDecimal.ONE) ? 1 : 0;
+          }
+          return count;
+        }));
+      }
+      start.countDown();
+
+      int total = 0;
+      for (Future<Integer> future : admitted) {
+        total += future.get(10, TimeUnit.SECONDS);
+      }
+      assertThat(total).isEqualTo(500);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void concurrentTransfersNeverOvershootTheLimitAcrossBucketRollovers() throws Exception {
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    // One millisecond buckets, so admissions keep straddling a rollover while the window stays far longer than the test.
+    try (VelocityLimiter limiter = new VelocityLimiter(true, 10, 10_000, null, 2_000)) {
+      List<Future<Integer>> admitted = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        admitted.add(executor.submit(() -> {
+          start.await();
+          int count = 0;
+          for (int i = 0; i < 500; i++) {
+            count += limiter.tryAcquire("Id-1", BigDecimal.ONE) ? 1 : 0;
+          }
+          return count;
+        }));
+      }
+      start.countDown();
+
+      int total = 0;
+      for (Future<Integer> future : admitted) {
+        total += future.get(10, TimeUnit.SECONDS);
+      }
+      assertThat(total).isEqualTo(2_000);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void evictsAccountsIdleForAWholeWindow() throws Exception {
+    try (VelocityLimiter limiter = new VelocityLimiter(true, 1, 10, null, 1)) {
+      assertThat(limiter.tryAcquire("Id-1", BigDecimal.ONE)).isTrue();
+      assertThat(limiter.trackedAccounts()).isEqualTo(1);
+
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (limiter.trackedAccounts() > 0 && System.nanoTime() < deadline) {
+        Thread.sleep(50);
+      }
+      assertThat(limiter.trackedAccounts()).isZero();
+      assertThat(limiter.tryAcquire("Id-1", BigDecimal.ONE)).isTrue();
+    }
+  }
+
+  @Test
+  void disabledLimiterAdmitsEverything() {
+    try (VelocityLimiter limiter = new VelocityLimiter(false, 60, 10, BigDecimal.ONE, 1)) {
+      assertThat(limiter.tryAcquire("Id-1", BigDecimal.TEN)).isTrue();
+      assertThat(limiter.tryAcquire("Id-1", BigDecimal.TEN)).isTrue();
+      assertThat(limiter.trackedAccounts()).isZero();
+    }
+  }
+}